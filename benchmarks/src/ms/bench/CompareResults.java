@@ -0,0 +1,146 @@
+package ms.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files in CSV format (as written by {@code -rf csv -rff <file>}) and
+ * prints the relative change of every benchmark present in both. Exits with status 1 if any
+ * benchmark became slower by more than a threshold, so that the tool can guard builds.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar ms.bench.CompareResults baseline.csv current.csv [threshold%]
+ * </pre>
+ *
+ * Only time-per-operation modes (avgt, sample, ss) are supported, i.e., larger scores are worse.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+public class CompareResults {
+    public static final double DEFAULT_THRESHOLD = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CompareResults <baseline.csv> <current.csv> [threshold%]");
+            System.exit(2);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, double[]> baseline = read(args[0]);
+        Map<String, double[]> current = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, double[]> e : current.entrySet()) {
+            double[] before = baseline.get(e.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-80s %12s%n", e.getKey(), "new");
+                continue;
+            }
+            double[] after = e.getValue();
+            // relative changes of zero baseline scores are undefined
+            double change = before[0] == 0 ? Double.NaN : 100 * (after[0] - before[0]) / before[0];
+            // only changes beyond both errors are significant
+            boolean significant = Math.abs(after[0] - before[0]) > before[1] + after[1];
+            boolean regression = significant && change > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT,
+                              "%-80s %12.3f -> %12.3f %9s%s%n",
+                              e.getKey(),
+                              before[0],
+                              after[0],
+                              Double.isNaN(change) ? "n/a"
+                                      : String.format(Locale.ROOT, "%+8.1f%%", change),
+                              regression ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions + " regression(s) above " + threshold + "%");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Reads a JMH CSV file into a map from "benchmark mode param=value..." to {score, error}.
+     */
+    private static Map<String, double[]> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Empty result file: " + file);
+        }
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        if (benchmark < 0 || mode < 0 || score < 0) {
+            throw new IllegalArgumentException("Not a JMH CSV result file: " + file);
+        }
+
+        Map<String, double[]> result = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> cells = split(line);
+            if (cells.size() != header.size()) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(cells.get(benchmark)).append(' ')
+                    .append(cells.get(mode));
+            for (int i = 0; i < header.size(); ++i) {
+                if (header.get(i).startsWith("Param: ")) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=')
+                            .append(cells.get(i));
+                }
+            }
+            result.put(key.toString(),
+                       new double[] { parse(cells.get(score)),
+                               error < 0 ? 0 : parse(cells.get(error)) });
+        }
+        return result;
+    }
+
+    /**
+     * Parses a score or an error, where missing values (e.g. the "NaN" errors of single-shot runs)
+     * are zero.
+     */
+    private static double parse(String value) {
+        double result;
+        try {
+            result = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        // parseDouble accepts "NaN", which would make every comparison insignificant
+        return Double.isNaN(result) ? 0 : result;
+    }
+
+    /**
+     * Splits a CSV line, respecting double-quoted cells.
+     */
+    private static List<String> split(String line) {
+        List<String> result = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); ++i) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append(c);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                result.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        result.add(cell.toString());
+        return result;
+    }
+}
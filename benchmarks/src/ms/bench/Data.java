@@ -0,0 +1,131 @@
+package ms.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ms.ipp.iterable.tree.StdMultiTree;
+import ms.ipp.iterable.tree.StdTree;
+
+/**
+ * Deterministic data generators shared by all benchmarks. Every generator takes its own seeded
+ * {@link Random}, so that runs (and machines) see exactly the same input.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+public final class Data {
+    public static final long SEED = 0x1bb5eedL;
+
+    private Data() {
+    }
+
+    public static Random random() {
+        return new Random(SEED);
+    }
+
+    /**
+     * Returns {@code size} uniformly distributed integers in [0, bound).
+     */
+    public static List<Integer> ints(int size, int bound) {
+        Random random = random();
+        List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            result.add(random.nextInt(bound));
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code outer} lists of {@code inner} integers each.
+     */
+    public static List<List<Integer>> nested(int outer, int inner) {
+        List<List<Integer>> result = new ArrayList<>(outer);
+        List<Integer> all = ints(outer * inner, Integer.MAX_VALUE);
+        for (int i = 0; i < outer; ++i) {
+            result.add(all.subList(i * inner, (i + 1) * inner));
+        }
+        return result;
+    }
+
+    /**
+     * Builds a tree in which every inner node has {@code fanOut} subtrees and {@code leaves} integer
+     * leaves, up to a given depth (a tree of depth 0 has only leaves). Subtrees are named "t0",
+     * "t1", ..., leaves "l0", "l1", ...
+     */
+    public static StdTree<Object> tree(int depth, int fanOut, int leaves) {
+        StdTree<Object> result = new StdTree<>(Object.class);
+        for (int i = 0; i < leaves; ++i) {
+            result.set("l" + i, i);
+        }
+        if (depth > 0) {
+            for (int i = 0; i < fanOut; ++i) {
+                result.set("t" + i, tree(depth - 1, fanOut, leaves));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the path to the first leaf at the bottom of a tree created by
+     * {@link #tree(int, int, int)}, e.g., "t0.t0.l0" for depth 2.
+     */
+    public static String deepestPath(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; ++i) {
+            sb.append("t0").append('.');
+        }
+        return sb.append("l0").toString();
+    }
+
+    /**
+     * Builds a flat multi-tree with {@code names} distinct names having {@code values} integers
+     * each.
+     */
+    public static StdMultiTree<Integer> multiTree(int names, int values) {
+        StdMultiTree<Integer> result = new StdMultiTree<>(Integer.class);
+        for (int i = 0; i < names; ++i) {
+            for (int j = 0; j < values; ++j) {
+                result.set("m" + i, j);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A row of the benchmark table.
+     */
+    public static class Person {
+        public final String id;
+        public final String city;
+        public final int age;
+
+        public Person(String id, String city, int age) {
+            this.id = id;
+            this.city = city;
+            this.age = age;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+    }
+
+    /**
+     * Returns {@code size} persons with ids "p0", "p1", ..., ages in [0, 100) and cities chosen
+     * among {@code cities} names, so that an equality query on a city selects about
+     * {@code size / cities} rows.
+     */
+    public static List<Person> persons(int size, int cities) {
+        Random random = random();
+        List<Person> result = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            result.add(new Person("p" + i, "city" + random.nextInt(cities), random.nextInt(100)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package ms.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ms.ipp.Iterables;
+import ms.ipp.iterator.NestedIterator;
+
+/**
+ * Compares lazy {@link Iterables} pipelines with the equivalent {@code java.util.stream} code.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class IterablesBenchmark {
+    @Param({ "1000", "100000" })
+    private int size;
+
+    private List<Integer> items;
+    private List<List<Integer>> nested;
+
+    @Setup
+    public void setup() {
+        items = Data.ints(size, size);
+        nested = Data.nested(size / 100, 100);
+    }
+
+    @Benchmark
+    public void mappedFilteredIterables(Blackhole bh) {
+        Iterable<Integer> it = Iterables.filtered(Iterables.mapped(items, i -> i * 3),
+                                                  i -> (i & 1) == 0);
+        for (Integer i : it) {
+            bh.consume(i);
+        }
+    }
+
+    @Benchmark
+    public void mappedFilteredStream(Blackhole bh) {
+        items.stream().map(i -> i * 3).filter(i -> (i & 1) == 0).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public List<Integer> filterMapIterables() {
+        return Iterables.filterMap(items, i -> i % 3 == 0, i -> -i);
+    }
+
+    @Benchmark
+    public List<Integer> filterMapStream() {
+        return items.stream().filter(i -> i % 3 == 0).map(i -> -i).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void nestedIterables(Blackhole bh) {
+        for (var it = new NestedIterator<>(nested.iterator(), List::iterator); it.hasNext();) {
+            bh.consume(it.next());
+        }
+    }
+
+    @Benchmark
+    public void nestedStream(Blackhole bh) {
+        nested.stream().flatMap(List::stream).forEach(bh::consume);
+    }
+
+    @Benchmark
+    public double sumIterables() {
+        return Iterables.sum(items, i -> i);
+    }
+
+    @Benchmark
+    public double sumStream() {
+        return items.stream().mapToDouble(i -> i).sum();
+    }
+
+    @Benchmark
+    public int distinctIterables() {
+        int count = 0;
+        for (var it = Iterables.distinct(items, i -> i).iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long distinctStream() {
+        return items.stream().distinct().count();
+    }
+}
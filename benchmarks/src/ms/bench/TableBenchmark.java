@@ -0,0 +1,107 @@
+package ms.bench;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ms.bench.Data.Person;
+import ms.db.EqualsQuery;
+import ms.db.MergedQuery;
+import ms.db.Query;
+import ms.db.RangeQuery;
+import ms.db.Table;
+import ms.db.Table.InsertBehaviour;
+
+/**
+ * Measures inserts, removals and queries of a {@link Table} with a hash index on the city and a
+ * sorted index on the age of {@link Person persons}. The number of cities controls the
+ * selectivity of equality queries.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TableBenchmark {
+    @Param({ "1000", "100000" })
+    private int size;
+
+    @Param({ "10", "1000" })
+    private int cities;
+
+    private List<Person> persons;
+    private Table<Person> table;
+    private Query byCity;
+    private Query byAge;
+    private Query byBoth;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        persons = Data.persons(size, cities);
+        table = createTable(persons);
+        byCity = new EqualsQuery<>("city", "city0");
+        byAge = new RangeQuery<>("age", 30, true, 40, false);
+        byBoth = new MergedQuery(MergedQuery.Type.AND, byAge, byCity);
+    }
+
+    @Benchmark
+    public Table<Person> insertAll() {
+        return createTable(persons);
+    }
+
+    @Benchmark
+    public Person removeInsert() {
+        // keeps the size of the table constant
+        Person person = persons.get(counter++ % persons.size());
+        table.remove(person.id, true);
+        table.insert(person.id, person, InsertBehaviour.ERROR);
+        return person;
+    }
+
+    @Benchmark
+    public Person queryById() {
+        return table.queryById(persons.get(counter++ % persons.size()).id);
+    }
+
+    @Benchmark
+    public Collection<Person> queryEquals() {
+        return table.query(byCity);
+    }
+
+    @Benchmark
+    public Collection<Person> queryRange() {
+        return table.query(byAge);
+    }
+
+    @Benchmark
+    public Collection<Person> queryAnd() {
+        return table.query(byBoth);
+    }
+
+    private static Table<Person> createTable(List<Person> persons) {
+        Table<Person> result = new Table<>(false);
+        result.addIndex("city", Person::getCity, String.class);
+        result.addSortedIndex("age", Person::getAge, Integer.class);
+        for (Person person : persons) {
+            result.insert(person.id, person, InsertBehaviour.ERROR);
+        }
+        return result;
+    }
+}
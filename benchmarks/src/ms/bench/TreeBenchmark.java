@@ -0,0 +1,102 @@
+package ms.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ms.ipp.iterable.tree.StdMultiTree;
+import ms.ipp.iterable.tree.StdTree;
+
+/**
+ * Measures recursive traversal and path-based access of {@link StdTree} and {@link StdMultiTree}
+ * on deep and on wide trees.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TreeBenchmark {
+    public enum Shape {
+        DEEP(10, 2, 2), // about 2k subtrees, 4k leaves, paths of 11 names
+        WIDE(2, 100, 2); // about 10k subtrees, 20k leaves, paths of 3 names
+
+        private final int depth;
+        private final int fanOut;
+        private final int leaves;
+
+        private Shape(int depth, int fanOut, int leaves) {
+            this.depth = depth;
+            this.fanOut = fanOut;
+            this.leaves = leaves;
+        }
+    }
+
+    @Param({ "DEEP", "WIDE" })
+    private Shape shape;
+
+    private StdTree<Object> tree;
+    private StdMultiTree<Integer> multiTree;
+    private String deepestPath;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        tree = Data.tree(shape.depth, shape.fanOut, shape.leaves);
+        multiTree = Data.multiTree(shape.fanOut, shape.leaves);
+        deepestPath = Data.deepestPath(shape.depth);
+    }
+
+    @Benchmark
+    public void recursive(Blackhole bh) {
+        for (var e : tree.recursive()) {
+            bh.consume(e.getValue());
+        }
+    }
+
+    @Benchmark
+    public void recursiveIntegers(Blackhole bh) {
+        for (var e : tree.recursive(Integer.class)) {
+            bh.consume(e.getValue());
+        }
+    }
+
+    @Benchmark
+    public Object getByPath() {
+        return tree.get(deepestPath);
+    }
+
+    @Benchmark
+    public Object setByPath() {
+        return tree.set(deepestPath, counter++);
+    }
+
+    @Benchmark
+    public void multiTreeGet(Blackhole bh) {
+        for (var e : multiTree.members("m" + (counter++ % shape.fanOut))) {
+            bh.consume(e.getValue());
+        }
+    }
+
+    @Benchmark
+    public void multiTreeMembers(Blackhole bh) {
+        for (var e : multiTree) {
+            bh.consume(e.getValue());
+        }
+    }
+}
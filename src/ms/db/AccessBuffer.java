@@ -0,0 +1,47 @@
+package ms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lossy ring buffer recording accesses of ids. Recording is lock-free and may be done by any
+ * number of threads; draining must be done by one thread at a time. Accesses recorded while the
+ * buffer is full are dropped, which is acceptable for eviction policies.
+ */
+class AccessBuffer {
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final AtomicLong written;
+    private volatile long drained;
+
+    AccessBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        written = new AtomicLong();
+    }
+
+    void record(String id) {
+        long index;
+        do {
+            index = written.get();
+            if (index - drained >= slots.length()) {
+                return; // full, drop the access
+            }
+        } while (!written.compareAndSet(index, index + 1));
+        slots.set((int) (index & mask), id);
+    }
+
+    void drain(Consumer<String> consumer) {
+        long end = written.get();
+        for (long i = drained; i < end; ++i) {
+            // slots of writers which have not finished yet are empty and skipped
+            String id = slots.getAndSet((int) (i & mask), null);
+            if (id != null) {
+                consumer.accept(id);
+            }
+        }
+        drained = end;
+    }
+}
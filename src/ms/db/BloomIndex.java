@@ -0,0 +1,162 @@
+package ms.db;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An approximate index which only answers whether a value might be indexed, at a fraction of the
+ * memory of a {@link HashIndex}. It consists of a counting Bloom filter (with 4-bit counters, so
+ * that values can be removed again) and a {@link CountMinSketch} estimating how many ids are
+ * indexed under a value.
+ * <br>
+ * The index does not store ids. Therefore, {@link #queryEquals(Object)} returns an empty set if
+ * the filter rules out the value, and otherwise finds the ids by a scan of all rows, which costs
+ * O(n).
+ */
+public class BloomIndex<T> implements Index<T> {
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+    private static final int SKETCH_DEPTH = 4;
+
+    private final Class<T> clazz;
+    private final long[] counters;
+    private final int numCounters;
+    private final int numHashes;
+    private final CountMinSketch sketch;
+    private final Function<? super T, Set<String>> scan;
+
+    /**
+     * @param clazz              the class of the indexed values
+     * @param expectedInsertions the expected number of indexed ids, positive
+     * @param falsePositiveRate  the probability that {@link #mightContain(Object)} returns true for
+     *                           a value which is not indexed (given the expected number of ids), in
+     *                           (0, 1)
+     * @param scan               returns the ids of all rows with a given value by scanning them,
+     *                           not null
+     */
+    public BloomIndex(Class<T> clazz,
+                      int expectedInsertions,
+                      double falsePositiveRate,
+                      Function<? super T, Set<String>> scan) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive, got "
+                                               + expectedInsertions);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must lie in (0, 1), got "
+                                               + falsePositiveRate);
+        }
+        this.clazz = clazz;
+        this.scan = Objects.requireNonNull(scan);
+        double ln2 = Math.log(2);
+        double size = -expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2);
+        numCounters = (int) Math.min(Integer.MAX_VALUE - COUNTERS_PER_WORD, Math.ceil(size));
+        numHashes = Math.max(1, (int) Math.round(numCounters * ln2 / expectedInsertions));
+        counters = new long[(numCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD];
+        sketch = new CountMinSketch(Math.max(64, expectedInsertions / 2), SKETCH_DEPTH);
+    }
+
+    @Override
+    public Class<T> getValueClass() {
+        return clazz;
+    }
+
+    @Override
+    public void insert(T value, String id) {
+        long hash = CountMinSketch.hash(value);
+        for (int i = 0; i < numHashes; ++i) {
+            int counter = counter(hash, i);
+            long count = get(counter);
+            if (count < MAX_COUNT) {
+                set(counter, count + 1);
+            }
+        }
+        sketch.add(value);
+    }
+
+    @Override
+    public void remove(T value, String id) {
+        long hash = CountMinSketch.hash(value);
+        if (!mightContain(hash)) { // This should never happen!
+            throw new IllegalArgumentException("Index key '" + value + "' for id '" + id
+                                               + "' not found");
+        }
+        for (int i = 0; i < numHashes; ++i) {
+            int counter = counter(hash, i);
+            long count = get(counter);
+            // saturated counters have lost their count and must stay set
+            if (count < MAX_COUNT) {
+                set(counter, count - 1);
+            }
+        }
+        sketch.remove(value);
+    }
+
+    /**
+     * Returns the ids indexed under a given value. Unless the filter rules out the value, all rows
+     * are scanned, i.e., this costs O(n).
+     */
+    @Override
+    public Set<String> queryEquals(T value) {
+        if (!mightContain(value)) {
+            return new HashSet<>();
+        }
+        return scan.apply(value);
+    }
+
+    @Override
+    public boolean mightContain(T value) {
+        return mightContain(CountMinSketch.hash(value));
+    }
+
+    @Override
+    public int estimateEquals(T value) {
+        return mightContain(value) ? sketch.estimate(value) : 0;
+    }
+
+    /**
+     * Returns the number of counters in the filter.
+     *
+     * @return
+     */
+    public int getFilterSize() {
+        return numCounters;
+    }
+
+    public int getHashCount() {
+        return numHashes;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // ==================================== PRIVATE MEMBERS ==================================== //
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private boolean mightContain(long hash) {
+        for (int i = 0; i < numHashes; ++i) {
+            if (get(counter(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int counter(long hash, int i) {
+        // double hashing: h1 + i * h2 behaves like numHashes independent hash functions
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + i * h2, numCounters);
+    }
+
+    private long get(int counter) {
+        int shift = (counter % COUNTERS_PER_WORD) * COUNTER_BITS;
+        return (counters[counter / COUNTERS_PER_WORD] >>> shift) & MAX_COUNT;
+    }
+
+    private void set(int counter, long count) {
+        int shift = (counter % COUNTERS_PER_WORD) * COUNTER_BITS;
+        int word = counter / COUNTERS_PER_WORD;
+        counters[word] = (counters[word] & ~(MAX_COUNT << shift)) | (count << shift);
+    }
+}
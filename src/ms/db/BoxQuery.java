@@ -0,0 +1,48 @@
+package ms.db;
+
+import java.util.Arrays;
+
+/**
+ * A query for all points lying within an axis-aligned box (bounds included). Is executed against a
+ * {@link KdTreeIndex}.
+ */
+public class BoxQuery implements Query {
+
+    private final String indexName;
+    private final double[] min;
+    private final double[] max;
+
+    /**
+     * @param indexName the name of the multidimensional index
+     * @param min       the lower corner of the box, not null. Use
+     *                  {@link Double#NEGATIVE_INFINITY} for unbounded dimensions.
+     * @param max       the upper corner of the box, not null. Use
+     *                  {@link Double#POSITIVE_INFINITY} for unbounded dimensions.
+     */
+    public BoxQuery(String indexName, double[] min, double[] max) {
+        if (min.length != max.length) {
+            throw new IllegalArgumentException("Box corners must have the same dimension, got "
+                                               + min.length + " and " + max.length);
+        }
+        this.indexName = indexName;
+        this.min = min.clone();
+        this.max = max.clone();
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public double[] getMin() {
+        return min.clone();
+    }
+
+    public double[] getMax() {
+        return max.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(min) + " <= " + indexName + " <= " + Arrays.toString(max);
+    }
+}
@@ -0,0 +1,125 @@
+package ms.db;
+
+/**
+ * A count-min sketch estimating how often values have been added. The estimate is never smaller
+ * than the real count and exceeds it by at most {@code e/width} times the total count with
+ * probability {@code 1 - exp(-depth)}.
+ * <br>
+ * Values may be removed again as long as only previously added values are removed (the counts
+ * remain non-negative), which allows the sketch to be maintained alongside a {@link Table}.
+ */
+public class CountMinSketch {
+    private final int[][] counts;
+    private final int mask;
+    private long total;
+
+    /**
+     * Creates a sketch whose estimates exceed the real counts by at most {@code epsilon} times the
+     * total count with probability {@code 1 - delta}.
+     *
+     * @param epsilon the relative error, in (0, 1)
+     * @param delta   the probability of exceeding the error, in (0, 1)
+     * @return
+     */
+    public static CountMinSketch withError(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("Epsilon and delta must lie in (0, 1), got "
+                                               + epsilon + " and " + delta);
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(width, depth);
+    }
+
+    /**
+     * @param width the number of counters per row, positive. Is rounded up to a power of two.
+     * @param depth the number of rows (i.e., independent hash functions), positive
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Width and depth must be positive, got " + width
+                                               + " and " + depth);
+        }
+        int w = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        counts = new int[depth][w];
+        mask = w - 1;
+    }
+
+    public void add(Object value) {
+        add(value, 1);
+    }
+
+    public void remove(Object value) {
+        add(value, -1);
+    }
+
+    /**
+     * Adds a given count for a given value. Negative counts remove previous additions.
+     *
+     * @param value the value, may be null
+     * @param count the count to add
+     */
+    public void add(Object value, int count) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i][(h1 + i * h2) & mask] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Returns an upper bound for the number of times a given value has been added.
+     *
+     * @param value the value, may be null
+     * @return
+     */
+    public int estimate(Object value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int result = Integer.MAX_VALUE;
+        for (int i = 0; i < counts.length; ++i) {
+            result = Math.min(result, counts[i][(h1 + i * h2) & mask]);
+        }
+        return result;
+    }
+
+    /**
+     * Halves all counts, so that older additions weigh less than recent ones. Must not be combined
+     * with {@link #remove(Object)}, as removals of values added before might then make counts
+     * negative.
+     */
+    public void age() {
+        for (int[] row : counts) {
+            for (int i = 0; i < row.length; ++i) {
+                row[i] >>= 1;
+            }
+        }
+        total >>= 1;
+    }
+
+    /**
+     * Returns the total count of all values added.
+     *
+     * @return
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Spreads the hash code of a given value to 64 bits (by means of the MurmurHash3 finalizer),
+     * so that the upper and the lower half can be used as two independent hashes.
+     */
+    static long hash(Object value) {
+        long h = value == null ? 0 : value.hashCode();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,23 @@
+package ms.db;
+
+/**
+ * Is notified whenever a {@link Table} removes a row on its own (as opposed to an explicit call of
+ * one of its {@code remove} methods).
+ */
+@FunctionalInterface
+public interface EvictionListener<T> {
+
+    public static enum Cause {
+        EXPIRED, // the row's time-to-live has elapsed
+        CAPACITY, // the row has been evicted to bound the table's size
+    }
+
+    /**
+     * Is called after the row has been removed from the table and all of its indexes.
+     *
+     * @param id    the id of the evicted row
+     * @param value the evicted value
+     * @param cause the reason of the eviction
+     */
+    void onEviction(String id, T value, Cause cause);
+}
@@ -0,0 +1,58 @@
+package ms.db;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Decides which rows a capacity-bounded {@link Table} evicts (see
+ * {@link Table#setCapacity(long, EvictionPolicy)}). The table informs the policy about every
+ * insertion, access and removal and asks it for a victim as long as the total weight of all rows
+ * exceeds the capacity.
+ * <br>
+ * Policies are only called by the table while it is modified, so they need not be thread-safe.
+ */
+public interface EvictionPolicy<T> {
+
+    /**
+     * Evicts the least recently used rows first. Every row has a weight of 1.
+     */
+    static <T> EvictionPolicy<T> lru() {
+        return new LruPolicy<>(v -> 1);
+    }
+
+    /**
+     * Evicts the least frequently used rows first (approximately, see {@link LfuPolicy}). Every
+     * row has a weight of 1.
+     */
+    static <T> EvictionPolicy<T> lfu() {
+        return new LfuPolicy<>();
+    }
+
+    /**
+     * Evicts the least recently used rows first until the total weight of all rows fits the
+     * capacity.
+     *
+     * @param weigher returns the (non-negative) weight of a row. Must be deterministic, since it is
+     *                applied again when the row is removed.
+     */
+    static <T> EvictionPolicy<T> weighted(ToLongFunction<T> weigher) {
+        return new LruPolicy<>(weigher);
+    }
+
+    void onInsert(String id, T value);
+
+    /**
+     * Is called for accesses of rows which might have been removed in the meantime.
+     */
+    void onAccess(String id);
+
+    void onRemove(String id, T value);
+
+    /**
+     * Returns the id of the row to evict next or null if there are no rows.
+     */
+    String victim();
+
+    default long weight(T value) {
+        return 1;
+    }
+}
@@ -24,6 +24,30 @@ public interface Index<T> {
     default Set<String> queryEqualsUnsafe(EqualsQuery<?> query) {
         return queryEquals(cast(query.getIndexName(), query.getValue(), getValueClass()));
     }
+
+    /**
+     * Returns false only if no id is indexed under a given value. Approximate indexes may return
+     * true although there is no such id.
+     */
+    default boolean mightContain(T value) {
+        return !queryEquals(value).isEmpty();
+    }
+
+    /**
+     * Returns an estimate of the number of ids indexed under a given value. Exact indexes return
+     * the real number; approximate ones never return less than it.
+     */
+    default int estimateEquals(T value) {
+        return queryEquals(value).size();
+    }
+
+    default boolean mightContainUnsafe(EqualsQuery<?> query) {
+        return mightContain(cast(query.getIndexName(), query.getValue(), getValueClass()));
+    }
+
+    default int estimateEqualsUnsafe(EqualsQuery<?> query) {
+        return estimateEquals(cast(query.getIndexName(), query.getValue(), getValueClass()));
+    }
 }
 
 class IndexHelper {
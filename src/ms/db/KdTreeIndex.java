@@ -0,0 +1,282 @@
+package ms.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A multidimensional index over points of a fixed dimension, stored as a k-d tree. It answers
+ * {@link BoxQuery box queries} by visiting only those subtrees which intersect the box.
+ * <br>
+ * The tree is kept balanced in the manner of a scapegoat tree: if an insertion makes the tree
+ * deeper than allowed, the smallest unbalanced subtree on the insertion path is rebuilt. Removed
+ * points are only marked as deleted and are purged by the next rebuild (at the latest when they
+ * make up half of the tree).
+ */
+public class KdTreeIndex implements Index<double[]> {
+    // a subtree is unbalanced if one of its children holds more than ALPHA of its nodes
+    private static final double ALPHA = 0.7;
+
+    private static class Node {
+        private final double[] point;
+        private final Set<String> ids;
+        private Node left, right;
+        private int size; // number of nodes in the subtree, including deleted ones
+
+        private Node(double[] point) {
+            this.point = point;
+            ids = new HashSet<>();
+            size = 1;
+        }
+    }
+
+    private final int dimensions;
+    private Node root;
+    private int nodes; // total number of nodes
+    private int deleted; // number of nodes without ids
+
+    public KdTreeIndex(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive, got " + dimensions);
+        }
+        this.dimensions = dimensions;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public Class<double[]> getValueClass() {
+        return double[].class;
+    }
+
+    @Override
+    public void insert(double[] point, String id) {
+        if (point == null) {
+            return; // points without coordinates are not indexed
+        }
+        check(point);
+        if (root == null) {
+            root = newNode(point, id);
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        while (true) {
+            path.add(node);
+            if (Arrays.equals(node.point, point)) {
+                if (node.ids.isEmpty()) {
+                    deleted--;
+                }
+                node.ids.add(id);
+                return;
+            }
+            int dim = (path.size() - 1) % dimensions;
+            boolean isLeft = point[dim] < node.point[dim];
+            Node child = isLeft ? node.left : node.right;
+            if (child == null) {
+                child = newNode(point, id);
+                if (isLeft) {
+                    node.left = child;
+                } else {
+                    node.right = child;
+                }
+                break;
+            }
+            node = child;
+        }
+        for (Node n : path) {
+            n.size++;
+        }
+        if (path.size() > maxDepth()) {
+            rebalance(path);
+        }
+    }
+
+    @Override
+    public void remove(double[] point, String id) {
+        if (point == null) {
+            return;
+        }
+        Node node = find(point);
+        if (node == null || !node.ids.remove(id)) { // This should never happen!
+            throw new IllegalArgumentException("Index key '" + Arrays.toString(point) + "' for id '"
+                                               + id + "' not found");
+        }
+        if (node.ids.isEmpty()) {
+            deleted++;
+            if (2 * deleted > nodes) {
+                root = rebuild(root, 0);
+            }
+        }
+    }
+
+    @Override
+    public Set<String> queryEquals(double[] point) {
+        Node node = point == null ? null : find(point);
+        return node == null ? new HashSet<>() : new HashSet<>(node.ids);
+    }
+
+    @Override
+    public int estimateEquals(double[] point) {
+        Node node = point == null ? null : find(point);
+        return node == null ? 0 : node.ids.size();
+    }
+
+    public Set<String> queryBox(BoxQuery query) {
+        return queryBox(query.getMin(), query.getMax());
+    }
+
+    /**
+     * Returns the ids of all points {@code p} with {@code min[i] <= p[i] <= max[i]} for all
+     * dimensions {@code i}.
+     *
+     * @param min the lower corner, not null
+     * @param max the upper corner, not null
+     * @return
+     */
+    public Set<String> queryBox(double[] min, double[] max) {
+        check(min);
+        check(max);
+        Set<String> result = new HashSet<>();
+        search(root, 0, min, max, result);
+        return result;
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // ==================================== PRIVATE MEMBERS ==================================== //
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    /**
+     * Returns a given point if it has the right number of coordinates (or is null) and throws an
+     * {@link IllegalArgumentException} otherwise.
+     */
+    double[] check(double[] point) {
+        if (point != null && point.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " coordinates but got "
+                                               + point.length);
+        }
+        return point;
+    }
+
+    private Node newNode(double[] point, String id) {
+        // copy the point as the generator might reuse arrays
+        Node node = new Node(point.clone());
+        node.ids.add(id);
+        nodes++;
+        return node;
+    }
+
+    private int maxDepth() {
+        return (int) (Math.log(nodes) / Math.log(1 / ALPHA)) + 1;
+    }
+
+    private Node find(double[] point) {
+        check(point);
+        Node node = root;
+        for (int depth = 0; node != null && !Arrays.equals(node.point, point); ++depth) {
+            int dim = depth % dimensions;
+            node = point[dim] < node.point[dim] ? node.left : node.right;
+        }
+        return node;
+    }
+
+    private void search(Node node, int depth, double[] min, double[] max, Set<String> result) {
+        while (node != null) {
+            if (!node.ids.isEmpty() && contains(node.point, min, max)) {
+                result.addAll(node.ids);
+            }
+            int dim = depth % dimensions;
+            // left subtree only contains smaller coordinates, the right one larger or equal ones
+            boolean visitLeft = min[dim] < node.point[dim];
+            boolean visitRight = max[dim] >= node.point[dim];
+            if (visitLeft && visitRight) {
+                search(node.left, depth + 1, min, max, result);
+                node = node.right;
+            } else {
+                node = visitLeft ? node.left : visitRight ? node.right : null;
+            }
+            depth++;
+        }
+    }
+
+    private static boolean contains(double[] point, double[] min, double[] max) {
+        for (int i = 0; i < point.length; ++i) {
+            if (point[i] < min[i] || point[i] > max[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rebalance(List<Node> path) {
+        // find the deepest unbalanced node on the insertion path (the scapegoat) ...
+        for (int i = path.size() - 2; i >= 0; --i) {
+            Node node = path.get(i);
+            if (size(node.left) > ALPHA * node.size || size(node.right) > ALPHA * node.size) {
+                // ... and rebuild its subtree
+                int oldSize = node.size;
+                Node rebuilt = rebuild(node, i);
+                int purged = oldSize - size(rebuilt);
+                if (i == 0) {
+                    root = rebuilt;
+                } else {
+                    Node parent = path.get(i - 1);
+                    if (parent.left == node) {
+                        parent.left = rebuilt;
+                    } else {
+                        parent.right = rebuilt;
+                    }
+                    for (int j = 0; j < i; ++j) {
+                        path.get(j).size -= purged;
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private Node rebuild(Node subtree, int depth) {
+        List<Node> live = new ArrayList<>();
+        collect(subtree, live);
+        int purged = size(subtree) - live.size();
+        nodes -= purged;
+        deleted -= purged;
+        return build(live, 0, live.size(), depth);
+    }
+
+    private static void collect(Node node, List<Node> result) {
+        if (node != null) {
+            collect(node.left, result);
+            if (!node.ids.isEmpty()) {
+                result.add(node);
+            }
+            collect(node.right, result);
+        }
+    }
+
+    private Node build(List<Node> list, int from, int to, int depth) {
+        if (from >= to) {
+            return null;
+        }
+        int dim = depth % dimensions;
+        list.subList(from, to).sort(Comparator.comparingDouble(n -> n.point[dim]));
+        int mid = (from + to) / 2;
+        // all nodes with the same coordinate as the median must end up in the right subtree
+        while (mid > from && list.get(mid - 1).point[dim] == list.get(mid).point[dim]) {
+            mid--;
+        }
+        Node node = list.get(mid);
+        node.left = build(list, from, mid, depth + 1);
+        node.right = build(list, mid + 1, to, depth + 1);
+        node.size = to - from;
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,141 @@
+package ms.db;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Evicts the least frequently used rows first, in the manner of TinyLFU: the frequencies of all
+ * ids (including ones which have already been evicted) are kept in a {@link CountMinSketch} and
+ * halved periodically, so that old popularity fades away. The victim is the least frequent row
+ * among a small random sample of the rows. Every row has a weight of 1.
+ * <br>
+ * The most recently inserted row is never chosen as victim (unless it is the only row): it has
+ * had no chance to be used yet, and would otherwise be evicted by its own insertion.
+ */
+public class LfuPolicy<T> implements EvictionPolicy<T> {
+    private final CountMinSketch frequencies;
+    private final int sampleSize;
+    private final int agingPeriod;
+    private final Random random;
+    private int events;
+    // the most recently inserted row, which is protected from eviction
+    private String newest;
+
+    // the rows, allowing constant-time sampling and removal
+    private final List<String> ids;
+    private final Map<String, Integer> positions;
+
+    public LfuPolicy() {
+        this(4096, 8);
+    }
+
+    /**
+     * @param sketchWidth the number of counters per row of the frequency sketch. Should be about
+     *                    the capacity of the table.
+     * @param sampleSize  the number of rows to choose the victim from, positive
+     */
+    public LfuPolicy(int sketchWidth, int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Sample size must be positive, got " + sampleSize);
+        }
+        frequencies = new CountMinSketch(sketchWidth, 4);
+        this.sampleSize = sampleSize;
+        agingPeriod = 10 * sketchWidth;
+        random = new Random(0);
+        ids = new ArrayList<>();
+        positions = new HashMap<>();
+    }
+
+    @Override
+    public void onInsert(String id, T value) {
+        positions.put(id, ids.size());
+        ids.add(id);
+        newest = id;
+        record(id);
+    }
+
+    @Override
+    public void onAccess(String id) {
+        record(id);
+    }
+
+    @Override
+    public void onRemove(String id, T value) {
+        Integer position = positions.remove(id);
+        if (id.equals(newest)) {
+            newest = null;
+        }
+        if (position != null) {
+            // move the last id into the gap
+            String last = ids.remove(ids.size() - 1);
+            if (position < ids.size()) {
+                ids.set(position, last);
+                positions.put(last, position);
+            }
+        }
+    }
+
+    @Override
+    public String victim() {
+        String protectedId = ids.size() > 1 ? newest : null;
+        int excluded = protectedId == null ? -1 : positions.get(protectedId);
+        int candidates = protectedId == null ? ids.size() : ids.size() - 1;
+        if (candidates <= sampleSize) {
+            return leastFrequent(ids, protectedId);
+        }
+        return sample(candidates, excluded);
+    }
+
+    /**
+     * Returns the estimated (aged) number of uses of a given id.
+     *
+     * @param id the id
+     * @return
+     */
+    public int frequency(String id) {
+        return frequencies.estimate(id);
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // ==================================== PRIVATE MEMBERS ==================================== //
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private void record(String id) {
+        frequencies.add(id);
+        if (++events >= agingPeriod) {
+            frequencies.age();
+            events = 0;
+        }
+    }
+
+    // samples among n positions, skipping the excluded position (if any)
+    private String sample(int n, int excluded) {
+        List<String> sample = new ArrayList<>(sampleSize);
+        for (int i = 0; i < sampleSize; ++i) {
+            int position = random.nextInt(n);
+            if (excluded >= 0 && position >= excluded) {
+                ++position;
+            }
+            sample.add(ids.get(position));
+        }
+        return leastFrequent(sample, null);
+    }
+
+    private String leastFrequent(List<String> candidates, String excluded) {
+        String result = null;
+        int min = Integer.MAX_VALUE;
+        for (String id : candidates) {
+            if (id.equals(excluded)) {
+                continue;
+            }
+            int frequency = frequencies.estimate(id);
+            if (frequency < min) {
+                min = frequency;
+                result = id;
+            }
+        }
+        return result;
+    }
+}
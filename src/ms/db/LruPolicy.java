@@ -0,0 +1,43 @@
+package ms.db;
+
+import java.util.LinkedHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Evicts the least recently used rows first. Both insertions and accesses count as uses.
+ */
+public class LruPolicy<T> implements EvictionPolicy<T> {
+    // access-ordered, i.e., the least recently used id comes first
+    private final LinkedHashMap<String, Boolean> ids;
+    private final ToLongFunction<T> weigher;
+
+    public LruPolicy(ToLongFunction<T> weigher) {
+        this.weigher = weigher;
+        ids = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    public void onInsert(String id, T value) {
+        ids.put(id, Boolean.TRUE);
+    }
+
+    @Override
+    public void onAccess(String id) {
+        ids.get(id);
+    }
+
+    @Override
+    public void onRemove(String id, T value) {
+        ids.remove(id);
+    }
+
+    @Override
+    public String victim() {
+        return ids.isEmpty() ? null : ids.keySet().iterator().next();
+    }
+
+    @Override
+    public long weight(T value) {
+        return weigher.applyAsLong(value);
+    }
+}
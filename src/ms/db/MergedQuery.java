@@ -1,6 +1,6 @@
 package ms.db;
 
-import static ms.ipp.Iterables.appendList;
+import static ms.ipp.Iterables.join;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,10 +35,10 @@ public class MergedQuery implements Query {
 
     @Override
     public String toString() {
-        return appendList(queries,
-                          "(",
-                          ")",
-                          type.toString(),
-                          (q, sb) -> sb.append(" '").append(q).append("' "));
+        return join(queries,
+                    "(",
+                    ")",
+                    type.toString(),
+                    (q, sb) -> sb.append(" '").append(q).append("' "));
     }
 }
@@ -32,6 +32,22 @@ public interface Query {
         return new EqualsQuery<>(indexName, value);
     }
 
+    public static BoxQuery within(String indexName, double[] min, double[] max) {
+        return new BoxQuery(indexName, min, max);
+    }
+
+    public static TextQuery matches(String indexName, String terms) {
+        return new TextQuery(indexName, TextQuery.Type.TERM, terms);
+    }
+
+    public static TextQuery phrase(String indexName, String phrase) {
+        return new TextQuery(indexName, TextQuery.Type.PHRASE, phrase);
+    }
+
+    public static TextQuery prefix(String indexName, String prefix) {
+        return new TextQuery(indexName, TextQuery.Type.PREFIX, prefix);
+    }
+
     default MergedQuery and(Query... queries) {
         return new MergedQuery(Type.AND, this).add(queries);
     }
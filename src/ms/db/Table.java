@@ -5,18 +5,32 @@ import static ms.ipp.Iterables.intersection;
 import static ms.ipp.Iterables.map;
 import static ms.ipp.Iterables.union;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import ms.db.MergedQuery.Type;
 import ms.ipp.Iterables;
 
 public class Table<T> {
+    private static final Logger logger = LogManager.getLogger();
 
     public static enum InsertBehaviour {
         OVERWRITE, // Overwrites existing value
@@ -28,18 +42,40 @@ public class Table<T> {
 
     private final Map<String, Index<?>> indexes;
     private final Map<String, SortedIndex<?>> sortedIndexes;
+    private final Map<String, TextIndex> textIndexes;
+    private final Map<String, KdTreeIndex> spatialIndexes;
 
     private final Map<String, Function<T, ?>> valueGenerators;
 
+    // expiry time -> ids expiring at that time, and the inverse mapping
+    private final TreeMap<Long, Set<String>> expiries;
+    private final Map<String, Long> expiryById;
+    private final List<EvictionListener<T>> listeners;
+    private LongSupplier clock;
+    private long defaultTtl;
+
+    // capacity bound (if any). Reads only record accesses, which are passed to the policy on writes
+    private EvictionPolicy<T> policy;
+    private AccessBuffer accesses;
+    private long capacity;
+    private long weight;
+
     public Table(boolean sorted) {
         indexes = new HashMap<>();
         sortedIndexes = new HashMap<>();
+        textIndexes = new HashMap<>();
+        spatialIndexes = new HashMap<>();
         valueGenerators = new HashMap<>();
+        expiries = new TreeMap<>();
+        expiryById = new HashMap<>();
+        listeners = new ArrayList<>();
+        clock = System::currentTimeMillis;
 
         mainIndex = sorted ? new TreeMap<>() : new HashMap<>();
     }
 
     public T queryById(String id) {
+        recordAccess(id);
         return mainIndex.get(id);
     }
 
@@ -59,11 +95,227 @@ public class Table<T> {
 
     public Collection<T> query(Query query) {
         Set<String> idx = queryIndex(query);
-        return filter(mainIndex, (k, v) -> idx.contains(k)).values();
+        var result = filter(mainIndex, (k, v) -> idx.contains(k));
+        if (accesses != null) {
+            result.keySet().forEach(accesses::record);
+        }
+        return result.values();
+    }
+
+    /**
+     * Performs a given action on the values matching a query in batches of at most
+     * {@code batchSize} values, in the same order as {@link #query(Query)}. The batches are backed
+     * by one reused array and are only valid during the call of the action.
+     * 
+     * @see Iterables#forEachBatch(Iterable, int, Consumer)
+     * @param query     the query, not null
+     * @param batchSize the maximal number of values per batch, positive
+     * @param action    the action, not null
+     */
+    public void forEachBatch(Query query, int batchSize, Consumer<? super List<T>> action) {
+        Set<String> idx = queryIndex(query);
+        Iterable<String> ids = Iterables.filtered(mainIndex.keySet(), idx::contains);
+        Iterables.forEachBatch(Iterables.mapped(ids, this::queryById), batchSize, action);
     }
 
     public T queryUnique(Query query) {
-        return mainIndex.get(queryUniqueId(query));
+        return queryById(queryUniqueId(query));
+    }
+
+    /**
+     * Returns all values matching a given full-text query ordered by their term frequency (highest
+     * first).
+     * 
+     * @see TextIndex#rank(TextQuery)
+     * @param query the query, not null
+     * @return
+     */
+    public List<T> queryRanked(TextQuery query) {
+        return map(textIndex(query.getIndexName()).rank(query), this::queryById);
+    }
+
+    /**
+     * Returns false only if no row matches a given equality query. For exact indexes, this is the
+     * case iff the query has no result, for a {@link BloomIndex} the answer is obtained without
+     * touching the rows.
+     * 
+     * @param query the query, not null
+     * @return
+     */
+    public boolean mightContain(EqualsQuery<?> query) {
+        return index(query.getIndexName()).mightContainUnsafe(query);
+    }
+
+    /**
+     * Returns an estimate of the number of rows matching a given query without executing it.
+     * <li>For equality queries, the estimate is provided by the index (exact for all indexes but
+     * {@link BloomIndex} and {@link TextIndex}, which never underestimate);
+     * <li>for {@code AND} queries, it is the smallest estimate of all subqueries;
+     * <li>for {@code OR} queries, it is the sum of all estimates (but at most the table's size);
+     * <li>for all other queries, it is the table's size.
+     * 
+     * @param query the query, not null
+     * @return
+     */
+    public int estimate(Query query) {
+        if (query instanceof EqualsQuery) {
+            var equalsQuery = (EqualsQuery<?>) query;
+            return index(equalsQuery.getIndexName()).estimateEqualsUnsafe(equalsQuery);
+        } else if (query instanceof MergedQuery) {
+            var merged = (MergedQuery) query;
+            long result = merged.getType() == Type.AND ? size() : 0;
+            for (Query subquery : merged.getSubqueries()) {
+                if (merged.getType() == Type.AND) {
+                    result = Math.min(result, estimate(subquery));
+                } else {
+                    result += estimate(subquery);
+                }
+            }
+            return (int) Math.min(result, size());
+        } else {
+            return size();
+        }
+    }
+
+    /**
+     * Sets the time-to-live of all rows inserted without an explicit one.
+     * 
+     * @param ttlMillis the time-to-live in milliseconds. Non-positive values disable expiry.
+     * @return
+     */
+    public Table<T> setDefaultTtl(long ttlMillis) {
+        defaultTtl = ttlMillis;
+        return this;
+    }
+
+    /**
+     * Sets the clock which expiry times are computed and checked against. Defaults to
+     * {@link System#currentTimeMillis()}.
+     * 
+     * @param clock the clock in milliseconds, not null
+     * @return
+     */
+    public Table<T> setClock(LongSupplier clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public Table<T> addEvictionListener(EvictionListener<T> listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Returns the time at which a given row expires or null if the row does not exist or does not
+     * expire.
+     * 
+     * @param id the row's id
+     * @return
+     */
+    public Long getExpiry(String id) {
+        return expiryById.get(id);
+    }
+
+    /**
+     * Sets the time-to-live of an existing row, measured from now.
+     * 
+     * @param id        the row's id, must exist
+     * @param ttlMillis the time-to-live in milliseconds. Non-positive values disable expiry.
+     */
+    public void setTtl(String id, long ttlMillis) {
+        if (!mainIndex.containsKey(id)) {
+            throw new IllegalArgumentException("Unknown id '" + id + "'");
+        }
+        clearExpiry(id);
+        setExpiry(id, ttlMillis);
+    }
+
+    /**
+     * Removes all rows whose expiry time has been reached and notifies all eviction listeners.
+     * Indexes are cleaned up in one batch.
+     * 
+     * @return the number of evicted rows
+     */
+    public int evictExpired() {
+        var expired = expiries.headMap(clock.getAsLong(), true);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        List<String> ids = new ArrayList<>();
+        for (var batch : expired.values()) {
+            ids.addAll(batch);
+        }
+        Map<String, T> removed = removeAll(ids);
+        notifyListeners(removed, EvictionListener.Cause.EXPIRED);
+        return removed.size();
+    }
+
+    /**
+     * Bounds the total weight of all rows. Whenever an insertion exceeds the capacity, rows chosen
+     * by a given policy are evicted (and removed from all indexes) until the rows fit again.
+     * Eviction listeners are notified with {@link EvictionListener.Cause#CAPACITY}.
+     * <br>
+     * Accesses by {@code query*} methods are recorded in a lossy lock-free buffer and only passed
+     * to the policy by the next modification, so concurrent reads remain safe (as long as no
+     * modification happens at the same time).
+     * 
+     * @see EvictionPolicy#lru()
+     * @see EvictionPolicy#lfu()
+     * @see EvictionPolicy#weighted(java.util.function.ToLongFunction)
+     * @param capacity the maximal total weight, non-negative
+     * @param policy   the eviction policy, not null. Must not be used by other tables.
+     * @return
+     */
+    public Table<T> setCapacity(long capacity, EvictionPolicy<T> policy) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative, got " + capacity);
+        }
+        this.capacity = capacity;
+        if (this.policy != policy) {
+            this.policy = policy;
+            accesses = new AccessBuffer(256);
+            weight = 0;
+            for (var pair : mainIndex.entrySet()) {
+                policy.onInsert(pair.getKey(), pair.getValue());
+                weight += policy.weight(pair.getValue());
+            }
+        }
+        evictToCapacity();
+        return this;
+    }
+
+    /**
+     * Returns the total weight of all rows as determined by the eviction policy or 0 if the table
+     * is not bounded.
+     * 
+     * @return
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Periodically calls {@link #evictExpired()} on a given executor. The reaper synchronizes on
+     * this table, so any other thread accessing the table concurrently must do so as well.
+     * Exceptions (e.g., from listeners) are logged and do not stop the reaper.
+     * 
+     * @param executor the executor, not null
+     * @param period   the period between two runs
+     * @param unit     the unit of {@code period}
+     * @return the scheduled reaper which can be cancelled
+     */
+    public ScheduledFuture<?> scheduleEviction(ScheduledExecutorService executor,
+                                               long period,
+                                               TimeUnit unit) {
+        return executor.scheduleAtFixedRate(() -> {
+            try {
+                synchronized (this) {
+                    evictExpired();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Evicting expired rows failed", e);
+            }
+        }, period, period, unit);
     }
 
     public void insert(Map<String, T> values, InsertBehaviour onDuplicate) {
@@ -74,6 +326,19 @@ public class Table<T> {
     }
 
     public void insert(String id, T value, InsertBehaviour onDuplicate) {
+        insert(id, value, onDuplicate, defaultTtl);
+    }
+
+    /**
+     * Inserts a row which expires after a given time. Expired rows remain visible until they are
+     * removed by {@link #evictExpired()}.
+     * 
+     * @param id          the id of the row
+     * @param value       the value of the row
+     * @param onDuplicate the behaviour if the id already exists
+     * @param ttlMillis   the time-to-live in milliseconds. Non-positive values disable expiry.
+     */
+    public void insert(String id, T value, InsertBehaviour onDuplicate, long ttlMillis) {
         // Check for duplicates
         boolean shouldRemove = false;
         if (mainIndex.containsKey(id)) {
@@ -101,6 +366,13 @@ public class Table<T> {
         for (var pair : indexes.entrySet()) {
             pair.getValue().insertUnsafe(keys.get(pair.getKey()), id);
         }
+        setExpiry(id, ttlMillis);
+        if (policy != null) {
+            drainAccesses(); // so that the new row is the most recent one
+            policy.onInsert(id, value);
+            weight += policy.weight(value);
+            evictToCapacity();
+        }
     }
 
     public void remove(String id, boolean errorOnMissing) {
@@ -125,6 +397,17 @@ public class Table<T> {
             pair.getValue().removeUnsafe(keys.get(pair.getKey()), id);
         }
         mainIndex.remove(id);
+        forget(id, value);
+    }
+
+    /**
+     * Removes all given rows, cleaning up each index in one pass. Unknown ids are ignored.
+     * 
+     * @param ids the ids of the rows to remove
+     * @return the number of removed rows
+     */
+    public int remove(Collection<String> ids) {
+        return removeAll(ids).size();
     }
 
     public <U> void addIndex(String indexName, Function<T, U> generator, Class<U> clazz) {
@@ -146,12 +429,68 @@ public class Table<T> {
         sortedIndexes.put(indexName, index);
     }
 
+    public void addTextIndex(String indexName, Function<T, String> generator) {
+        addTextIndex(indexName, generator, TextIndex::tokenize);
+    }
+
+    public void addTextIndex(String indexName,
+                             Function<T, String> generator,
+                             Function<String, List<String>> tokenizer) {
+        TextIndex index = new TextIndex(tokenizer);
+        doAddIndex(indexName, generator, index);
+        textIndexes.put(indexName, index);
+    }
+
+    /**
+     * Adds a multidimensional index over points generated by a given generator. The index can be
+     * queried by a {@link BoxQuery}. Rows, for which the generator returns null, are not indexed.
+     * 
+     * @param indexName  the name of the index, not null
+     * @param generator  generates the coordinates for each row. Every non-null result must have
+     *                   exactly {@code dimensions} coordinates.
+     * @param dimensions the number of coordinates, positive
+     */
+    public void addSpatialIndex(String indexName, Function<T, double[]> generator, int dimensions) {
+        KdTreeIndex index = new KdTreeIndex(dimensions);
+        // check the dimension while generating keys, i.e., before the table is modified
+        doAddIndex(indexName, generator.andThen(index::check), index);
+        spatialIndexes.put(indexName, index);
+    }
+
+    /**
+     * Adds an approximate index which answers equality queries for absent values without touching
+     * the rows, using a small fraction of the memory of {@link #addIndex(String, Function, Class)}.
+     * Equality queries for values which might be present are answered by scanning all rows.
+     * 
+     * @see BloomIndex
+     * @param indexName          the name of the index, not null
+     * @param generator          generates the indexed value for each row
+     * @param clazz              the class of the indexed values
+     * @param expectedInsertions the expected number of rows, positive
+     * @param falsePositiveRate  the probability that the index fails to rule out an absent value,
+     *                           in (0, 1)
+     */
+    public <U> void addBloomIndex(String indexName,
+                                  Function<T, U> generator,
+                                  Class<U> clazz,
+                                  int expectedInsertions,
+                                  double falsePositiveRate) {
+        // the filter does not store ids, so they are found by scanning all rows
+        Function<U, Set<String>> scan = value -> new HashSet<>(
+                filter(mainIndex, (k, v) -> Objects.equals(generator.apply(v), value)).keySet());
+        doAddIndex(indexName,
+                   generator,
+                   new BloomIndex<>(clazz, expectedInsertions, falsePositiveRate, scan));
+    }
+
     public void removeIndex(String indexName) {
         if (!indexes.containsKey(indexName)) {
             throw new IllegalArgumentException("Unknown index '" + indexName + "'");
         }
         indexes.remove(indexName);
         sortedIndexes.remove(indexName);
+        textIndexes.remove(indexName);
+        spatialIndexes.remove(indexName);
         valueGenerators.remove(indexName);
     }
 
@@ -175,6 +514,105 @@ public class Table<T> {
         }
     }
 
+    private Map<String, T> removeAll(Collection<String> ids) {
+        Map<String, T> values = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (mainIndex.containsKey(id)) {
+                values.put(id, mainIndex.get(id));
+            }
+        }
+        // first obtain all key values (see remove(String, boolean)) ...
+        Map<String, Map<String, ?>> keys = new HashMap<>();
+        for (var pair : values.entrySet()) {
+            T value = pair.getValue();
+            keys.put(pair.getKey(), Iterables.mapValues(valueGenerators, f -> f.apply(value)));
+        }
+        // ... then clean up one index after another
+        for (var index : indexes.entrySet()) {
+            for (var pair : keys.entrySet()) {
+                index.getValue().removeUnsafe(pair.getValue().get(index.getKey()), pair.getKey());
+            }
+        }
+        for (var pair : values.entrySet()) {
+            mainIndex.remove(pair.getKey());
+            forget(pair.getKey(), pair.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Removes all bookkeeping of a removed row.
+     */
+    private void forget(String id, T value) {
+        clearExpiry(id);
+        if (policy != null) {
+            policy.onRemove(id, value);
+            weight -= policy.weight(value);
+        }
+    }
+
+    private void notifyListeners(Map<String, T> removed, EvictionListener.Cause cause) {
+        for (var pair : removed.entrySet()) {
+            for (var listener : listeners) {
+                listener.onEviction(pair.getKey(), pair.getValue(), cause);
+            }
+        }
+    }
+
+    private void recordAccess(String id) {
+        if (accesses != null) {
+            accesses.record(id);
+        }
+    }
+
+    private void drainAccesses() {
+        accesses.drain(id -> {
+            if (mainIndex.containsKey(id)) {
+                policy.onAccess(id);
+            }
+        });
+    }
+
+    private void evictToCapacity() {
+        if (policy == null || weight <= capacity) {
+            return;
+        }
+        drainAccesses();
+        while (weight > capacity) {
+            String victim = policy.victim();
+            if (victim == null) {
+                return;
+            }
+            // every victim must be removed, otherwise we would never reach the capacity
+            if (!mainIndex.containsKey(victim)) {
+                throw new IllegalStateException("Eviction policy returned unknown id '" + victim
+                                                + "'");
+            }
+            notifyListeners(removeAll(List.of(victim)), EvictionListener.Cause.CAPACITY);
+        }
+    }
+
+    private void setExpiry(String id, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long expiry = now + ttlMillis < now ? Long.MAX_VALUE : now + ttlMillis; // avoid overflow
+        expiryById.put(id, expiry);
+        Iterables.getInsert(expiry, expiries, HashSet::new).add(id);
+    }
+
+    private void clearExpiry(String id) {
+        Long expiry = expiryById.remove(id);
+        if (expiry != null) {
+            var ids = expiries.get(expiry);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                expiries.remove(expiry);
+            }
+        }
+    }
+
     private Set<String> queryIndex(Query query) {
         if (query instanceof MergedQuery) {
             return queryMerged((MergedQuery) query);
@@ -182,6 +620,10 @@ public class Table<T> {
             return queryRange((RangeQuery<?>) query);
         } else if (query instanceof EqualsQuery) {
             return queryHash((EqualsQuery<?>) query);
+        } else if (query instanceof TextQuery) {
+            return queryText((TextQuery) query);
+        } else if (query instanceof BoxQuery) {
+            return queryBox((BoxQuery) query);
         } else {
             throw new IllegalArgumentException("Unsupported query type '"
                                                + query.getClass().getSimpleName() + "'");
@@ -198,19 +640,58 @@ public class Table<T> {
     }
 
     private Set<String> queryHash(EqualsQuery<?> query) {
-        var index = indexes.get(query.getIndexName());
+        return index(query.getIndexName()).queryEqualsUnsafe(query);
+    }
+
+    private Index<?> index(String indexName) {
+        var index = indexes.get(indexName);
         if (index == null) {
-            throw new IllegalArgumentException("Unknown index '" + query.getIndexName() + "'");
+            throw new IllegalArgumentException("Unknown index '" + indexName + "'");
         }
-        return index.queryEqualsUnsafe(query);
+        return index;
+    }
+
+    private Set<String> queryText(TextQuery query) {
+        return textIndex(query.getIndexName()).queryUnsafe(query);
+    }
+
+    private Set<String> queryBox(BoxQuery query) {
+        var index = spatialIndexes.get(query.getIndexName());
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown spatial index '" + query.getIndexName()
+                                               + "'");
+        }
+        return index.queryBox(query);
+    }
+
+    private TextIndex textIndex(String indexName) {
+        var index = textIndexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown text index '" + indexName + "'");
+        }
+        return index;
     }
 
     private Set<String> queryMerged(MergedQuery query) {
-        var idList = map(query.getSubqueries(), this::queryIndex);
-        if (query.getType() == Type.AND) {
-            return intersection(idList);
-        } else {
-            return union(idList);
+        if (query.getType() == Type.OR) {
+            return union(map(query.getSubqueries(), this::queryIndex));
+        }
+        // execute the most selective subqueries first and stop as soon as nothing can match
+        Map<Query, Integer> estimates = new HashMap<>();
+        for (Query subquery : query.getSubqueries()) {
+            estimates.put(subquery, estimate(subquery));
+        }
+        List<Query> subqueries = new ArrayList<>(query.getSubqueries());
+        subqueries.sort(Comparator.comparing(estimates::get));
+
+        List<Set<String>> idList = new ArrayList<>();
+        for (Query subquery : subqueries) {
+            Set<String> ids = queryIndex(subquery);
+            if (ids.isEmpty()) {
+                return new HashSet<>();
+            }
+            idList.add(ids);
         }
+        return intersection(idList);
     }
 }// Table
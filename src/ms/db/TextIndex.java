@@ -0,0 +1,266 @@
+package ms.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import ms.ipp.Iterables;
+
+/**
+ * An inverted index over generated strings. Every string is broken into tokens by a tokenizer and
+ * the index keeps, for every token, the ids containing it together with the token's positions.
+ * This allows term, phrase and prefix queries (see {@link TextQuery}) as well as ranking the
+ * results by term frequency.
+ * <br>
+ * An {@link EqualsQuery} on this index is interpreted as a {@link TextQuery.Type#TERM TERM} query,
+ * i.e., it returns all ids whose text contains all tokens of the queried value.
+ */
+public class TextIndex implements Index<String> {
+    // token -> (id -> ascending positions of the token in the id's text)
+    private final TreeMap<String, Map<String, List<Integer>>> index;
+    private final Function<String, List<String>> tokenizer;
+
+    /**
+     * Splits a given text into lower-case tokens consisting of letters and digits only. All other
+     * characters are treated as separators.
+     *
+     * @param text the text to split, not null
+     * @return
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); ++i) {
+            boolean isToken = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isToken && start == -1) {
+                start = i;
+            } else if (!isToken && start != -1) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Creates a new TextIndex which uses {@link #tokenize(String)} to split texts into tokens.
+     */
+    public TextIndex() {
+        this(TextIndex::tokenize);
+    }
+
+    /**
+     * Creates a new TextIndex with a given tokenizer.
+     *
+     * @param tokenizer splits a (non-null) text into tokens, not null. Must be deterministic, since
+     *                  it is applied again when a text is removed from the index.
+     */
+    public TextIndex(Function<String, List<String>> tokenizer) {
+        this.tokenizer = tokenizer;
+        index = new TreeMap<>();
+    }
+
+    @Override
+    public Class<String> getValueClass() {
+        return String.class;
+    }
+
+    @Override
+    public void insert(String text, String id) {
+        if (text == null) {
+            return; // nothing to index
+        }
+        List<String> tokens = tokenizer.apply(text);
+        for (int i = 0; i < tokens.size(); ++i) {
+            var postings = Iterables.getInsert(tokens.get(i), index, HashMap::new);
+            Iterables.getInsert(id, postings, ArrayList::new).add(i);
+        }
+    }
+
+    @Override
+    public void remove(String text, String id) {
+        if (text == null) {
+            return;
+        }
+        for (String token : new HashSet<>(tokenizer.apply(text))) {
+            var postings = index.get(token);
+            if (postings == null || postings.remove(id) == null) { // This should never happen!
+                throw new IllegalArgumentException("Index token '" + token + "' for id '" + id
+                                                   + "' not found");
+            }
+            if (postings.isEmpty()) {
+                index.remove(token);
+            }
+        }
+    }
+
+    @Override
+    public Set<String> queryEquals(String text) {
+        return text == null ? new HashSet<>() : score(TextQuery.Type.TERM, text).keySet();
+    }
+
+    /**
+     * Returns the number of ids containing the rarest token of a given text, which is never less
+     * than the number of ids matching all tokens.
+     */
+    @Override
+    public int estimateEquals(String text) {
+        if (text == null) {
+            return 0;
+        }
+        var tokens = tokenizer.apply(text);
+        int result = tokens.isEmpty() ? 0 : Integer.MAX_VALUE;
+        for (String token : tokens) {
+            var postings = index.get(token);
+            result = Math.min(result, postings == null ? 0 : postings.size());
+        }
+        return result;
+    }
+
+    public Set<String> queryUnsafe(TextQuery query) {
+        return score(query.getType(), query.getText()).keySet();
+    }
+
+    /**
+     * Returns the ids matching a given query ordered by their term frequency (highest first). Ids
+     * with equal frequencies are ordered by their natural order.
+     * <li>For {@code TERM} queries, the frequency is the total number of occurrences of all tokens;
+     * <li>for {@code PHRASE} queries, it is the number of occurrences of the phrase;
+     * <li>for {@code PREFIX} queries, it is the total number of occurrences of all tokens with the
+     * prefix.
+     *
+     * @param query the query, not null
+     * @return
+     */
+    public List<String> rank(TextQuery query) {
+        List<Entry<String, Integer>> scores = new ArrayList<>(score(query.getType(),
+                                                                    query.getText()).entrySet());
+        scores.sort((e1, e2) -> {
+            int result = Integer.compare(e2.getValue(), e1.getValue());
+            return result != 0 ? result : e1.getKey().compareTo(e2.getKey());
+        });
+        return Iterables.map(scores, Entry::getKey);
+    }
+
+    /**
+     * Returns the number of distinct tokens in the index.
+     *
+     * @return
+     */
+    public int tokenCount() {
+        return index.size();
+    }
+
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    // ==================================== PRIVATE MEMBERS ==================================== //
+    ///////////////////////////////////////////////////////////////////////////////////////////////
+    private Map<String, Integer> score(TextQuery.Type type, String text) {
+        var tokens = tokenizer.apply(text);
+        if (tokens.isEmpty()) {
+            return new HashMap<>();
+        }
+        switch (type) {
+        case PREFIX:
+            return scorePrefix(tokens.get(0));
+        case PHRASE:
+            return scorePhrase(tokens);
+        default:
+            return scoreTerms(new ArrayList<>(new LinkedHashSet<>(tokens)));
+        }
+    }
+
+    private Map<String, Integer> scorePrefix(String prefix) {
+        Map<String, Integer> result = new HashMap<>();
+        // all tokens starting with prefix lie in [prefix, prefix + MAX_VALUE)
+        var matches = index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (var postings : matches.values()) {
+            for (var pair : postings.entrySet()) {
+                result.merge(pair.getKey(), pair.getValue().size(), Integer::sum);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> scoreTerms(List<String> tokens) {
+        List<Map<String, List<Integer>>> postings = postings(tokens);
+        Map<String, Integer> result = new HashMap<>();
+        if (postings == null) {
+            return result;
+        }
+        // iterate over the rarest token and look up the others
+        for (var candidate : postings.get(0).entrySet()) {
+            int score = candidate.getValue().size();
+            for (int i = 1; i < postings.size() && score > 0; ++i) {
+                var positions = postings.get(i).get(candidate.getKey());
+                score = positions == null ? 0 : score + positions.size();
+            }
+            if (score > 0) {
+                result.put(candidate.getKey(), score);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> scorePhrase(List<String> tokens) {
+        Map<String, Integer> result = new HashMap<>();
+        List<Map<String, List<Integer>>> postings = new ArrayList<>();
+        for (String token : tokens) {
+            var p = index.get(token);
+            if (p == null) {
+                return result;
+            }
+            postings.add(p);
+        }
+        for (var candidate : postings.get(0).entrySet()) {
+            String id = candidate.getKey();
+            int occurrences = 0;
+            for (int start : candidate.getValue()) {
+                if (isPhraseAt(postings, id, start)) {
+                    occurrences++;
+                }
+            }
+            if (occurrences > 0) {
+                result.put(id, occurrences);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPhraseAt(List<Map<String, List<Integer>>> postings,
+                                      String id,
+                                      int start) {
+        for (int i = 1; i < postings.size(); ++i) {
+            var positions = postings.get(i).get(id);
+            // positions are ascending, as tokens are inserted in order of their appearance
+            if (positions == null || Collections.binarySearch(positions, start + i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the postings of all given tokens sorted by their size (smallest first) or null if at
+     * least one of the tokens is not indexed.
+     */
+    private List<Map<String, List<Integer>>> postings(List<String> tokens) {
+        List<Map<String, List<Integer>>> result = new ArrayList<>();
+        for (String token : tokens) {
+            var postings = index.get(token);
+            if (postings == null) {
+                return null;
+            }
+            result.add(postings);
+        }
+        result.sort((p1, p2) -> Integer.compare(p1.size(), p2.size()));
+        return result;
+    }
+}
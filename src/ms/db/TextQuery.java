@@ -0,0 +1,48 @@
+package ms.db;
+
+/**
+ * A full-text query on a {@link TextIndex}. The text is tokenized by the index the query is
+ * executed against, so it is subject to the same normalisation as the indexed values.
+ */
+public class TextQuery implements Query {
+
+    public static enum Type {
+        TERM, // all tokens must be present (in any order)
+        PHRASE, // all tokens must be present as consecutive tokens
+        PREFIX; // at least one token starts with the given prefix
+    }
+
+    private final String indexName;
+    private final Type type;
+    private final String text;
+
+    public TextQuery(String indexName, Type type, String text) {
+        this.indexName = indexName;
+        this.type = type;
+        this.text = text;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+        case PHRASE:
+            return indexName + " ~ \"" + text + "\"";
+        case PREFIX:
+            return indexName + " ~ " + text + "*";
+        default:
+            return indexName + " ~ " + text;
+        }
+    }
+}
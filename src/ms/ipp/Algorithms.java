@@ -3,7 +3,6 @@ package ms.ipp;
 import static ms.ipp.Iterables.filtered;
 import static ms.ipp.Iterables.list;
 
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.function.BiConsumer;
@@ -33,104 +32,84 @@ public class Algorithms {
 
     /**
      * Creates a new {@code BiPredicate} which returns true if and only if at least one of the given
-     * non-null {@code BiPredicates} returns true. Is equivalent to:
+     * non-null {@code BiPredicates} returns true. Evaluation stops at the first predicate which
+     * returns true. Up to four predicates are called directly by a dedicated class; more are
+     * evaluated in a loop over a copy of the array.
      * 
-     * <pre>
-     * reduceNonNulls(BiPredicate::or, Arrays.asList(preds));
-     * </pre>
-     * 
-     * @see #reduceNonNulls(BiFunction, Object...)
      * @param preds a parameter array of {@link BiPredicate}s. Nulls in the array are ignored
      * @return null if all predicates are null or a concatenated BiPredicate otherwise.
      */
     @SafeVarargs
     public static <T, U> BiPredicate<T, U> or(BiPredicate<? super T, ? super U>... preds) {
-        return reduceNonNulls(BiPredicate::or, Arrays.asList(preds));
+        return Combinators.or(preds);
     }
 
     /**
-     * Creates a new {@code BiPredicate} which returns true if and only if all given
-     * {@code BiPredicates} return true. Is equivalent to:
-     * 
-     * <pre>
-     * reduceNonNulls(BiPredicate::and, Arrays.asList(preds));
-     * </pre>
+     * Creates a new {@code BiPredicate} which returns true if and only if all given {@code
+     * BiPredicates} return true. Evaluation stops at the first predicate which returns false. Up to
+     * four predicates are called directly by a dedicated class; more are evaluated in a loop over a
+     * copy of the array.
      * 
-     * @see #reduceNonNulls(BiFunction, Object...)
      * @param preds a parameter array of {@link BiPredicate}s. Nulls in the array are ignored
      * @return null if all predicates are null or a concatenated BiPredicate otherwise.
      */
     @SafeVarargs
     public static <T, U> BiPredicate<T, U> and(BiPredicate<? super T, ? super U>... preds) {
-        return reduceNonNulls(BiPredicate::and, Arrays.asList(preds));
+        return Combinators.and(preds);
     }
 
     /**
      * Creates a new {@code Predicate} which returns true if and only if at least one of the given
-     * non-null {@code Predicates} returns true. Is equivalent to:
-     * 
-     * <pre>
-     * reduceNonNulls(Predicate::or, Arrays.asList(preds));
-     * </pre>
+     * non-null {@code Predicates} returns true. Evaluation stops at the first predicate which
+     * returns true. Up to four predicates are called directly by a dedicated class; more are
+     * evaluated in a loop over a copy of the array.
      * 
-     * @see #reduceNonNulls(BiFunction, Object...)
      * @param preds a parameter array of {@link Predicate}s. Nulls in the array are ignored
      * @return null if all predicates are null or a concatenated Predicate otherwise.
      */
     @SafeVarargs
     public static <T> Predicate<T> or(Predicate<? super T>... preds) {
-        return reduceNonNulls(Predicate::or, Arrays.asList(preds));
+        return Combinators.or(preds);
     }
 
     /**
-     * Creates a new {@code Predicate} which returns true if and only if all given
-     * {@code Predicates} return true. Is equivalent to:
+     * Creates a new {@code Predicate} which returns true if and only if all given {@code
+     * Predicates} return true. Evaluation stops at the first predicate which returns false. Up to
+     * four predicates are called directly by a dedicated class; more are evaluated in a loop over a
+     * copy of the array.
      * 
-     * <pre>
-     * reduceNonNulls(Predicate::and, Arrays.asList(preds));
-     * </pre>
-     * 
-     * @see #reduceNonNulls(BiFunction, Object...)
      * @param preds a parameter array of {@link Predicate}s. Nulls in the array are ignored
      * @return null if all predicates are null or a concatenated Predicate otherwise.
      */
     @SafeVarargs
     public static <T> Predicate<T> and(Predicate<? super T>... preds) {
-        return reduceNonNulls(Predicate::and, Arrays.asList(preds));
+        return Combinators.and(preds);
     }
 
     /**
      * Creates a new {@code BiConsumer} which calls all given {@code BiConsumer}s in the order of
-     * their appearance as arguments. Is equivalent to:
-     * 
-     * <pre>
-     * reduceNonNulls(BiConsumer::andThen, Arrays.asList(procs));
-     * </pre>
+     * their appearance as arguments. Up to four consumers are called directly by a dedicated class;
+     * more are called in a loop over a copy of the array.
      * 
-     * @see #reduceNonNulls(BiFunction, Object...)
      * @param procs a parameter array of {@link BiConsumers}s. Nulls in the array are ignored
      * @return null if all BiConsumers are null or a concatenated {@code BiConsumer} otherwise.
      */
     @SafeVarargs
     public static <T, U> BiConsumer<T, U> seq(BiConsumer<? super T, ? super U>... procs) {
-        return reduceNonNulls(BiConsumer::andThen, Arrays.asList(procs));
+        return Combinators.seq(procs);
     }
 
     /**
      * Creates a new {@code Consumer} which calls all given {@code Consumer}s in the order of their
-     * appearance as arguments. Is equivalent to:
-     * 
-     * <pre>
-     * reduceNonNulls(Consumer::andThen, Arrays.asList(procs));
-     * </pre>
+     * appearance as arguments. Up to four consumers are called directly by a dedicated class; more
+     * are called in a loop over a copy of the array.
      * 
-     * @see #reduceNonNulls(BiFunction, Object...)
      * @param procs a parameter array of {@link Consumers}s. Nulls in the array are ignored
      * @return null if all Consumers are null or a concatenated {@code Consumer} otherwise.
      */
     @SafeVarargs
     public static <T> Consumer<T> seq(Consumer<? super T>... procs) {
-        return reduceNonNulls(Consumer::andThen, Arrays.asList(procs));
+        return Combinators.seq(procs);
     }
 
     /**
@@ -0,0 +1,568 @@
+package ms.ipp;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Arity-specialized combinators behind {@link Algorithms#and(Predicate...)},
+ * {@link Algorithms#or(Predicate...)}, {@link Algorithms#seq(Consumer...)} and their two-argument
+ * counterparts. Combinations of up to four operands are final classes which call their operands
+ * directly (instead of a chain of nested lambdas or a loop over an array), so that the JIT can
+ * inline them. Longer combinations loop over an array, which is copied once upon creation.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+final class Combinators {
+
+    private Combinators() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Predicate<T> and(Predicate<? super T>[] preds) {
+        Predicate<? super T>[] p = nonNulls(preds);
+        switch (p.length) {
+        case 0:
+            return null;
+        case 1:
+            return (Predicate<T>) p[0];
+        case 2:
+            return new And2<>(p[0], p[1]);
+        case 3:
+            return new And3<>(p[0], p[1], p[2]);
+        case 4:
+            return new And4<>(p[0], p[1], p[2], p[3]);
+        default:
+            return new AndN<>(p);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Predicate<T> or(Predicate<? super T>[] preds) {
+        Predicate<? super T>[] p = nonNulls(preds);
+        switch (p.length) {
+        case 0:
+            return null;
+        case 1:
+            return (Predicate<T>) p[0];
+        case 2:
+            return new Or2<>(p[0], p[1]);
+        case 3:
+            return new Or3<>(p[0], p[1], p[2]);
+        case 4:
+            return new Or4<>(p[0], p[1], p[2], p[3]);
+        default:
+            return new OrN<>(p);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, U> BiPredicate<T, U> and(BiPredicate<? super T, ? super U>[] preds) {
+        BiPredicate<? super T, ? super U>[] p = nonNulls(preds);
+        switch (p.length) {
+        case 0:
+            return null;
+        case 1:
+            return (BiPredicate<T, U>) p[0];
+        case 2:
+            return new BiAnd2<>(p[0], p[1]);
+        case 3:
+            return new BiAnd3<>(p[0], p[1], p[2]);
+        case 4:
+            return new BiAnd4<>(p[0], p[1], p[2], p[3]);
+        default:
+            return new BiAndN<>(p);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, U> BiPredicate<T, U> or(BiPredicate<? super T, ? super U>[] preds) {
+        BiPredicate<? super T, ? super U>[] p = nonNulls(preds);
+        switch (p.length) {
+        case 0:
+            return null;
+        case 1:
+            return (BiPredicate<T, U>) p[0];
+        case 2:
+            return new BiOr2<>(p[0], p[1]);
+        case 3:
+            return new BiOr3<>(p[0], p[1], p[2]);
+        case 4:
+            return new BiOr4<>(p[0], p[1], p[2], p[3]);
+        default:
+            return new BiOrN<>(p);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Consumer<T> seq(Consumer<? super T>[] procs) {
+        Consumer<? super T>[] p = nonNulls(procs);
+        switch (p.length) {
+        case 0:
+            return null;
+        case 1:
+            return (Consumer<T>) p[0];
+        case 2:
+            return new Seq2<>(p[0], p[1]);
+        case 3:
+            return new Seq3<>(p[0], p[1], p[2]);
+        case 4:
+            return new Seq4<>(p[0], p[1], p[2], p[3]);
+        default:
+            return new SeqN<>(p);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, U> BiConsumer<T, U> seq(BiConsumer<? super T, ? super U>[] procs) {
+        BiConsumer<? super T, ? super U>[] p = nonNulls(procs);
+        switch (p.length) {
+        case 0:
+            return null;
+        case 1:
+            return (BiConsumer<T, U>) p[0];
+        case 2:
+            return new BiSeq2<>(p[0], p[1]);
+        case 3:
+            return new BiSeq3<>(p[0], p[1], p[2]);
+        case 4:
+            return new BiSeq4<>(p[0], p[1], p[2], p[3]);
+        default:
+            return new BiSeqN<>(p);
+        }
+    }
+
+    /**
+     * Returns a copy of an array without its nulls. The copy has the same component type, so that
+     * no generic array has to be created.
+     */
+    private static <T> T[] nonNulls(T[] elems) {
+        T[] result = Arrays.copyOf(elems, elems.length);
+        int n = 0;
+        for (T t : elems) {
+            if (t != null) {
+                result[n++] = t;
+            }
+        }
+        return n == elems.length ? result : Arrays.copyOf(result, n);
+    }
+
+    ///// ************ Predicates ************** /////
+
+    private static final class And2<T> implements Predicate<T> {
+        private final Predicate<? super T> p1, p2;
+
+        private And2(Predicate<? super T> p1, Predicate<? super T> p2) {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return p1.test(t) && p2.test(t);
+        }
+    }
+
+    private static final class And3<T> implements Predicate<T> {
+        private final Predicate<? super T> p1, p2, p3;
+
+        private And3(Predicate<? super T> p1, Predicate<? super T> p2, Predicate<? super T> p3) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return p1.test(t) && p2.test(t) && p3.test(t);
+        }
+    }
+
+    private static final class And4<T> implements Predicate<T> {
+        private final Predicate<? super T> p1, p2, p3, p4;
+
+        private And4(Predicate<? super T> p1,
+                     Predicate<? super T> p2,
+                     Predicate<? super T> p3,
+                     Predicate<? super T> p4) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+            this.p4 = p4;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return p1.test(t) && p2.test(t) && p3.test(t) && p4.test(t);
+        }
+    }
+
+    private static final class AndN<T> implements Predicate<T> {
+        private final Predicate<? super T>[] preds;
+
+        private AndN(Predicate<? super T>[] preds) {
+            this.preds = preds;
+        }
+
+        @Override
+        public boolean test(T t) {
+            for (Predicate<? super T> p : preds) {
+                if (!p.test(t)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Or2<T> implements Predicate<T> {
+        private final Predicate<? super T> p1, p2;
+
+        private Or2(Predicate<? super T> p1, Predicate<? super T> p2) {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return p1.test(t) || p2.test(t);
+        }
+    }
+
+    private static final class Or3<T> implements Predicate<T> {
+        private final Predicate<? super T> p1, p2, p3;
+
+        private Or3(Predicate<? super T> p1, Predicate<? super T> p2, Predicate<? super T> p3) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return p1.test(t) || p2.test(t) || p3.test(t);
+        }
+    }
+
+    private static final class Or4<T> implements Predicate<T> {
+        private final Predicate<? super T> p1, p2, p3, p4;
+
+        private Or4(Predicate<? super T> p1,
+                    Predicate<? super T> p2,
+                    Predicate<? super T> p3,
+                    Predicate<? super T> p4) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+            this.p4 = p4;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return p1.test(t) || p2.test(t) || p3.test(t) || p4.test(t);
+        }
+    }
+
+    private static final class OrN<T> implements Predicate<T> {
+        private final Predicate<? super T>[] preds;
+
+        private OrN(Predicate<? super T>[] preds) {
+            this.preds = preds;
+        }
+
+        @Override
+        public boolean test(T t) {
+            for (Predicate<? super T> p : preds) {
+                if (p.test(t)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    ///// ************ BiPredicates ************** /////
+
+    private static final class BiAnd2<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U> p1, p2;
+
+        private BiAnd2(BiPredicate<? super T, ? super U> p1, BiPredicate<? super T, ? super U> p2) {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            return p1.test(t, u) && p2.test(t, u);
+        }
+    }
+
+    private static final class BiAnd3<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U> p1, p2, p3;
+
+        private BiAnd3(BiPredicate<? super T, ? super U> p1,
+                       BiPredicate<? super T, ? super U> p2,
+                       BiPredicate<? super T, ? super U> p3) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            return p1.test(t, u) && p2.test(t, u) && p3.test(t, u);
+        }
+    }
+
+    private static final class BiAnd4<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U> p1, p2, p3, p4;
+
+        private BiAnd4(BiPredicate<? super T, ? super U> p1,
+                       BiPredicate<? super T, ? super U> p2,
+                       BiPredicate<? super T, ? super U> p3,
+                       BiPredicate<? super T, ? super U> p4) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+            this.p4 = p4;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            return p1.test(t, u) && p2.test(t, u) && p3.test(t, u) && p4.test(t, u);
+        }
+    }
+
+    private static final class BiAndN<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U>[] preds;
+
+        private BiAndN(BiPredicate<? super T, ? super U>[] preds) {
+            this.preds = preds;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            for (BiPredicate<? super T, ? super U> p : preds) {
+                if (!p.test(t, u)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class BiOr2<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U> p1, p2;
+
+        private BiOr2(BiPredicate<? super T, ? super U> p1, BiPredicate<? super T, ? super U> p2) {
+            this.p1 = p1;
+            this.p2 = p2;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            return p1.test(t, u) || p2.test(t, u);
+        }
+    }
+
+    private static final class BiOr3<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U> p1, p2, p3;
+
+        private BiOr3(BiPredicate<? super T, ? super U> p1,
+                      BiPredicate<? super T, ? super U> p2,
+                      BiPredicate<? super T, ? super U> p3) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            return p1.test(t, u) || p2.test(t, u) || p3.test(t, u);
+        }
+    }
+
+    private static final class BiOr4<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U> p1, p2, p3, p4;
+
+        private BiOr4(BiPredicate<? super T, ? super U> p1,
+                      BiPredicate<? super T, ? super U> p2,
+                      BiPredicate<? super T, ? super U> p3,
+                      BiPredicate<? super T, ? super U> p4) {
+            this.p1 = p1;
+            this.p2 = p2;
+            this.p3 = p3;
+            this.p4 = p4;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            return p1.test(t, u) || p2.test(t, u) || p3.test(t, u) || p4.test(t, u);
+        }
+    }
+
+    private static final class BiOrN<T, U> implements BiPredicate<T, U> {
+        private final BiPredicate<? super T, ? super U>[] preds;
+
+        private BiOrN(BiPredicate<? super T, ? super U>[] preds) {
+            this.preds = preds;
+        }
+
+        @Override
+        public boolean test(T t, U u) {
+            for (BiPredicate<? super T, ? super U> p : preds) {
+                if (p.test(t, u)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    ///// ************ Consumers ************** /////
+
+    private static final class Seq2<T> implements Consumer<T> {
+        private final Consumer<? super T> c1, c2;
+
+        private Seq2(Consumer<? super T> c1, Consumer<? super T> c2) {
+            this.c1 = c1;
+            this.c2 = c2;
+        }
+
+        @Override
+        public void accept(T t) {
+            c1.accept(t);
+            c2.accept(t);
+        }
+    }
+
+    private static final class Seq3<T> implements Consumer<T> {
+        private final Consumer<? super T> c1, c2, c3;
+
+        private Seq3(Consumer<? super T> c1, Consumer<? super T> c2, Consumer<? super T> c3) {
+            this.c1 = c1;
+            this.c2 = c2;
+            this.c3 = c3;
+        }
+
+        @Override
+        public void accept(T t) {
+            c1.accept(t);
+            c2.accept(t);
+            c3.accept(t);
+        }
+    }
+
+    private static final class Seq4<T> implements Consumer<T> {
+        private final Consumer<? super T> c1, c2, c3, c4;
+
+        private Seq4(Consumer<? super T> c1,
+                     Consumer<? super T> c2,
+                     Consumer<? super T> c3,
+                     Consumer<? super T> c4) {
+            this.c1 = c1;
+            this.c2 = c2;
+            this.c3 = c3;
+            this.c4 = c4;
+        }
+
+        @Override
+        public void accept(T t) {
+            c1.accept(t);
+            c2.accept(t);
+            c3.accept(t);
+            c4.accept(t);
+        }
+    }
+
+    private static final class SeqN<T> implements Consumer<T> {
+        private final Consumer<? super T>[] procs;
+
+        private SeqN(Consumer<? super T>[] procs) {
+            this.procs = procs;
+        }
+
+        @Override
+        public void accept(T t) {
+            for (Consumer<? super T> c : procs) {
+                c.accept(t);
+            }
+        }
+    }
+
+    ///// ************ BiConsumers ************** /////
+
+    private static final class BiSeq2<T, U> implements BiConsumer<T, U> {
+        private final BiConsumer<? super T, ? super U> c1, c2;
+
+        private BiSeq2(BiConsumer<? super T, ? super U> c1, BiConsumer<? super T, ? super U> c2) {
+            this.c1 = c1;
+            this.c2 = c2;
+        }
+
+        @Override
+        public void accept(T t, U u) {
+            c1.accept(t, u);
+            c2.accept(t, u);
+        }
+    }
+
+    private static final class BiSeq3<T, U> implements BiConsumer<T, U> {
+        private final BiConsumer<? super T, ? super U> c1, c2, c3;
+
+        private BiSeq3(BiConsumer<? super T, ? super U> c1,
+                       BiConsumer<? super T, ? super U> c2,
+                       BiConsumer<? super T, ? super U> c3) {
+            this.c1 = c1;
+            this.c2 = c2;
+            this.c3 = c3;
+        }
+
+        @Override
+        public void accept(T t, U u) {
+            c1.accept(t, u);
+            c2.accept(t, u);
+            c3.accept(t, u);
+        }
+    }
+
+    private static final class BiSeq4<T, U> implements BiConsumer<T, U> {
+        private final BiConsumer<? super T, ? super U> c1, c2, c3, c4;
+
+        private BiSeq4(BiConsumer<? super T, ? super U> c1,
+                       BiConsumer<? super T, ? super U> c2,
+                       BiConsumer<? super T, ? super U> c3,
+                       BiConsumer<? super T, ? super U> c4) {
+            this.c1 = c1;
+            this.c2 = c2;
+            this.c3 = c3;
+            this.c4 = c4;
+        }
+
+        @Override
+        public void accept(T t, U u) {
+            c1.accept(t, u);
+            c2.accept(t, u);
+            c3.accept(t, u);
+            c4.accept(t, u);
+        }
+    }
+
+    private static final class BiSeqN<T, U> implements BiConsumer<T, U> {
+        private final BiConsumer<? super T, ? super U>[] procs;
+
+        private BiSeqN(BiConsumer<? super T, ? super U>[] procs) {
+            this.procs = procs;
+        }
+
+        @Override
+        public void accept(T t, U u) {
+            for (BiConsumer<? super T, ? super U> c : procs) {
+                c.accept(t, u);
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package ms.ipp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+
+import ms.ipp.base.KeyValue;
+import ms.ipp.base.Serializer;
+import ms.ipp.iterator.MergingIterator;
+
+/**
+ * Sorts {@code Iterable}s which do not fit into memory (external merge sort). The source is read
+ * in chunks of at most {@code budget} elements, every chunk is sorted in memory and spilled to a
+ * temporary file (a <i>run</i>), and the runs are merged lazily while iterating. If there are more
+ * than {@code fanIn} runs, they are merged in intermediate passes first, so that at most
+ * {@code fanIn} files are open at a time. Sources which fit into the budget are sorted in memory
+ * without touching the disk. The sort is stable.
+ * <br>
+ * Runs are written and read through {@link FileChannel}s by a given {@link Serializer}. Every file
+ * is deleted as soon as it has been merged or the iterator has been closed. Iterators returned by
+ * this class implement {@link AutoCloseable} and should be closed if they are abandoned before they
+ * are exhausted. I/O errors are thrown as {@link UncheckedIOException}s.
+ *
+ * <pre>
+ * Iterable&lt;String&gt; sorted = new ExternalSort&lt;&gt;(Comparator.naturalOrder(), Serializer.strings())
+ *         .setBudget(10_000_000)
+ *         .sorted(lines);
+ * </pre>
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public class ExternalSort<T> {
+    public static final int DEFAULT_BUDGET = 1_000_000;
+    public static final int DEFAULT_FAN_IN = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Comparator<? super T> comparator;
+    private final Serializer<T> serializer;
+    private int budget = DEFAULT_BUDGET;
+    private int fanIn = DEFAULT_FAN_IN;
+    private Path directory;
+
+    /**
+     * Creates an instance of {@code ExternalSort<T>}.
+     *
+     * @param comparator the order, not null
+     * @param serializer writes and reads the spilled elements, not null
+     */
+    public ExternalSort(Comparator<? super T> comparator, Serializer<T> serializer) {
+        this.comparator = Objects.requireNonNull(comparator);
+        this.serializer = Objects.requireNonNull(serializer);
+    }
+
+    /**
+     * Sets the maximal number of elements held in memory to sort a chunk. Defaults to
+     * {@link #DEFAULT_BUDGET}.
+     *
+     * @param budget positive
+     * @return
+     */
+    public ExternalSort<T> setBudget(int budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Budget must be positive but is " + budget);
+        }
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Sets the maximal number of runs merged at a time. Defaults to {@link #DEFAULT_FAN_IN}.
+     *
+     * @param fanIn at least 2
+     * @return
+     */
+    public ExternalSort<T> setFanIn(int fanIn) {
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan-in must be at least 2 but is " + fanIn);
+        }
+        this.fanIn = fanIn;
+        return this;
+    }
+
+    /**
+     * Sets the directory of the temporary files. Defaults to the system's temporary directory.
+     *
+     * @param directory an existing directory, or null for the default
+     * @return
+     */
+    public ExternalSort<T> setDirectory(Path directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    /**
+     * Returns an {@code Iterable} over the sorted elements of a given {@code Iterable}. Every
+     * iterator sorts the source anew.
+     *
+     * @param source the original Iterable, not null
+     * @return
+     */
+    public Iterable<T> sorted(Iterable<? extends T> source) {
+        Objects.requireNonNull(source);
+        return () -> sort(source.iterator());
+    }
+
+    /**
+     * Returns an {@code Iterable} over the groups of a given {@code Iterable}, i.e., the lists of
+     * elements with equal keys, in the order of the keys. The comparator of this instance must
+     * compare the elements by their keys, so that all elements of a group are adjacent once sorted.
+     * Only one group is held in memory at a time. Elements, for which the keyGen returns null, are
+     * skipped.
+     *
+     * @param source the original Iterable, not null
+     * @param keyGen the key of an element, not null
+     * @return
+     */
+    public <K> Iterable<Entry<K, List<T>>> grouped(Iterable<? extends T> source,
+                                                   Function<? super T, K> keyGen) {
+        Objects.requireNonNull(keyGen);
+        Iterable<? extends T> keyed = Iterables.filtered(source, t -> keyGen.apply(t) != null);
+        return () -> new GroupIterator<>(sort(keyed.iterator()), keyGen, comparator);
+    }
+
+    /**
+     * Sorts the remaining elements of a given iterator. All spilling is done by this call, while
+     * merging is done lazily by the returned iterator.
+     *
+     * @param source the original Iterator, not null
+     * @return an iterator over the sorted elements, which must be closed if it is abandoned
+     */
+    public SortedIterator<T> sort(Iterator<? extends T> source) {
+        List<Run> runs = new ArrayList<>();
+        try {
+            List<T> chunk = readChunk(source);
+            while (source.hasNext()) {
+                runs.add(write(chunk.iterator(), chunk.size()));
+                chunk = readChunk(source);
+            }
+            if (runs.isEmpty()) {
+                return new SortedIterator<>(chunk.iterator(), new ArrayList<>());
+            }
+            // the last chunk is merged from memory, hence it counts towards the fan-in
+            while (runs.size() + 1 > fanIn) {
+                runs = mergePass(runs);
+            }
+            List<Iterator<? extends T>> inputs = new ArrayList<>(runs.size() + 1);
+            List<RunIterator<T>> open = new ArrayList<>(runs.size());
+            for (Run run : runs) {
+                RunIterator<T> it = new RunIterator<>(run, serializer);
+                open.add(it);
+                inputs.add(it);
+            }
+            inputs.add(chunk.iterator());
+            return new SortedIterator<>(new MergingIterator<>(inputs, comparator), open);
+        } catch (IOException e) {
+            runs.forEach(Run::delete);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException | Error e) {
+            runs.forEach(Run::delete);
+            throw e;
+        }
+    }
+
+    private List<T> readChunk(Iterator<? extends T> source) {
+        List<T> chunk = new ArrayList<>();
+        while (chunk.size() < budget && source.hasNext()) {
+            chunk.add(source.next());
+        }
+        // stable
+        chunk.sort(comparator);
+        return chunk;
+    }
+
+    /**
+     * Merges consecutive groups of {@code fanIn} runs, which keeps the sort stable.
+     */
+    private List<Run> mergePass(List<Run> runs) throws IOException {
+        List<Run> result = new ArrayList<>();
+        try {
+            for (int from = 0; from < runs.size(); from += fanIn) {
+                List<Run> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+                if (group.size() == 1) {
+                    result.add(group.get(0));
+                    continue;
+                }
+                List<RunIterator<T>> inputs = new ArrayList<>(group.size());
+                long size = 0;
+                try {
+                    for (Run run : group) {
+                        inputs.add(new RunIterator<>(run, serializer));
+                        size += run.size;
+                    }
+                    result.add(write(new MergingIterator<>(inputs, comparator), size));
+                } finally {
+                    inputs.forEach(RunIterator::close);
+                }
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            result.forEach(Run::delete);
+            throw e;
+        }
+        return result;
+    }
+
+    private Run write(Iterator<? extends T> it, long size) throws IOException {
+        Path path = directory == null ? Files.createTempFile("ipp-sort", ".run")
+                : Files.createTempFile(directory, "ipp-sort", ".run");
+        Run run = new Run(path, size);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(path,
+                                                                                                                         StandardOpenOption.WRITE)),
+                                                                                  BUFFER_SIZE))) {
+            while (it.hasNext()) {
+                serializer.write(it.next(), out);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            run.delete();
+            throw e;
+        }
+        return run;
+    }
+
+    /**
+     * An iterator over sorted elements, which deletes all remaining temporary files when closed.
+     */
+    public static class SortedIterator<T> implements Iterator<T>, AutoCloseable {
+        private final Iterator<? extends T> source;
+        private final List<RunIterator<T>> runs;
+        private boolean closed;
+
+        private SortedIterator(Iterator<? extends T> source, List<RunIterator<T>> runs) {
+            this.source = source;
+            this.runs = runs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !closed && source.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return source.next();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            runs.forEach(RunIterator::close);
+        }
+    }
+
+    private static class Run {
+        private final Path path;
+        private final long size;
+
+        private Run(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                // a leftover temporary file is not worth failing for
+            }
+        }
+    }
+
+    /**
+     * Reads the elements of a run and deletes its file once they are exhausted.
+     */
+    private static class RunIterator<T> implements Iterator<T> {
+        private final Run run;
+        private final Serializer<T> serializer;
+        private DataInputStream in;
+        private long remaining;
+
+        private RunIterator(Run run, Serializer<T> serializer) throws IOException {
+            this.run = run;
+            this.serializer = serializer;
+            remaining = run.size;
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(FileChannel.open(run.path,
+                                                                                                     StandardOpenOption.READ)),
+                                                             BUFFER_SIZE));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                T result = serializer.read(in);
+                if (--remaining == 0) {
+                    close();
+                }
+                return result;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() {
+            remaining = 0;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // nothing to do, the file is deleted anyway
+                }
+                in = null;
+                run.delete();
+            }
+        }
+    }
+
+    /**
+     * Collects adjacent elements with equal keys of a sorted iterator.
+     */
+    private static class GroupIterator<K, T> implements Iterator<Entry<K, List<T>>>,
+                                         AutoCloseable {
+        private final SortedIterator<T> source;
+        private final Function<? super T, K> keyGen;
+        private final Comparator<? super T> comparator;
+        private T pending;
+        private boolean pendingSet;
+
+        private GroupIterator(SortedIterator<T> source,
+                              Function<? super T, K> keyGen,
+                              Comparator<? super T> comparator) {
+            this.source = source;
+            this.keyGen = keyGen;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pendingSet || source.hasNext();
+        }
+
+        @Override
+        public Entry<K, List<T>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T first = pendingSet ? pending : source.next();
+            pending = null;
+            pendingSet = false;
+            List<T> group = new ArrayList<>();
+            group.add(first);
+            while (source.hasNext()) {
+                T t = source.next();
+                if (comparator.compare(first, t) != 0) {
+                    pending = t;
+                    pendingSet = true;
+                    break;
+                }
+                group.add(t);
+            }
+            return new KeyValue<>(keyGen.apply(first), group);
+        }
+
+        @Override
+        public void close() {
+            source.close();
+        }
+    }
+}
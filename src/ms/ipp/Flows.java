@@ -0,0 +1,424 @@
+package ms.ipp;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bridge between {@code Iterable}s and reactive streams ({@link Flow}):
+ * <li>{@link #publisher(Iterable, Executor)} exposes an {@code Iterable} (and hence a
+ * {@link ms.ipp.iterable.BiIterable BiIterable} or {@link ms.ipp.iterable.tree.Tree#recursive()
+ * Tree::recursive}) as a {@link Flow.Publisher}, which iterates on an executor only as far as its
+ * subscribers request.
+ * <li>{@link #iterable(Flow.Publisher, int)} consumes a {@code Publisher} as an {@code Iterable}
+ * with a bounded number of outstanding elements.
+ * <li>{@link #mapped(Flow.Publisher, Function)} and {@link #filtered(Flow.Publisher, Predicate)}
+ * transform publishers lazily, i.e., per element and on demand.
+ *
+ * <pre>
+ * Flows.publisher(tree.recursive(), executor).subscribe(subscriber);
+ * </pre>
+ *
+ * @author mykhailo.saienko
+ *
+ */
+public class Flows {
+    public static final int DEFAULT_PREFETCH = 256;
+
+    private Flows() {
+    }
+
+    /**
+     * Equivalent to {@code publisher(source, ForkJoinPool.commonPool())}. Sources backed by
+     * blocking I/O should be given a dedicated executor instead.
+     *
+     * @see #publisher(Iterable, Executor)
+     */
+    public static <T> Flow.Publisher<T> publisher(Iterable<T> source) {
+        return publisher(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} which creates a new iterator of a given {@code Iterable} for
+     * every subscriber and calls {@code hasNext()}/{@code next()} on the executor, only as long as
+     * the subscriber has outstanding demand. The subscriber is completed when the iterator is
+     * exhausted and receives all exceptions thrown by it via {@code onError}. Null elements are not
+     * allowed.
+     *
+     * @param source   the original Iterable, not null
+     * @param executor runs the iteration, not null
+     * @return
+     */
+    public static <T> Flow.Publisher<T> publisher(Iterable<T> source, Executor executor) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(executor);
+        return subscriber -> subscriber.onSubscribe(new IteratorSubscription<>(source,
+                                                                               executor,
+                                                                               subscriber));
+    }
+
+    /**
+     * Equivalent to {@code iterable(publisher, DEFAULT_PREFETCH)}.
+     *
+     * @see #iterable(Flow.Publisher, int)
+     */
+    public static <T> Iterable<T> iterable(Flow.Publisher<T> publisher) {
+        return iterable(publisher, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Returns an {@code Iterable} which subscribes to a given {@link Flow.Publisher} for every new
+     * iterator. The iterator requests {@code prefetch} elements upfront and more as they are
+     * consumed, so that at most {@code prefetch} elements are buffered. {@code hasNext()} blocks
+     * until the next element or signal arrives. Errors of the publisher are thrown by
+     * {@code hasNext()}, wrapped in a {@link CompletionException} if they are checked.
+     * <br>
+     * Iterators implement {@link AutoCloseable}. Closing an iterator cancels its subscription,
+     * which should be done when it is abandoned before it is exhausted.
+     *
+     * @param publisher the publisher, not null
+     * @param prefetch  the maximal number of buffered elements, positive
+     * @return
+     */
+    public static <T> Iterable<T> iterable(Flow.Publisher<T> publisher, int prefetch) {
+        Objects.requireNonNull(publisher);
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("Prefetch must be positive but is " + prefetch);
+        }
+        return () -> {
+            SubscriberIterator<T> it = new SubscriberIterator<>(prefetch);
+            publisher.subscribe(it);
+            return it;
+        };
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} which maps all elements of a given publisher. Exceptions
+     * thrown by the mapper cancel the subscription and are passed to the subscriber.
+     *
+     * @param source the original publisher, not null
+     * @param mapper the mapper, not null. Must not return null
+     * @return
+     */
+    public static <T, R> Flow.Publisher<R> mapped(Flow.Publisher<T> source,
+                                                   Function<? super T, ? extends R> mapper) {
+        Objects.requireNonNull(mapper);
+        return subscriber -> source.subscribe(new ForwardingSubscriber<T, R>(subscriber) {
+            @Override
+            protected void doNext(T item) {
+                downstream.onNext(mapper.apply(item));
+            }
+        });
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} which passes only the elements of a given publisher
+     * satisfying a predicate. Every rejected element is replaced by requesting another one, so that
+     * the demand of the subscriber is kept. Exceptions thrown by the predicate cancel the
+     * subscription and are passed to the subscriber.
+     *
+     * @param source the original publisher, not null
+     * @param pred   the predicate, not null
+     * @return
+     */
+    public static <T> Flow.Publisher<T> filtered(Flow.Publisher<T> source,
+                                                 Predicate<? super T> pred) {
+        Objects.requireNonNull(pred);
+        return subscriber -> source.subscribe(new ForwardingSubscriber<T, T>(subscriber) {
+            @Override
+            protected void doNext(T item) {
+                if (pred.test(item)) {
+                    downstream.onNext(item);
+                } else {
+                    upstream.request(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Iterates on an executor as long as there is demand. All signals are sent by one drain loop
+     * at a time (guarded by {@code wip}), so that they are serialised.
+     */
+    private static class IteratorSubscription<T> implements Flow.Subscription, Runnable {
+        private final Iterable<T> source;
+        private final Executor executor;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        // only accessed by the drain loop
+        private Iterator<T> it;
+
+        private IteratorSubscription(Iterable<T> source,
+                                     Executor executor,
+                                     Flow.Subscriber<? super T> subscriber) {
+            this.source = source;
+            this.executor = executor;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requests must be positive but are "
+                                                              + n);
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void drain() {
+            if (cancelled) {
+                it = null;
+                return;
+            }
+            if (invalidRequest != null) {
+                terminate(invalidRequest);
+                return;
+            }
+            try {
+                if (it == null) {
+                    it = source.iterator();
+                }
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (!it.hasNext()) {
+                        terminate(null);
+                        return;
+                    }
+                    subscriber.onNext(Objects.requireNonNull(it.next()));
+                    emitted++;
+                }
+                // signal the completion without waiting for further demand
+                if (!cancelled && !it.hasNext()) {
+                    terminate(null);
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+            } catch (Throwable e) {
+                terminate(e);
+            }
+        }
+
+        private void terminate(Throwable error) {
+            cancelled = true;
+            it = null;
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+    }
+
+    /**
+     * Buffers the elements received from a publisher for an iterator.
+     */
+    private static class SubscriberIterator<T> implements Iterator<T>, Flow.Subscriber<T>,
+                                              AutoCloseable {
+        private static final Object COMPLETE = new Object();
+
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private final int prefetch;
+        // request more elements after this many have been consumed
+        private final int limit;
+        private volatile Flow.Subscription subscription;
+        private Object next;
+        private boolean done;
+        private int consumed;
+
+        private SubscriberIterator(int prefetch) {
+            this.prefetch = prefetch;
+            limit = Math.max(1, prefetch - prefetch / 4);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            queue.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            queue.add(new Failure(throwable));
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(COMPLETE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            Object signal;
+            try {
+                signal = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new CompletionException(e);
+            }
+            if (signal == COMPLETE) {
+                done = true;
+                return false;
+            }
+            if (signal instanceof Failure) {
+                done = true;
+                Throwable error = ((Failure) signal).error;
+                if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                } else if (error instanceof Error) {
+                    throw (Error) error;
+                }
+                throw new CompletionException(error);
+            }
+            next = signal;
+            if (++consumed == limit) {
+                consumed = 0;
+                subscription.request(limit);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T result = (T) next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            next = null;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            queue.clear();
+        }
+
+        private static class Failure {
+            private final Throwable error;
+
+            private Failure(Throwable error) {
+                this.error = error;
+            }
+        }
+    }
+
+    /**
+     * Passes all signals from an upstream publisher to a downstream subscriber and transforms the
+     * elements in {@link #doNext(Object)}.
+     */
+    private abstract static class ForwardingSubscriber<T, R> implements Flow.Subscriber<T> {
+        protected final Flow.Subscriber<? super R> downstream;
+        protected Flow.Subscription upstream;
+        private boolean done;
+
+        private ForwardingSubscriber(Flow.Subscriber<? super R> downstream) {
+            this.downstream = downstream;
+        }
+
+        protected abstract void doNext(T item);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            try {
+                doNext(item);
+            } catch (Throwable e) {
+                done = true;
+                upstream.cancel();
+                downstream.onError(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+    }
+}
@@ -2,14 +2,19 @@ package ms.ipp;
 
 import static java.lang.System.arraycopy;
 import static java.util.Arrays.asList;
-import static ms.ipp.Algorithms.reduce;
 import static ms.ipp.Algorithms.toKV;
 import static ms.ipp.Streams.stream;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -17,10 +22,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
@@ -29,6 +38,9 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
@@ -36,12 +48,27 @@ import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import ms.ipp.base.IntKeyValue;
 import ms.ipp.base.KeyValue;
+import ms.ipp.base.Serializer;
 import ms.ipp.iterable.BiIterable;
+import ms.ipp.iterable.CachedIterable;
+import ms.ipp.iterable.DoubleIterable;
 import ms.ipp.iterable.FilteredIterable;
+import ms.ipp.iterable.FusedIterable;
+import ms.ipp.iterable.IntIterable;
+import ms.ipp.iterable.LongIterable;
 import ms.ipp.iterable.MappedIterable;
 import ms.ipp.iterable.ProxyBiIterable;
+import ms.ipp.iterator.BatchIterator;
+import ms.ipp.iterator.BatchSpliterator;
+import ms.ipp.iterator.ConcurrentMappedIterator;
+import ms.ipp.iterator.Distinct;
 import ms.ipp.iterator.FilteredIterator;
+import ms.ipp.iterator.HashJoinIterator;
+import ms.ipp.iterator.MergeJoinIterator;
+import ms.ipp.iterator.SlidingAggregateIterator;
+import ms.ipp.iterator.SlidingAggregateIterator.Aggregate;
 
 /**
  * @author saienko
@@ -54,6 +81,10 @@ public class Iterables {
     public static Runnable NULL_CALL = () -> {
     };
 
+    private static final int FLUSH_THRESHOLD = 1 << 13;
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
+    private static final ThreadLocal<StringBuilder> BUILDERS = new ThreadLocal<>();
+
     ///////////////////////////////////////////////////////
     /// *********** BiIterable Manipulation *********** ///
     ///////////////////////////////////////////////////////
@@ -247,11 +278,59 @@ public class Iterables {
      * @return
      */
     public static <T, U> Iterable<U> mapped(Iterable<T> it, Function<? super T, U> map) {
-        return new MappedIterable<>(it, map);
+        // fuse with previous stages rather than decorating them
+        return FusedIterable.isFusable(it) ? FusedIterable.of(it).mapped(map)
+                : new MappedIterable<>(it, map);
     }
 
     private static <T> Iterable<T> filtered(Iterable<T> it, Supplier<Predicate<? super T>> filter) {
-        return filter == null ? it : new FilteredIterable<>(it).setFilter(filter);
+        if (filter == null) {
+            return it;
+        }
+        return FusedIterable.isFusable(it) ? FusedIterable.of(it).filtered(filter)
+                : new FilteredIterable<>(it).setFilter(filter);
+    }
+
+    /**
+     * Equivalent to {@code mappedConcurrent(it, map, maxInFlight, true,
+     * ConcurrentMappedIterator.defaultExecutor())}, i.e., maps on virtual threads if available.
+     * 
+     * @see #mappedConcurrent(Iterable, Function, int, boolean, Executor)
+     */
+    public static <T, U> Iterable<U> mappedConcurrent(Iterable<T> it,
+                                                      Function<? super T, U> map,
+                                                      int maxInFlight) {
+        return mappedConcurrent(it,
+                                map,
+                                maxInFlight,
+                                true,
+                                ConcurrentMappedIterator.defaultExecutor());
+    }
+
+    /**
+     * Returns an {@code Iterable} which maps all elements of the original {@code Iterable}
+     * concurrently on a given executor, e.g., by blocking lookups. At most {@code maxInFlight}
+     * elements are mapped at a time by every iterator. Exceptions thrown by the mapper are rethrown
+     * by {@code next()}.
+     * 
+     * @see ConcurrentMappedIterator
+     * @param it          the original Iterable, not null
+     * @param map         the mapper, not null. Called concurrently
+     * @param maxInFlight the maximal number of elements being mapped at a time, positive
+     * @param ordered     if true, the results are returned in the order of the original elements,
+     *                    otherwise in the order of their completion
+     * @param executor    runs the mapper, not null
+     * @return
+     */
+    public static <T, U> Iterable<U> mappedConcurrent(Iterable<T> it,
+                                                      Function<? super T, U> map,
+                                                      int maxInFlight,
+                                                      boolean ordered,
+                                                      Executor executor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive but is " + maxInFlight);
+        }
+        return () -> new ConcurrentMappedIterator<>(it.iterator(), map, maxInFlight, ordered, executor);
     }
 
     /**
@@ -281,6 +360,30 @@ public class Iterables {
         return filtered(it, () -> FilteredIterator.distinctByKey(keyExtractor));
     }
 
+    /**
+     * Returns an {@code Iterable} which contains elements with distinct keys, as decided by a given
+     * {@link Distinct} strategy. Every iterator gets a new filter. Unless the strategy is
+     * {@link Distinct#isConcurrent() concurrent}, the {@code Spliterator} of the result does not
+     * split, i.e., parallel streams over it filter sequentially.
+     * 
+     * @param it
+     * @param keyExtractor the {@code Function} which generates keys for elements
+     * @param strategy     e.g., {@link Distinct#sorted()} for sorted input, not null
+     * @return
+     */
+    public static <T> Iterable<T> distinct(Iterable<T> it,
+                                           Function<? super T, ?> keyExtractor,
+                                           Distinct strategy) {
+        Objects.requireNonNull(strategy);
+        Supplier<Predicate<? super T>> filter = () -> FilteredIterator.distinctByKey(keyExtractor,
+                                                                                     strategy);
+        // fused pipelines never split stateful filters
+        if (strategy.isConcurrent() || FusedIterable.isFusable(it)) {
+            return filtered(it, filter);
+        }
+        return new FilteredIterable<>(it).setFilter(filter).setSplittable(false);
+    }
+
     /**
      * Returns an {@code Iterable} which calls a given {@code Consumer} prior to deleting an
      * element. The element is passed to hook as the first and the only argument.
@@ -368,6 +471,342 @@ public class Iterables {
         }
     }
 
+    /**
+     * Performs a given action on consecutive batches of elements from the {@code Iterable}. All
+     * batches but the last one have exactly {@code batchSize} elements. The batches are filled by
+     * {@link BatchIterator#nextBatch(Iterator, Object[], int, int)}, i.e., natively by mapped,
+     * filtered and nested iterators, and are backed by one array reused for all batches.
+     * Therefore, a batch is only valid during the call of the action and must be copied if it is
+     * to be retained.
+     * 
+     * @param it        the original Iterable, not null
+     * @param batchSize the maximal number of elements per batch, positive
+     * @param action    the action to perform on every batch, not null
+     */
+    public static <T> void forEachBatch(Iterable<T> it,
+                                        int batchSize,
+                                        Consumer<? super List<T>> action) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive but is " + batchSize);
+        }
+        Iterator<T> itr = it.iterator();
+        Object[] buffer = new Object[batchSize];
+        BatchView<T> batch = new BatchView<>(buffer);
+        int n;
+        while ((n = BatchIterator.nextBatch(itr, buffer, 0, batchSize)) > 0) {
+            batch.size = n;
+            action.accept(batch);
+            if (n < batchSize) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns an {@code Iterable} over consecutive chunks of elements from the original
+     * {@code Iterable}. All chunks but the last one have exactly {@code chunkSize} elements. Unlike
+     * in {@link #forEachBatch(Iterable, int, Consumer)}, every chunk is a new list and may be
+     * retained.
+     * 
+     * @param it        the original Iterable, not null
+     * @param chunkSize the maximal number of elements per chunk, positive
+     * @return
+     */
+    public static <T> Iterable<List<T>> chunked(Iterable<T> it, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive but is " + chunkSize);
+        }
+        return () -> new Iterator<List<T>>() {
+            private final Iterator<T> itr = it.iterator();
+            private List<T> next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    Object[] chunk = new Object[chunkSize];
+                    int n = BatchIterator.nextBatch(itr, chunk, 0, chunkSize);
+                    next = n == 0 ? null : new BatchView<>(chunk, n);
+                }
+                return next != null;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} over tumbling windows, i.e., consecutive non-overlapping windows of
+     * {@code size} elements each (the last window may be smaller). Equivalent to
+     * {@link #chunked(Iterable, int)}.
+     * 
+     * @param it   the original Iterable, not null
+     * @param size the number of elements per window, positive
+     * @return
+     */
+    public static <T> Iterable<List<T>> tumbling(Iterable<T> it, int size) {
+        return chunked(it, size);
+    }
+
+    /**
+     * Returns an {@code Iterable} over sliding windows of {@code size} consecutive elements, where
+     * every window starts {@code step} elements after the previous one. Only full windows are
+     * returned. Every iterator keeps the elements in one ring buffer and returns one and the same
+     * read-only view of it, so that sliding does not copy the window. Therefore, a window is only
+     * valid until the next call of {@code next()} and must be copied if it is to be retained.
+     * 
+     * @param it   the original Iterable, not null
+     * @param size the number of elements per window, positive
+     * @param step the distance between the starts of consecutive windows, positive
+     * @return
+     */
+    public static <T> Iterable<List<T>> sliding(Iterable<T> it, int size, int step) {
+        if (size <= 0 || step <= 0) {
+            throw new IllegalArgumentException("Window size and step must be positive but are "
+                                               + size + " and " + step);
+        }
+        return () -> new Iterator<List<T>>() {
+            private final Iterator<T> itr = it.iterator();
+            private final RingView<T> window = new RingView<>(size);
+            private boolean nextSet;
+
+            @Override
+            public boolean hasNext() {
+                if (!nextSet) {
+                    // the first window is filled completely, later ones are advanced by step
+                    int missing = window.size() < size ? size - window.size() : step;
+                    while (missing > 0 && itr.hasNext()) {
+                        window.push(itr.next());
+                        missing--;
+                    }
+                    nextSet = missing == 0;
+                }
+                return nextSet;
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                nextSet = false;
+                return window;
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} over session windows, i.e., maximal runs of consecutive elements
+     * where every two neighbours belong to the same session. Every session is a new list and may be
+     * retained.
+     * 
+     * @param it          the original Iterable, not null
+     * @param sameSession tests whether an element belongs to the session of its predecessor, not
+     *                    null
+     * @return
+     */
+    public static <T> Iterable<List<T>> sessions(Iterable<T> it,
+                                                 BiPredicate<? super T, ? super T> sameSession) {
+        Objects.requireNonNull(sameSession);
+        return () -> new Iterator<List<T>>() {
+            private final Iterator<T> itr = it.iterator();
+            private T pending;
+            private boolean pendingSet;
+
+            @Override
+            public boolean hasNext() {
+                return pendingSet || itr.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T previous = pendingSet ? pending : itr.next();
+                pending = null;
+                pendingSet = false;
+                List<T> session = new ArrayList<>();
+                session.add(previous);
+                while (itr.hasNext()) {
+                    T t = itr.next();
+                    if (!sameSession.test(previous, t)) {
+                        pending = t;
+                        pendingSet = true;
+                        break;
+                    }
+                    session.add(t);
+                    previous = t;
+                }
+                return session;
+            }
+        };
+    }
+
+    /**
+     * Returns an {@code Iterable} over session windows of time-ordered elements: a session ends if
+     * the next element is more than {@code gap} after the previous one.
+     * 
+     * @param it   the original Iterable, not null
+     * @param time the time of an element, not null
+     * @param gap  the maximal gap within a session, non-negative
+     * @return
+     * @see #sessions(Iterable, BiPredicate)
+     */
+    public static <T> Iterable<List<T>> sessions(Iterable<T> it,
+                                                 ToLongFunction<? super T> time,
+                                                 long gap) {
+        if (gap < 0) {
+            throw new IllegalArgumentException("Gap must be non-negative but is " + gap);
+        }
+        return sessions(it, (t1, t2) -> time.applyAsLong(t2) - time.applyAsLong(t1) <= gap);
+    }
+
+    /**
+     * Returns the sums over the sliding windows of (at most) {@code size} elements ending at every
+     * element of the original {@code Iterable}. The sums are maintained incrementally, i.e., in
+     * O(1) per element.
+     * 
+     * @param it    the original Iterable, not null
+     * @param value the value of an element, not null
+     * @param size  the number of elements per window, positive
+     * @return
+     * @see SlidingAggregateIterator
+     */
+    public static <T> DoubleIterable slidingSum(Iterable<T> it,
+                                                ToDoubleFunction<? super T> value,
+                                                int size) {
+        return sliding(it, value, null, size, Aggregate.SUM);
+    }
+
+    /**
+     * Returns the sums over the sliding windows ending at every element of the original
+     * {@code Iterable}, which contain the elements whose times are greater than the time of the
+     * last element minus {@code width}. The times must not decrease.
+     * 
+     * @param it    the original Iterable, not null
+     * @param value the value of an element, not null
+     * @param time  the time of an element, not null
+     * @param width the width of the windows, positive
+     * @return
+     * @see SlidingAggregateIterator
+     */
+    public static <T> DoubleIterable slidingSum(Iterable<T> it,
+                                                ToDoubleFunction<? super T> value,
+                                                ToLongFunction<? super T> time,
+                                                long width) {
+        return sliding(it, value, Objects.requireNonNull(time), width, Aggregate.SUM);
+    }
+
+    /**
+     * Like {@link #slidingSum(Iterable, ToDoubleFunction, int)}, but returns the minima.
+     */
+    public static <T> DoubleIterable slidingMin(Iterable<T> it,
+                                                ToDoubleFunction<? super T> value,
+                                                int size) {
+        return sliding(it, value, null, size, Aggregate.MIN);
+    }
+
+    /**
+     * Like {@link #slidingSum(Iterable, ToDoubleFunction, ToLongFunction, long)}, but returns the
+     * minima.
+     */
+    public static <T> DoubleIterable slidingMin(Iterable<T> it,
+                                                ToDoubleFunction<? super T> value,
+                                                ToLongFunction<? super T> time,
+                                                long width) {
+        return sliding(it, value, Objects.requireNonNull(time), width, Aggregate.MIN);
+    }
+
+    /**
+     * Like {@link #slidingSum(Iterable, ToDoubleFunction, int)}, but returns the maxima.
+     */
+    public static <T> DoubleIterable slidingMax(Iterable<T> it,
+                                                ToDoubleFunction<? super T> value,
+                                                int size) {
+        return sliding(it, value, null, size, Aggregate.MAX);
+    }
+
+    /**
+     * Like {@link #slidingSum(Iterable, ToDoubleFunction, ToLongFunction, long)}, but returns the
+     * maxima.
+     */
+    public static <T> DoubleIterable slidingMax(Iterable<T> it,
+                                                ToDoubleFunction<? super T> value,
+                                                ToLongFunction<? super T> time,
+                                                long width) {
+        return sliding(it, value, Objects.requireNonNull(time), width, Aggregate.MAX);
+    }
+
+    /**
+     * Like {@link #slidingSum(Iterable, ToDoubleFunction, ToLongFunction, long)}, but returns the
+     * numbers of elements in the windows.
+     */
+    public static <T> LongIterable slidingCount(Iterable<T> it,
+                                                ToLongFunction<? super T> time,
+                                                long width) {
+        DoubleIterable counts = sliding(it, null, Objects.requireNonNull(time), width,
+                                        Aggregate.COUNT);
+        return () -> new PrimitiveIterator.OfLong() {
+            private final PrimitiveIterator.OfDouble itr = counts.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public long nextLong() {
+                return (long) itr.nextDouble();
+            }
+        };
+    }
+
+    private static <T> DoubleIterable sliding(Iterable<T> it,
+                                              ToDoubleFunction<? super T> value,
+                                              ToLongFunction<? super T> time,
+                                              long width,
+                                              Aggregate aggregate) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Window width must be positive but is " + width);
+        }
+        return () -> new SlidingAggregateIterator<>(it.iterator(), value, time, width, aggregate);
+    }
+
+    /**
+     * Returns an {@code Iterable} over the elements of the original {@code Iterable} paired with
+     * their (zero-based) indexes. Every iterator returns one and the same {@link IntKeyValue} for
+     * all elements, so that indexed loops do not allocate per element. Therefore, an entry is only
+     * valid until the next call of {@code next()} and must be copied by
+     * {@link IntKeyValue#copy()} if it is to be retained.
+     * 
+     * @param it the original Iterable, not null
+     * @return
+     */
+    public static <T> Iterable<IntKeyValue<T>> indexed(Iterable<T> it) {
+        return () -> new Iterator<IntKeyValue<T>>() {
+            private final Iterator<T> itr = it.iterator();
+            private final IntKeyValue<T> cursor = new IntKeyValue<>(-1, null);
+
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public IntKeyValue<T> next() {
+                return cursor.set(cursor.getKey() + 1, itr.next());
+            }
+        };
+    }
+
     /**
      * Removes all elements from the {@code Iterable} which satisfy a given {@code Predicate}.
      * 
@@ -391,13 +830,50 @@ public class Iterables {
     }
 
     /**
-     * Returns the number of elements in a given {@code Iterable}
+     * Returns a new {@link ParallelIterables} with default settings, which runs the most widely used
+     * algorithms of this class in parallel.
+     * 
+     * @return
+     */
+    public static ParallelIterables parallel() {
+        return new ParallelIterables();
+    }
+
+    /**
+     * Returns the number of elements in a given {@code Iterable}. Collections return their size,
+     * while all other Iterables are iterated without collecting the elements.
      * 
      * @param it
      * @return
      */
     public static <T> int count(Iterable<T> it) {
-        return list(it).size();
+        if (it instanceof Collection) {
+            return ((Collection<?>) it).size();
+        }
+        int count = 0;
+        for (Iterator<T> itr = it.iterator(); itr.hasNext(); itr.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Computes the count as well as the sum, minimum, maximum and average of several values of the
+     * elements of a given {@code Iterable} in one traversal.
+     * 
+     * @param it     the original Iterable, not null
+     * @param values the values to aggregate, not null
+     * @return
+     * @see MultiAggregate
+     */
+    @SafeVarargs
+    public static <T> MultiAggregate<T> aggregate(Iterable<T> it,
+                                                  ToDoubleFunction<? super T>... values) {
+        var functions = new ArrayList<ToDoubleFunction<? super T>>(values.length);
+        for (ToDoubleFunction<? super T> value : values) {
+            functions.add(value);
+        }
+        return new MultiAggregate<T>(functions).acceptAll(it);
     }
 
     /**
@@ -520,6 +996,35 @@ public class Iterables {
         return Streams.collect(stream(it), pred, collector, n);
     }
 
+    /**
+     * Returns an {@link Iterable} which iterates a given Iterable at most once, lazily, and replays
+     * its elements to all iterators, including concurrent ones. Useful for expensive pipelines
+     * consumed several times.
+     * 
+     * @param it the original Iterable, not null
+     * @return
+     * @see CachedIterable
+     */
+    public static <T> CachedIterable<T> cached(Iterable<T> it) {
+        return new CachedIterable<>(it);
+    }
+
+    /**
+     * Like {@link #cached(Iterable)}, but holds at most {@code maxInMemory} elements in memory and
+     * spills all further ones to a temporary file, which is deleted by
+     * {@link CachedIterable#close()}.
+     * 
+     * @param it          the original Iterable, not null
+     * @param maxInMemory the maximal number of elements in memory, non-negative
+     * @param serializer  writes and reads the spilled elements, not null
+     * @return
+     */
+    public static <T> CachedIterable<T> cached(Iterable<T> it,
+                                               long maxInMemory,
+                                               Serializer<T> serializer) {
+        return new CachedIterable<>(it).setSpill(maxInMemory, serializer);
+    }
+
     /**
      * Creates and returns an {@link Iterable} from a given supplier of iterators.
      * 
@@ -532,7 +1037,8 @@ public class Iterables {
 
     /**
      * Creates and returns an {@link Iterable} with given characteristics from a given supplier of
-     * iterators.
+     * iterators. Its spliterators split the iterators into growing batches (see
+     * {@link BatchSpliterator}).
      * 
      * @param it
      * @return
@@ -548,7 +1054,7 @@ public class Iterables {
 
             @Override
             public Spliterator<T> spliterator() {
-                return Spliterators.spliteratorUnknownSize(iterator(), chars);
+                return new BatchSpliterator<>(iterator(), chars);
             }
         };
         return itr;
@@ -599,6 +1105,128 @@ public class Iterables {
         return results;
     }
 
+    /**
+     * Returns a {@link BiIterable} which pairs the elements of two Iterables by their positions.
+     * Unlike {@link #bimap(Iterable, Iterable, BiFunction)}, the pairs are created lazily. If the two
+     * Iterables are not of the same length, the shorter length is taken.
+     * 
+     * @param items1 the Iterable of the keys, not null
+     * @param items2 the Iterable of the values, not null
+     * @return
+     */
+    public static <T, U> BiIterable<T, U> zip(Iterable<T> items1, Iterable<U> items2) {
+        return toBiIt(zip(items1, items2, KeyValue<T, U>::new));
+    }
+
+    /**
+     * Returns an {@link Iterable} which applies a given {@link BiFunction} to the elements of two
+     * Iterables with the same positions, i.e., a lazy
+     * {@link #bimap(Iterable, Iterable, BiFunction)}.
+     * 
+     * @param items1 the first Iterable, not null
+     * @param items2 the second Iterable, not null
+     * @param map    the mapping function, not null
+     * @return
+     */
+    public static <T, U, V> Iterable<V> zip(Iterable<T> items1,
+                                            Iterable<U> items2,
+                                            BiFunction<? super T, ? super U, ? extends V> map) {
+        Objects.requireNonNull(items1);
+        Objects.requireNonNull(items2);
+        Objects.requireNonNull(map);
+        return () -> new Iterator<V>() {
+            private final Iterator<T> it1 = items1.iterator();
+            private final Iterator<U> it2 = items2.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return it1.hasNext() && it2.hasNext();
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return map.apply(it1.next(), it2.next());
+            }
+        };
+    }
+
+    /**
+     * Returns a {@link BiIterable} over the pairs of elements of two Iterables with equal keys
+     * (inner join), where both Iterables are sorted by their keys. The join is lazy and traverses
+     * both Iterables once.
+     * 
+     * @param left       the left Iterable, sorted by leftKey, not null
+     * @param right      the right Iterable, sorted by rightKey, not null
+     * @param leftKey    the key of a left element, not null. Elements with null keys are skipped
+     * @param rightKey   the key of a right element, not null. Elements with null keys are skipped
+     * @param comparator the order of both Iterables, not null
+     * @return
+     * @see MergeJoinIterator
+     */
+    public static <L, R, K> BiIterable<L, R> mergeJoin(Iterable<L> left,
+                                                       Iterable<R> right,
+                                                       Function<? super L, ? extends K> leftKey,
+                                                       Function<? super R, ? extends K> rightKey,
+                                                       Comparator<? super K> comparator) {
+        Objects.requireNonNull(left);
+        Objects.requireNonNull(right);
+        Objects.requireNonNull(comparator);
+        return () -> new MergeJoinIterator<>(left.iterator(),
+                                             right.iterator(),
+                                             leftKey,
+                                             rightKey,
+                                             comparator);
+    }
+
+    /**
+     * Equivalent to {@code hashJoin(probe, build, probeKey, buildKey, Integer.MAX_VALUE)}, i.e., the
+     * whole build side is held in memory.
+     * 
+     * @see #hashJoin(Iterable, Iterable, Function, Function, int)
+     */
+    public static <L, R, K> BiIterable<L, R> hashJoin(Iterable<L> probe,
+                                                      Iterable<R> build,
+                                                      Function<? super L, ? extends K> probeKey,
+                                                      Function<? super R, ? extends K> buildKey) {
+        return hashJoin(probe, build, probeKey, buildKey, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a {@link BiIterable} over the pairs of elements of two Iterables with equal keys
+     * (inner join). The join is lazy: every iterator hashes the build side, which should be the
+     * smaller one, and streams the probe side. If the build side has more than
+     * {@code maxBuildSize} elements, it is hashed in blocks and the probe side is iterated once
+     * per block.
+     * 
+     * @param probe        the probe side, not null
+     * @param build        the build side, not null
+     * @param probeKey     the key of a probe element, not null. Elements with null keys are skipped
+     * @param buildKey     the key of a build element, not null. Elements with null keys are skipped
+     * @param maxBuildSize the maximal number of build elements in memory, positive
+     * @return
+     * @see HashJoinIterator
+     */
+    public static <L, R, K> BiIterable<L, R> hashJoin(Iterable<L> probe,
+                                                      Iterable<R> build,
+                                                      Function<? super L, ? extends K> probeKey,
+                                                      Function<? super R, ? extends K> buildKey,
+                                                      int maxBuildSize) {
+        Objects.requireNonNull(probe);
+        Objects.requireNonNull(build);
+        if (maxBuildSize <= 0) {
+            throw new IllegalArgumentException("Maximal build size must be positive but is "
+                                               + maxBuildSize);
+        }
+        return () -> new HashJoinIterator<>(probe,
+                                            build.iterator(),
+                                            probeKey,
+                                            buildKey,
+                                            maxBuildSize);
+    }
+
     /**
      * Returns a {@code List} containing all elements inserted by a given {@code parser} after
      * applying it to every element in a given {@code Collection}. Any exceptions thrown by the
@@ -673,9 +1301,145 @@ public class Iterables {
      * @return
      */
     public static <T> String toString(T[] array) {
-        StringBuffer buf = new StringBuffer(500);
-        appendList(buf, Arrays.asList(array));
-        return buf.toString();
+        return join(Arrays.asList(array), "[", "]", ", ", (t, sb) -> sb.append(t.toString()));
+    }
+
+    /**
+     * Serialises an {@code Iterable} like
+     * {@link #appendList(Iterable, String, String, String, BiConsumer)}, but into an unsynchronised
+     * {@link StringBuilder}. The builder is taken from a per-thread pool, so that repeated calls
+     * (e.g., by {@code toString()} methods) do not grow a new buffer every time.
+     * 
+     * @param items      the original Iterable, not null
+     * @param op         the string which is prepended to the serialised Iterable, not null
+     * @param cl         the string added to the serialised Iterable at the end, not null
+     * @param sep        the string to mark the two elements as separate, not null
+     * @param serializer a BiConsumer which should add to a StringBuilder the serialised version of
+     *                   the element passed, not null
+     * @return
+     */
+    public static <T> String join(Iterable<? extends T> items,
+                                  String op,
+                                  String cl,
+                                  String sep,
+                                  BiConsumer<? super T, ? super StringBuilder> serializer) {
+        StringBuilder sb = borrowBuilder();
+        try {
+            appendElements(sb, items, op, cl, sep, serializer, null, null);
+            return sb.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // can not happen without an Appendable
+        } finally {
+            releaseBuilder(sb);
+        }
+    }
+
+    /**
+     * Serialises an {@code Iterable} like {@link #join(Iterable, String, String, String, BiConsumer)}
+     * and appends the result to a given {@link Appendable}, e.g., a {@link java.io.Writer Writer}
+     * or a {@link java.nio.CharBuffer CharBuffer}, without creating an interim String. The elements
+     * are serialised into a pooled buffer, which is flushed to the Appendable in chunks of about
+     * {@value #FLUSH_THRESHOLD} characters, so that large Iterables do not need to fit into one
+     * buffer. I/O errors are thrown as {@link UncheckedIOException}s.
+     * 
+     * @param out        the Appendable, not null
+     * @param items      the original Iterable, not null
+     * @param op         the string which is prepended to the serialised Iterable, not null
+     * @param cl         the string added to the serialised Iterable at the end, not null
+     * @param sep        the string to mark the two elements as separate, not null
+     * @param serializer a BiConsumer which should add to a StringBuilder the serialised version of
+     *                   the element passed, not null
+     * @return out
+     */
+    public static <T, A extends Appendable> A appendTo(A out,
+                                                       Iterable<? extends T> items,
+                                                       String op,
+                                                       String cl,
+                                                       String sep,
+                                                       BiConsumer<? super T, ? super StringBuilder> serializer) {
+        try {
+            if (out instanceof StringBuilder) {
+                appendElements((StringBuilder) out, items, op, cl, sep, serializer, null, null);
+                return out;
+            }
+            StringBuilder sb = borrowBuilder();
+            try {
+                char[] chunk = out instanceof Writer || out instanceof CharBuffer ? new char[FLUSH_THRESHOLD]
+                        : null;
+                appendElements(sb, items, op, cl, sep, serializer, out, chunk);
+                flush(sb, out, chunk);
+            } finally {
+                releaseBuilder(sb);
+            }
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> void appendElements(StringBuilder sb,
+                                           Iterable<? extends T> items,
+                                           String op,
+                                           String cl,
+                                           String sep,
+                                           BiConsumer<? super T, ? super StringBuilder> serializer,
+                                           Appendable out,
+                                           char[] chunk) throws IOException {
+        sb.append(op);
+        boolean first = true;
+        for (T t : items) {
+            if (!first) {
+                sb.append(sep);
+            }
+            first = false;
+            serializer.accept(t, sb);
+            if (out != null && sb.length() >= FLUSH_THRESHOLD) {
+                flush(sb, out, chunk);
+            }
+        }
+        sb.append(cl);
+    }
+
+    /**
+     * Moves the content of a builder to an Appendable. Writers and CharBuffers would convert a
+     * CharSequence to a String first, so they are given the characters via a chunk array instead.
+     */
+    private static void flush(StringBuilder sb, Appendable out, char[] chunk) throws IOException {
+        if (chunk == null) {
+            out.append(sb);
+        } else {
+            for (int from = 0; from < sb.length(); from += chunk.length) {
+                int to = Math.min(sb.length(), from + chunk.length);
+                sb.getChars(from, to, chunk, 0);
+                if (out instanceof Writer) {
+                    ((Writer) out).write(chunk, 0, to - from);
+                } else {
+                    ((CharBuffer) out).put(chunk, 0, to - from);
+                }
+            }
+        }
+        sb.setLength(0);
+    }
+
+    /**
+     * Takes the builder of this thread from the pool. Nested calls (e.g., a serializer calling
+     * {@code join} itself) find the pool empty and create a new builder.
+     */
+    private static StringBuilder borrowBuilder() {
+        StringBuilder sb = BUILDERS.get();
+        if (sb == null) {
+            return new StringBuilder(256);
+        }
+        BUILDERS.set(null);
+        return sb;
+    }
+
+    private static void releaseBuilder(StringBuilder sb) {
+        // do not retain exceptionally large buffers
+        if (sb.capacity() <= MAX_POOLED_CAPACITY) {
+            sb.setLength(0);
+            BUILDERS.set(sb);
+        }
     }
 
     /**
@@ -789,7 +1553,7 @@ public class Iterables {
                                         String cl,
                                         String sep,
                                         Function<T, String> serializer) {
-        return appendList(items, op, cl, sep, (s, sb) -> sb.append(serializer.apply(s)));
+        return join(items, op, cl, sep, (s, sb) -> sb.append(serializer.apply(s)));
     }
 
     ///// ************ Shortcuts for Lists ************** /////
@@ -942,6 +1706,53 @@ public class Iterables {
         return result;
     }
 
+    /**
+     * Groups an {@link Iterable} which may not fit into memory by a key provided by a given
+     * generator, like {@link #group(Iterable, Function, Supplier)}. The groups are returned lazily
+     * in the order of their keys, and only one group is held in memory at a time. The elements are
+     * sorted by their keys externally, i.e., spilled to temporary files in sorted chunks of at most
+     * {@code budget} elements.<br>
+     *
+     * <b>NOTE:</b> Values, for which the keyGen returns null, are skipped!
+     *
+     * @param source     the elements to be grouped.
+     * @param keyGen
+     * @param keyOrder   the order of the keys, not null
+     * @param budget     the maximal number of elements held in memory for sorting, positive
+     * @param serializer writes and reads the spilled elements, not null
+     * @return
+     * @see ExternalSort#grouped(Iterable, Function)
+     */
+    public static <K, V> Iterable<Entry<K, List<V>>> groupExternal(Iterable<V> source,
+                                                                   Function<V, K> keyGen,
+                                                                   Comparator<? super K> keyOrder,
+                                                                   int budget,
+                                                                   Serializer<V> serializer) {
+        return new ExternalSort<V>(Comparator.comparing(keyGen, keyOrder), serializer)
+                .setBudget(budget)
+                .grouped(source, keyGen);
+    }
+
+    /**
+     * Returns an {@link Iterable} over the elements of a given Iterable, sorted by a given
+     * comparator. Sources with at most {@code budget} elements are sorted in memory, while larger
+     * ones are spilled to temporary files in sorted chunks, which are merged while iterating. The
+     * sort is stable.
+     *
+     * @param it         the original Iterable, not null
+     * @param comparator the order, not null
+     * @param budget     the maximal number of elements held in memory, positive
+     * @param serializer writes and reads the spilled elements, not null
+     * @return
+     * @see ExternalSort
+     */
+    public static <T> Iterable<T> sorted(Iterable<T> it,
+                                         Comparator<? super T> comparator,
+                                         int budget,
+                                         Serializer<T> serializer) {
+        return new ExternalSort<T>(comparator, serializer).setBudget(budget).sorted(it);
+    }
+
     /**
      * Returns the list with a given key from a given map of lists. If the list doesn't exist or is
      * null, a new empty {@link ArrayList} is inserted into the map prior to being returned.
@@ -1246,6 +2057,54 @@ public class Iterables {
     }
 
     ///// ********** Array Converters/Unboxers ************ /////
+    /**
+     * Returns a {@link DoubleIterable} which converts every element of a given {@code Iterable}
+     * without boxing.
+     * 
+     * @param it     the original Iterable, not null
+     * @param mapper the conversion, not null
+     * @return
+     */
+    public static <T> DoubleIterable doubles(Iterable<T> it, ToDoubleFunction<? super T> mapper) {
+        return DoubleIterable.of(it, mapper);
+    }
+
+    public static DoubleIterable doubles(double... values) {
+        return DoubleIterable.of(values);
+    }
+
+    /**
+     * Returns an {@link IntIterable} which converts every element of a given {@code Iterable}
+     * without boxing.
+     * 
+     * @param it     the original Iterable, not null
+     * @param mapper the conversion, not null
+     * @return
+     */
+    public static <T> IntIterable ints(Iterable<T> it, ToIntFunction<? super T> mapper) {
+        return IntIterable.of(it, mapper);
+    }
+
+    public static IntIterable ints(int... values) {
+        return IntIterable.of(values);
+    }
+
+    /**
+     * Returns a {@link LongIterable} which converts every element of a given {@code Iterable}
+     * without boxing.
+     * 
+     * @param it     the original Iterable, not null
+     * @param mapper the conversion, not null
+     * @return
+     */
+    public static <T> LongIterable longs(Iterable<T> it, ToLongFunction<? super T> mapper) {
+        return LongIterable.of(it, mapper);
+    }
+
+    public static LongIterable longs(long... values) {
+        return LongIterable.of(values);
+    }
+
     public static double[] arrayDouble(Collection<? extends Number> source) {
         double[] result = new double[source.size()];
 
@@ -1320,26 +2179,17 @@ public class Iterables {
         return intersection(asList(collections));
     }
 
+    /**
+     * Returns an intersection of multiple collections. The algorithm is chosen depending on the
+     * types and sizes of the collections, see {@link SetAlgebra}. If all collections are
+     * {@link java.util.SortedSet}s with the same ordering, the result is sorted as well.
+     * 
+     * @param collections one or more collections to compute the intersection over
+     * @return
+     * @throws IllegalArgumentException if `collections` is empty
+     */
     public static <T> Set<T> intersection(Iterable<? extends Collection<T>> collections) {
-        // sort by the size (smallest first) to improve memory efficiency: the resulting set
-        // is at most as large as the smallest from the incoming collections
-        var sorted = list(collections);
-        sorted.sort((c1, c2) -> Integer.compare(c1.size(), c2.size()));
-
-        return reduce(i -> set(i, null), (e, i) -> {
-            Set<T> result = new HashSet<>();
-
-            // lookups are O(1) in a set and as high as O(n) in a generic collection. So iterate
-            // over the incoming collection
-            // and lookup in the existing set obtained from the previous steps.
-            // It is better to have 2*O(n) than O(n^2).
-            for (T incoming : i) {
-                if (e.contains(incoming)) {
-                    result.add(incoming);
-                }
-            }
-            return result;
-        }, sorted);
+        return SetAlgebra.intersection(collections);
     }
 
     /**
@@ -1373,11 +2223,17 @@ public class Iterables {
         return union(asList(iterables));
     }
 
+    /**
+     * Returns a union of all given iterables. The algorithm is chosen depending on the types and
+     * sizes of the iterables, see {@link SetAlgebra}. If all iterables are
+     * {@link java.util.SortedSet}s with the same ordering, the result is sorted as well.
+     * 
+     * @param sequence one or more iterables to compute the union over
+     * @return
+     * @throws IllegalArgumentException if `sequence` is empty
+     */
     public static <T> Set<T> union(Iterable<? extends Iterable<T>> sequence) {
-        return reduce(i -> new HashSet<>(collection(i)), (s, i) -> {
-            s.addAll(collection(i));
-            return s;
-        }, sequence);
+        return SetAlgebra.union(sequence);
     }
 
     /**
@@ -1464,4 +2320,76 @@ public class Iterables {
         return all(one.keySet(), s -> valuePred.test(one.get(s), two.get(s)));
     }
 
+    /**
+     * A read-only view of the last {@code capacity} elements added to a ring buffer.
+     */
+    private static class RingView<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private int head;
+        private int size;
+
+        private RingView(int capacity) {
+            elements = new Object[capacity];
+        }
+
+        private void push(T element) {
+            int tail = (head + size) % elements.length;
+            elements[tail] = element;
+            if (size < elements.length) {
+                size++;
+            } else {
+                head = (head + 1) % elements.length;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) elements[(head + index) % elements.length];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A fixed-size list view on the first elements of an array.
+     */
+    private static class BatchView<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private int size;
+
+        private BatchView(Object[] elements) {
+            this(elements, 0);
+        }
+
+        private BatchView(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) elements[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T set(int index, T element) {
+            Objects.checkIndex(index, size);
+            T old = (T) elements[index];
+            elements[index] = element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package ms.ipp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * Computes the count as well as the sum, minimum, maximum and average of several values of every
+ * element in one traversal, e.g., instead of calling {@link Iterables#sum(Iterable,
+ * java.util.function.Function) Iterables::sum} and {@link Iterables#max(boolean, Iterable)
+ * Iterables::max} separately. The accumulators are primitive arrays, so that accepting an element
+ * does not allocate. Partial aggregates can be merged by {@link #combine(MultiAggregate)}, which
+ * makes them suitable for parallel streams (see {@link #collector(ToDoubleFunction...)}).
+ *
+ * <pre>
+ * MultiAggregate&lt;Trade&gt; agg = Iterables.aggregate(trades, Trade::getPrice, Trade::getVolume);
+ * double volume = agg.sum(1);
+ * double maxPrice = agg.max(0);
+ * </pre>
+ *
+ * The values are addressed by the indexes of their functions. Like in
+ * {@link java.util.DoubleSummaryStatistics}, the minimum of no values is positive infinity, the
+ * maximum negative infinity and the average zero.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public class MultiAggregate<T> implements Consumer<T> {
+    private final List<ToDoubleFunction<? super T>> values;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+    private long count;
+
+    /**
+     * Creates an instance of {@code MultiAggregate<T>}.
+     *
+     * @param values the values to aggregate, not null
+     */
+    @SafeVarargs
+    public MultiAggregate(ToDoubleFunction<? super T>... values) {
+        // copied element-wise, so that the varargs array does not escape
+        this.values = new ArrayList<>(values.length);
+        for (ToDoubleFunction<? super T> value : values) {
+            this.values.add(Objects.requireNonNull(value));
+        }
+        sums = new double[values.length];
+        mins = filled(values.length, Double.POSITIVE_INFINITY);
+        maxs = filled(values.length, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Creates an instance of {@code MultiAggregate<T>}.
+     *
+     * @param values the values to aggregate, not null
+     */
+    public MultiAggregate(List<? extends ToDoubleFunction<? super T>> values) {
+        this.values = new ArrayList<>(values.size());
+        for (ToDoubleFunction<? super T> value : values) {
+            this.values.add(Objects.requireNonNull(value));
+        }
+        sums = new double[values.size()];
+        mins = filled(values.size(), Double.POSITIVE_INFINITY);
+        maxs = filled(values.size(), Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Returns a {@link Collector} which aggregates the elements of a (possibly parallel) stream.
+     *
+     * @param values the values to aggregate, not null
+     * @return
+     */
+    @SafeVarargs
+    public static <T> Collector<T, ?, MultiAggregate<T>> collector(ToDoubleFunction<? super T>... values) {
+        List<ToDoubleFunction<? super T>> functions = new ArrayList<>(values.length);
+        for (ToDoubleFunction<? super T> value : values) {
+            functions.add(value);
+        }
+        return collector(functions);
+    }
+
+    /**
+     * @see #collector(ToDoubleFunction...)
+     */
+    public static <T> Collector<T, ?, MultiAggregate<T>> collector(List<? extends ToDoubleFunction<? super T>> values) {
+        return Collector.of(() -> new MultiAggregate<T>(values),
+                            MultiAggregate::accept,
+                            MultiAggregate::combine,
+                            Collector.Characteristics.IDENTITY_FINISH,
+                            Collector.Characteristics.UNORDERED);
+    }
+
+    @Override
+    public void accept(T t) {
+        count++;
+        for (int i = 0; i < sums.length; ++i) {
+            double v = values.get(i).applyAsDouble(t);
+            sums[i] += v;
+            mins[i] = Math.min(mins[i], v);
+            maxs[i] = Math.max(maxs[i], v);
+        }
+    }
+
+    /**
+     * Adds all elements of a given Iterable.
+     *
+     * @param it the elements, not null
+     * @return
+     */
+    public MultiAggregate<T> acceptAll(Iterable<? extends T> it) {
+        for (T t : it) {
+            accept(t);
+        }
+        return this;
+    }
+
+    /**
+     * Merges the aggregates of another instance with the same value functions into this one.
+     *
+     * @param other the other instance, not null
+     * @return
+     */
+    public MultiAggregate<T> combine(MultiAggregate<T> other) {
+        if (other.sums.length != sums.length) {
+            throw new IllegalArgumentException("Can not combine aggregates of " + sums.length
+                                               + " and " + other.sums.length + " values");
+        }
+        count += other.count;
+        for (int i = 0; i < sums.length; ++i) {
+            sums[i] += other.sums[i];
+            mins[i] = Math.min(mins[i], other.mins[i]);
+            maxs[i] = Math.max(maxs[i], other.maxs[i]);
+        }
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double sum(int value) {
+        return sums[value];
+    }
+
+    public double min(int value) {
+        return mins[value];
+    }
+
+    public double max(int value) {
+        return maxs[value];
+    }
+
+    public double ave(int value) {
+        return count == 0 ? 0 : sums[value] / count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MultiAggregate[count=").append(count);
+        for (int i = 0; i < sums.length; ++i) {
+            sb.append(", ").append(i).append("={sum=").append(sums[i]).append(", min=")
+                    .append(mins[i]).append(", max=").append(maxs[i]).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] result = new double[length];
+        Arrays.fill(result, value);
+        return result;
+    }
+}
@@ -0,0 +1,235 @@
+package ms.ipp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parallel counterparts of the most widely used algorithms in {@link Iterables}. All algorithms run
+ * as parallel streams on a configurable {@link ForkJoinPool}, unless the input has fewer elements
+ * than a configurable threshold, in which case they run sequentially in the calling thread.
+ * <br>
+ * Inputs whose size is unknown (i.e., whose spliterator is not SIZED) are always processed in
+ * parallel. All predicates, functions and actions may be called concurrently and must be
+ * thread-safe.
+ *
+ * <pre>
+ * Iterables.parallel().setThreshold(1000).any(items, pred);
+ * </pre>
+ *
+ * @author mykhailo.saienko
+ *
+ */
+public class ParallelIterables {
+    public static final int DEFAULT_THRESHOLD = 10_000;
+
+    private ForkJoinPool pool;
+    private long threshold;
+    private boolean deterministic;
+
+    public ParallelIterables() {
+        pool = ForkJoinPool.commonPool();
+        threshold = DEFAULT_THRESHOLD;
+    }
+
+    /**
+     * Sets the pool which runs all parallel algorithms. Defaults to
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @param pool the pool, not null
+     * @return
+     */
+    public ParallelIterables setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the minimal number of elements for which algorithms run in parallel. Defaults to
+     * {@link #DEFAULT_THRESHOLD}.
+     *
+     * @param threshold the threshold, non-negative
+     * @return
+     */
+    public ParallelIterables setThreshold(long threshold) {
+        this.threshold = threshold;
+        return this;
+    }
+
+    /**
+     * If set, {@link #first(Iterable, Predicate) first} returns the first matching element in the
+     * encounter order, {@link #unique(Iterable, Predicate) unique} reports the first two matches,
+     * and {@link #forEach(Iterable, Consumer) forEach} processes elements one after another in the
+     * encounter order. Otherwise, these algorithms return or process whatever element comes first,
+     * which is faster. Defaults to false.
+     *
+     * @param deterministic
+     * @return
+     */
+    public ParallelIterables setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+        return this;
+    }
+
+    /**
+     * @see Iterables#all(Iterable, Predicate)
+     */
+    public <T> boolean all(Iterable<T> it, Predicate<? super T> pred) {
+        return pred == null ? true : !any(it, pred.negate());
+    }
+
+    /**
+     * @see Iterables#none(Iterable, Predicate)
+     */
+    public <T> boolean none(Iterable<T> it, Predicate<? super T> pred) {
+        return !any(it, pred);
+    }
+
+    /**
+     * Returns true if at least one element satisfies a given predicate. Stops all threads as soon
+     * as a match is found.
+     *
+     * @see Iterables#any(Iterable, Predicate)
+     */
+    public <T> boolean any(Iterable<T> it, Predicate<? super T> pred) {
+        Predicate<? super T> p = pred == null ? t -> true : pred;
+        return run(it, st -> st.anyMatch(p));
+    }
+
+    /**
+     * Returns a matching element, which is the first one in the encounter order if the algorithms
+     * are deterministic. Stops all threads as soon as a match is found (or, if deterministic, as
+     * soon as no earlier match is possible).
+     *
+     * @see Iterables#first(Iterable, Predicate)
+     */
+    public <T> T first(Iterable<T> it, Predicate<? super T> pred) {
+        return run(it, st -> {
+            var filtered = Streams.filtered(st, pred);
+            return (deterministic ? filtered.findFirst() : filtered.findAny()).orElse(null);
+        });
+    }
+
+    /**
+     * @see Iterables#unique(Iterable, Predicate)
+     */
+    public <T> T unique(Iterable<T> it, Predicate<? super T> pred) {
+        List<T> matches = run(it, st -> {
+            var filtered = Streams.filtered(st, pred);
+            // two matches suffice to fail
+            return (deterministic ? filtered : filtered.unordered()).limit(2)
+                    .collect(Collectors.toList());
+        });
+        if (matches.size() > 1) {
+            throw new IllegalArgumentException("At least two elements encountered: "
+                                               + matches);
+        }
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * @see Iterables#forEach(Iterable, Consumer)
+     */
+    public <T> void forEach(Iterable<T> it, Consumer<? super T> proc) {
+        run(it, st -> {
+            if (deterministic) {
+                st.forEachOrdered(proc);
+            } else {
+                st.forEach(proc);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @see Iterables#count(Iterable)
+     */
+    public <T> long count(Iterable<T> it) {
+        return run(it, Stream::count);
+    }
+
+    /**
+     * @see Iterables#sum(Iterable, Function)
+     */
+    public <T, U extends Number> double sum(Iterable<? extends T> elems,
+                                            Function<T, U> converter) {
+        return run(elems, st -> st.mapToDouble(t -> converter.apply(t).doubleValue()).sum());
+    }
+
+    /**
+     * @see Iterables#aggregate(Iterable, ToDoubleFunction...)
+     */
+    @SafeVarargs
+    public final <T> MultiAggregate<T> aggregate(Iterable<T> it,
+                                                 ToDoubleFunction<? super T>... values) {
+        var functions = new ArrayList<ToDoubleFunction<? super T>>(values.length);
+        for (ToDoubleFunction<? super T> value : values) {
+            functions.add(value);
+        }
+        return run(it, st -> st.collect(MultiAggregate.collector(functions)));
+    }
+
+    /**
+     * Groups elements by keys. The lists in the resulting map keep the encounter order.
+     *
+     * @see Iterables#group(Iterable, Function, Supplier)
+     */
+    public <K, V, M extends Map<K, List<V>>> M group(Iterable<V> source,
+                                                     Function<V, K> keyGen,
+                                                     Supplier<M> generator) {
+        return run(source, st -> st.filter(v -> keyGen.apply(v) != null)
+                .collect(Collectors.groupingBy(keyGen, generator, Collectors.toList())));
+    }
+
+    /**
+     * Maps all elements. The resulting list keeps the encounter order.
+     *
+     * @see Iterables#map(Iterable, Function)
+     */
+    public <T, U> List<U> map(Iterable<T> items, Function<T, U> map) {
+        return run(items, st -> st.map(map).collect(Collectors.toList()));
+    }
+
+    /**
+     * Filters and maps all elements. The resulting list keeps the encounter order.
+     *
+     * @see Iterables#filterMap(Iterable, Predicate, Function)
+     */
+    public <T, U> List<U> filterMap(Iterable<T> items,
+                                    Predicate<T> pred,
+                                    Function<T, U> mapper) {
+        return run(items,
+                   st -> Streams.filtered(st, pred).map(mapper).collect(Collectors.toList()));
+    }
+
+    /**
+     * Creates a stream over the iterable which is parallel if the iterable is large enough and
+     * applies a given terminal operation to it in the pool.
+     */
+    @SuppressWarnings("unchecked")
+    private <T, R> R run(Iterable<? extends T> it, Function<Stream<T>, R> operation) {
+        Objects.requireNonNull(it);
+        Spliterator<T> sp = (Spliterator<T>) it.spliterator();
+        if (sp.estimateSize() < threshold) {
+            return operation.apply(StreamSupport.stream(sp, false));
+        }
+        Stream<T> st = StreamSupport.stream(sp, true);
+        if (ForkJoinTask.getPool() == pool) {
+            return operation.apply(st); // already running in the pool
+        }
+        // tasks forked by a parallel stream run in the pool of the thread starting it
+        return pool.submit(() -> operation.apply(st)).join();
+    }
+}
@@ -0,0 +1,360 @@
+package ms.ipp;
+
+import static ms.ipp.Algorithms.error;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Intersections and unions of many collections, which pick an algorithm depending on the inputs:
+ * <li>If all inputs are {@link SortedSet}s with the same ordering, they are merged in their order
+ * and the result is a {@link TreeSet} built in linear time. A small set is intersected with a much
+ * larger {@link NavigableSet} by looking up every element of the former in the latter, i.e., in
+ * O(m log(n)) instead of walking through both.
+ * <li>Otherwise, intersections walk through the smallest input and probe all other inputs, so that
+ * only one working set is allocated, which is then shrunk in place. Unions copy all inputs into one
+ * set presized for all of them.
+ * <li>Inputs with at least {@link #PARALLEL_THRESHOLD} elements are processed by parallel streams
+ * in the common pool. Parallel unions fill a {@link ConcurrentHashMap}-backed set, whose bins are
+ * updated independently by all threads, and copy it into a {@link HashSet}.
+ * <br>
+ * The original collections are left unmodified.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+public class SetAlgebra {
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+    // a linear merge is replaced by lookups if one input is this much larger than the other
+    private static final int LOOKUP_RATIO = 8;
+    // stands for null in concurrent sets, which cannot hold nulls
+    private static final Object NULL = new Object();
+
+    private SetAlgebra() {
+    }
+
+    /**
+     * @see Iterables#intersection(Iterable)
+     */
+    public static <T> Set<T> intersection(Iterable<? extends Collection<T>> collections) {
+        List<Collection<T>> inputs = Iterables.list(collections);
+        if (inputs.isEmpty()) {
+            error("Cannot intersect an empty sequence of collections");
+        }
+        // the result is at most as large as the smallest input
+        inputs.sort((c1, c2) -> Integer.compare(c1.size(), c2.size()));
+        Comparator<? super T> comparator = commonOrder(inputs);
+        if (comparator != null) {
+            return sortedIntersection(inputs, comparator);
+        }
+        if (inputs.get(0).isEmpty()) {
+            return new HashSet<>();
+        }
+
+        List<Collection<T>> sets = new ArrayList<>();
+        List<Collection<T>> others = new ArrayList<>();
+        for (Collection<T> input : inputs.subList(1, inputs.size())) {
+            (input instanceof Set ? sets : others).add(input);
+        }
+        Collection<T> smallest = inputs.get(0);
+        Set<T> result;
+        if (smallest.size() >= PARALLEL_THRESHOLD) {
+            result = smallest.parallelStream().filter(t -> containedInAll(t, sets))
+                    .collect(Collectors.toCollection(HashSet::new));
+        } else if (smallest instanceof Set) {
+            result = new HashSet<>();
+            for (T t : smallest) {
+                if (containedInAll(t, sets)) {
+                    result.add(t);
+                }
+            }
+        } else {
+            result = new HashSet<>(smallest);
+            result.removeIf(t -> !containedInAll(t, sets));
+        }
+
+        // lookups in other collections may be as slow as O(n), so walk through them instead
+        for (Collection<T> other : others) {
+            if (result.isEmpty()) {
+                break;
+            }
+            Set<T> matched = new HashSet<>();
+            for (T t : other) {
+                if (result.contains(t)) {
+                    matched.add(t);
+                }
+            }
+            result = matched;
+        }
+        return result;
+    }
+
+    /**
+     * @see Iterables#union(Iterable)
+     */
+    public static <T> Set<T> union(Iterable<? extends Iterable<T>> sequence) {
+        List<Iterable<T>> inputs = Iterables.list(sequence);
+        if (inputs.isEmpty()) {
+            error("Cannot unite an empty sequence of iterables");
+        }
+        Comparator<? super T> comparator = commonOrder(inputs);
+        if (comparator != null) {
+            return sortedUnion(inputs, comparator);
+        }
+
+        long expected = 0;
+        boolean collections = true;
+        for (Iterable<T> input : inputs) {
+            if (input instanceof Collection) {
+                expected += ((Collection<T>) input).size();
+            } else {
+                collections = false;
+            }
+        }
+        if (collections && expected >= PARALLEL_THRESHOLD) {
+            return parallelUnion(inputs, expected);
+        }
+
+        Set<T> result = new HashSet<>((int) Math.min(expected / .75f + 1, 1 << 30));
+        for (Iterable<T> input : inputs) {
+            if (input instanceof Collection) {
+                result.addAll((Collection<T>) input);
+            } else {
+                input.forEach(result::add);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T> parallelUnion(List<Iterable<T>> inputs, long expected) {
+        Set<Object> union = ConcurrentHashMap.newKeySet((int) Math.min(expected, Integer.MAX_VALUE));
+        inputs.parallelStream()
+                .flatMap(i -> ((Collection<T>) i).parallelStream())
+                .forEach(t -> union.add(t == null ? NULL : t));
+        Set<T> result = new HashSet<>((int) Math.min(union.size() / .75f + 1, 1 << 30));
+        for (Object t : union) {
+            result.add(t == NULL ? null : (T) t);
+        }
+        return result;
+    }
+
+    private static <T> boolean containedInAll(T t, List<Collection<T>> sets) {
+        for (Collection<T> set : sets) {
+            if (!set.contains(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ordering of the inputs if all of them are {@link SortedSet}s with the same ordering
+     * and null otherwise. Natural orderings are returned as {@link Comparator#naturalOrder()}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<? super T> commonOrder(List<? extends Iterable<T>> inputs) {
+        Comparator<? super T> result = null;
+        for (int i = 0; i < inputs.size(); ++i) {
+            if (!(inputs.get(i) instanceof SortedSet)) {
+                return null;
+            }
+            Comparator<? super T> comparator = ((SortedSet<T>) inputs.get(i)).comparator();
+            if (i > 0 && !Objects.equals(comparator, result)) {
+                return null;
+            }
+            result = comparator;
+        }
+        return result == null ? (Comparator<? super T>) Comparator.naturalOrder() : result;
+    }
+
+    private static <T> Set<T> sortedIntersection(List<Collection<T>> inputs,
+                                                 Comparator<? super T> comparator) {
+        List<T> result = new ArrayList<>(inputs.get(0));
+        for (Collection<T> input : inputs.subList(1, inputs.size())) {
+            if (result.isEmpty()) {
+                break;
+            }
+            if (input.size() / LOOKUP_RATIO > result.size() && input instanceof NavigableSet) {
+                // O(m log(n)) instead of O(m + n)
+                result.removeIf(t -> !input.contains(t));
+            } else {
+                result = merge(result, input, comparator);
+            }
+        }
+        return toTreeSet(result, comparator);
+    }
+
+    /**
+     * Returns the elements of a sorted list which are also in a sorted collection.
+     */
+    private static <T> List<T> merge(List<T> sorted,
+                                     Collection<T> other,
+                                     Comparator<? super T> comparator) {
+        List<T> result = new ArrayList<>(Math.min(sorted.size(), other.size()));
+        Iterator<T> it1 = sorted.iterator();
+        Iterator<T> it2 = other.iterator();
+        T t1 = it1.next();
+        T t2 = it2.next();
+        while (true) {
+            int cmp = comparator.compare(t1, t2);
+            if (cmp == 0) {
+                result.add(t1);
+            }
+            if (cmp <= 0) {
+                if (!it1.hasNext()) {
+                    break;
+                }
+                t1 = it1.next();
+            }
+            if (cmp >= 0) {
+                if (!it2.hasNext()) {
+                    break;
+                }
+                t2 = it2.next();
+            }
+        }
+        return result;
+    }
+
+    private static <T> Set<T> sortedUnion(List<Iterable<T>> inputs,
+                                          Comparator<? super T> comparator) {
+        // k-way merge with the current heads of all inputs
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(inputs.size(),
+                                                           (h1, h2) -> comparator
+                                                                   .compare(h1.value, h2.value));
+        int expected = 0;
+        for (Iterable<T> input : inputs) {
+            expected += ((SortedSet<T>) input).size();
+            Iterator<T> it = input.iterator();
+            if (it.hasNext()) {
+                heads.add(new Head<>(it));
+            }
+        }
+        List<T> result = new ArrayList<>(expected);
+        while (!heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            if (result.isEmpty()
+                || comparator.compare(result.get(result.size() - 1), head.value) != 0) {
+                result.add(head.value);
+            }
+            if (head.it.hasNext()) {
+                head.value = head.it.next();
+                heads.add(head);
+            }
+        }
+        return toTreeSet(result, comparator);
+    }
+
+    /**
+     * Creates a TreeSet from a sorted list without duplicates in linear time.
+     */
+    private static <T> TreeSet<T> toTreeSet(List<T> sorted, Comparator<? super T> comparator) {
+        Comparator<? super T> order = comparator == Comparator.naturalOrder() ? null : comparator;
+        return new TreeSet<>(new SortedListView<>(sorted, order));
+    }
+
+    private static class Head<T> {
+        private final Iterator<T> it;
+        private T value;
+
+        private Head(Iterator<T> it) {
+            this.it = it;
+            this.value = it.next();
+        }
+    }
+
+    /**
+     * A read-only {@link SortedSet} view on a sorted list without duplicates, which is used to
+     * build {@link TreeSet}s (these copy sorted sets in linear time). Lookups and subsets use
+     * binary search.
+     */
+    private static class SortedListView<T> extends AbstractSet<T> implements SortedSet<T> {
+        private final List<T> sorted;
+        private final Comparator<? super T> comparator;
+
+        private SortedListView(List<T> sorted, Comparator<? super T> comparator) {
+            this.sorted = sorted;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.unmodifiableList(sorted).iterator();
+        }
+
+        @Override
+        public int size() {
+            return sorted.size();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean contains(Object o) {
+            return Collections.binarySearch(sorted, (T) o, comparator) >= 0;
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public T first() {
+            if (sorted.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return sorted.get(0);
+        }
+
+        @Override
+        public T last() {
+            if (sorted.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return sorted.get(sorted.size() - 1);
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            int from = indexOf(fromElement);
+            int to = indexOf(toElement);
+            if (from > to) {
+                error("fromElement " + fromElement + " is greater than toElement " + toElement);
+            }
+            return new SortedListView<>(sorted.subList(from, to), comparator);
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return new SortedListView<>(sorted.subList(0, indexOf(toElement)), comparator);
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return new SortedListView<>(sorted.subList(indexOf(fromElement), sorted.size()),
+                                        comparator);
+        }
+
+        // the index of the first element which is not less than a given one
+        private int indexOf(T element) {
+            int index = Collections.binarySearch(sorted, element, comparator);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
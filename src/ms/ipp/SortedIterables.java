@@ -0,0 +1,348 @@
+package ms.ipp;
+
+import static ms.ipp.Algorithms.error;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.Spliterator;
+
+import ms.ipp.iterator.MergingIterator;
+
+/**
+ * Lazy operations on {@code Iterable}s which are already sorted, e.g., {@link SortedSet}s, values
+ * of sorted indexes or keys of {@link java.util.TreeMap TreeMap}s. Since equal elements are
+ * adjacent in sorted inputs, all operations run in one pass over their inputs and need O(1) extra
+ * memory (except for the k-way merge, which needs O(k)):
+ * <li>{@link #merge(Iterable, Comparator)} merges k sorted inputs,
+ * <li>{@link #dedupe(Iterable, Comparator)} removes adjacent duplicates,
+ * <li>{@link #intersection(Iterable, Iterable, Comparator)} and
+ * {@link #difference(Iterable, Iterable, Comparator)} walk through two inputs simultaneously,
+ * <li>{@link #range(Iterable, Object, boolean, Object, boolean, Comparator)} stops as soon as the
+ * end of the range has been reached, and uses {@link NavigableSet#subSet} for navigable sets.
+ *
+ * Every operation has an overload without a comparator, which detects the order of its inputs
+ * (see {@link #comparatorOf(Iterable)}) and throws an {@link IllegalArgumentException} if the
+ * inputs are not known to be sorted by a common order. Inputs which are not sorted by the given
+ * comparator produce undefined results.
+ *
+ * @author mykhailo.saienko
+ *
+ */
+public class SortedIterables {
+
+    private SortedIterables() {
+    }
+
+    /**
+     * Returns the order of a given {@code Iterable} if it is known to be sorted, i.e., if it is a
+     * {@link SortedSet} or if its {@link Spliterator} reports {@link Spliterator#SORTED}. The
+     * natural order is returned as {@link Comparator#naturalOrder()}.
+     *
+     * @param it the Iterable, not null
+     * @return the order or null if it is unknown
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Comparator<? super T> comparatorOf(Iterable<T> it) {
+        Comparator<? super T> result;
+        if (it instanceof SortedSet) {
+            result = ((SortedSet<T>) it).comparator();
+        } else {
+            Spliterator<T> sp = it.spliterator();
+            if (!sp.hasCharacteristics(Spliterator.SORTED)) {
+                return null;
+            }
+            result = sp.getComparator();
+        }
+        return result == null ? (Comparator<? super T>) Comparator.naturalOrder() : result;
+    }
+
+    /**
+     * Like {@link #merge(Iterable, Comparator)}, but detects the common order of the inputs.
+     */
+    public static <T> Iterable<T> merge(Iterable<? extends Iterable<T>> sorted) {
+        return merge(sorted, commonOrder(sorted));
+    }
+
+    /**
+     * Returns an {@code Iterable} which merges sorted Iterables into one sorted Iterable (k-way
+     * merge). Equal elements are returned in the order of the inputs.
+     *
+     * @param sorted     the sorted Iterables, not null
+     * @param comparator the order of all inputs, not null
+     * @return
+     * @see MergingIterator
+     */
+    public static <T> Iterable<T> merge(Iterable<? extends Iterable<? extends T>> sorted,
+                                        Comparator<? super T> comparator) {
+        Objects.requireNonNull(sorted);
+        Objects.requireNonNull(comparator);
+        return () -> {
+            List<Iterator<? extends T>> its = new ArrayList<>();
+            for (Iterable<? extends T> it : sorted) {
+                its.add(it.iterator());
+            }
+            return new MergingIterator<>(its, comparator);
+        };
+    }
+
+    /**
+     * Like {@link #dedupe(Iterable, Comparator)}, but detects the order of the input.
+     */
+    public static <T> Iterable<T> dedupe(Iterable<T> sorted) {
+        return dedupe(sorted, orderOf(sorted));
+    }
+
+    /**
+     * Returns an {@code Iterable} over a sorted Iterable without duplicates, i.e., the first of
+     * every run of elements which are equal with respect to the comparator.
+     *
+     * @param sorted     the sorted Iterable, not null
+     * @param comparator the order of the input, not null
+     * @return
+     */
+    public static <T> Iterable<T> dedupe(Iterable<T> sorted, Comparator<? super T> comparator) {
+        Objects.requireNonNull(sorted);
+        Objects.requireNonNull(comparator);
+        return () -> new LookaheadIterator<T>() {
+            private final Iterator<T> it = sorted.iterator();
+            private T previous;
+            private boolean first = true;
+
+            @Override
+            protected boolean advance() {
+                while (it.hasNext()) {
+                    T t = it.next();
+                    if (first || comparator.compare(previous, t) != 0) {
+                        first = false;
+                        previous = t;
+                        next = t;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Like {@link #intersection(Iterable, Iterable, Comparator)}, but detects the common order of
+     * the inputs.
+     */
+    public static <T> Iterable<T> intersection(Iterable<T> sorted, Iterable<T> other) {
+        return intersection(sorted, other, commonOrder(List.of(sorted, other)));
+    }
+
+    /**
+     * Returns an {@code Iterable} over those elements of a sorted Iterable, for which another
+     * Iterable sorted by the same order contains an equal element. Duplicates of the first
+     * Iterable are kept, see {@link #dedupe(Iterable, Comparator)}.
+     *
+     * @param sorted     the sorted Iterable, not null
+     * @param other      the Iterable to intersect with, not null
+     * @param comparator the order of both inputs, not null
+     * @return
+     */
+    public static <T> Iterable<T> intersection(Iterable<T> sorted,
+                                               Iterable<? extends T> other,
+                                               Comparator<? super T> comparator) {
+        return matching(sorted, other, comparator, true);
+    }
+
+    /**
+     * Like {@link #difference(Iterable, Iterable, Comparator)}, but detects the common order of
+     * the inputs.
+     */
+    public static <T> Iterable<T> difference(Iterable<T> sorted, Iterable<T> other) {
+        return difference(sorted, other, commonOrder(List.of(sorted, other)));
+    }
+
+    /**
+     * Returns an {@code Iterable} over those elements of a sorted Iterable, for which another
+     * Iterable sorted by the same order contains no equal element.
+     *
+     * @param sorted     the sorted Iterable, not null
+     * @param other      the Iterable to subtract, not null
+     * @param comparator the order of both inputs, not null
+     * @return
+     */
+    public static <T> Iterable<T> difference(Iterable<T> sorted,
+                                             Iterable<? extends T> other,
+                                             Comparator<? super T> comparator) {
+        return matching(sorted, other, comparator, false);
+    }
+
+    /**
+     * Like {@link #range(Iterable, Object, boolean, Object, boolean, Comparator)}, but detects the
+     * order of the input.
+     */
+    public static <T> Iterable<T> range(Iterable<T> sorted,
+                                        T from,
+                                        boolean fromInclusive,
+                                        T to,
+                                        boolean toInclusive) {
+        return range(sorted, from, fromInclusive, to, toInclusive, orderOf(sorted));
+    }
+
+    /**
+     * Returns an {@code Iterable} over the elements of a sorted Iterable between two bounds. The
+     * iteration skips the elements before the lower bound and stops at the first element after
+     * the upper bound. If the input is a {@link NavigableSet} with the same order, its
+     * {@link NavigableSet#subSet(Object, boolean, Object, boolean) subSet} is returned instead.
+     *
+     * @param sorted        the sorted Iterable, not null
+     * @param from          the lower bound, or null for none
+     * @param fromInclusive if true, elements equal to the lower bound are included
+     * @param to            the upper bound, or null for none
+     * @param toInclusive   if true, elements equal to the upper bound are included
+     * @param comparator    the order of the input, not null
+     * @return
+     */
+    public static <T> Iterable<T> range(Iterable<T> sorted,
+                                        T from,
+                                        boolean fromInclusive,
+                                        T to,
+                                        boolean toInclusive,
+                                        Comparator<? super T> comparator) {
+        Objects.requireNonNull(sorted);
+        Objects.requireNonNull(comparator);
+        if (from != null && to != null && comparator.compare(from, to) > 0) {
+            error("Lower bound " + from + " is greater than upper bound " + to);
+        }
+        if (sorted instanceof NavigableSet && comparator.equals(comparatorOf(sorted))) {
+            NavigableSet<T> set = (NavigableSet<T>) sorted;
+            if (from == null) {
+                return to == null ? set : set.headSet(to, toInclusive);
+            }
+            return to == null ? set.tailSet(from, fromInclusive)
+                    : set.subSet(from, fromInclusive, to, toInclusive);
+        }
+        return () -> new LookaheadIterator<T>() {
+            private final Iterator<T> it = sorted.iterator();
+            private boolean started = from == null;
+
+            @Override
+            protected boolean advance() {
+                while (it.hasNext()) {
+                    T t = it.next();
+                    if (!started) {
+                        int c = comparator.compare(t, from);
+                        if (c < 0 || c == 0 && !fromInclusive) {
+                            continue;
+                        }
+                        started = true;
+                    }
+                    if (to != null) {
+                        int c = comparator.compare(t, to);
+                        if (c > 0 || c == 0 && !toInclusive) {
+                            return false;
+                        }
+                    }
+                    next = t;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static <T> Iterable<T> matching(Iterable<T> sorted,
+                                            Iterable<? extends T> other,
+                                            Comparator<? super T> comparator,
+                                            boolean contained) {
+        Objects.requireNonNull(sorted);
+        Objects.requireNonNull(other);
+        Objects.requireNonNull(comparator);
+        return () -> new LookaheadIterator<T>() {
+            private final Iterator<T> it = sorted.iterator();
+            private final Iterator<? extends T> others = other.iterator();
+            private T current;
+            private boolean currentSet;
+
+            @Override
+            protected boolean advance() {
+                while (it.hasNext()) {
+                    T t = it.next();
+                    // skip the other elements which are smaller than t
+                    int c = currentSet ? comparator.compare(current, t) : -1;
+                    while (c < 0 && others.hasNext()) {
+                        current = others.next();
+                        currentSet = true;
+                        c = comparator.compare(current, t);
+                    }
+                    if (contained && c < 0) {
+                        // nothing left to intersect with
+                        return false;
+                    }
+                    if ((c == 0) == contained) {
+                        next = t;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    private static <T> Comparator<? super T> orderOf(Iterable<T> it) {
+        Comparator<? super T> result = comparatorOf(it);
+        if (result == null) {
+            error("The Iterable is not known to be sorted, a comparator must be given");
+        }
+        return result;
+    }
+
+    private static <T> Comparator<? super T> commonOrder(Iterable<? extends Iterable<T>> its) {
+        Comparator<? super T> result = null;
+        for (Iterable<T> it : its) {
+            Comparator<? super T> order = orderOf(it);
+            if (result == null) {
+                result = order;
+            } else if (!result.equals(order)) {
+                error("The Iterables are not sorted by a common order, a comparator must be given");
+            }
+        }
+        if (result == null) {
+            error("The order of no Iterables can not be detected, a comparator must be given");
+        }
+        return result;
+    }
+
+    /**
+     * An iterator which computes its next element in advance.
+     */
+    private abstract static class LookaheadIterator<T> implements Iterator<T> {
+        protected T next;
+        private boolean nextSet;
+
+        /**
+         * Stores the next element in {@link #next} and returns true, or returns false if there
+         * are no more elements.
+         */
+        protected abstract boolean advance();
+
+        @Override
+        public boolean hasNext() {
+            if (!nextSet) {
+                nextSet = advance();
+            }
+            return nextSet;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            nextSet = false;
+            T result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ms.ipp.base;
+
+import static ms.ipp.Iterables.isEqualOrNull;
+
+/**
+ * A pair of a primitive {@code int} key and a value, e.g., an element together with its index.
+ * Unlike {@link KeyValue}, the key is not boxed. Instances are mutable, so that one instance may be
+ * reused as a cursor in hot loops; use {@link #copy()} to retain an entry.
+ * 
+ * @author mykhailo.saienko
+ *
+ * @param <V>
+ */
+public class IntKeyValue<V> {
+    private int key;
+    private V value;
+
+    public IntKeyValue(int key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Sets both the key and the value.
+     * 
+     * @return this
+     */
+    public IntKeyValue<V> set(int key, V value) {
+        this.key = key;
+        this.value = value;
+        return this;
+    }
+
+    public IntKeyValue<V> copy() {
+        return new IntKeyValue<>(key, value);
+    }
+
+    /**
+     * Returns a (boxed) {@link KeyValue} with the same key and value.
+     */
+    public KeyValue<Integer, V> toKeyValue() {
+        return new KeyValue<>(key, value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(key) ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof IntKeyValue)) {
+            return false;
+        }
+        IntKeyValue<?> k = (IntKeyValue<?>) obj;
+        return key == k.key && isEqualOrNull(value, k.value);
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + value;
+    }
+}
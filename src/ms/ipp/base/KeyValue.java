@@ -48,6 +48,30 @@ public class KeyValue<T, V> implements Map.Entry<T, V> {
         this.value = value;
     }
 
+    /**
+     * Sets both the key and the value. Allows to reuse one instance as a cursor over many entries
+     * instead of allocating one per entry.
+     * 
+     * @param key
+     * @param value
+     * @return this
+     */
+    public KeyValue<T, V> set(T key, V value) {
+        this.key = key;
+        this.value = value;
+        return this;
+    }
+
+    /**
+     * Returns a new KeyValue with the same key and value, e.g., to retain an entry returned by a
+     * cursor.
+     * 
+     * @return
+     */
+    public KeyValue<T, V> copy() {
+        return new KeyValue<>(key, value);
+    }
+
     @Override
     public V setValue(V value) {
         return this.value = value;
@@ -0,0 +1,69 @@
+package ms.ipp.base;
+
+/**
+ * A pair of a primitive {@code long} key and a primitive {@code double} value, e.g., a point of a
+ * time series. Neither member is boxed. Instances are mutable, so that one instance may be reused
+ * as a cursor in hot loops; use {@link #copy()} to retain an entry.
+ * 
+ * @author mykhailo.saienko
+ *
+ */
+public class LongDoubleKeyValue {
+    private long key;
+    private double value;
+
+    public LongDoubleKeyValue(long key, double value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Sets both the key and the value.
+     * 
+     * @return this
+     */
+    public LongDoubleKeyValue set(long key, double value) {
+        this.key = key;
+        this.value = value;
+        return this;
+    }
+
+    public LongDoubleKeyValue copy() {
+        return new LongDoubleKeyValue(key, value);
+    }
+
+    /**
+     * Returns a (boxed) {@link KeyValue} with the same key and value.
+     */
+    public KeyValue<Long, Double> toKeyValue() {
+        return new KeyValue<>(key, value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key) ^ Double.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof LongDoubleKeyValue)) {
+            return false;
+        }
+        LongDoubleKeyValue k = (LongDoubleKeyValue) obj;
+        // like Double.equals, i.e., NaN equals NaN
+        return key == k.key && Double.compare(value, k.value) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + value;
+    }
+}
@@ -0,0 +1,71 @@
+package ms.ipp.base;
+
+import static ms.ipp.Iterables.isEqualOrNull;
+
+/**
+ * A pair of a primitive {@code long} key and a value, e.g., an element together with its
+ * timestamp. Unlike {@link KeyValue}, the key is not boxed. Instances are mutable, so that one
+ * instance may be reused as a cursor in hot loops; use {@link #copy()} to retain an entry.
+ * 
+ * @author mykhailo.saienko
+ *
+ * @param <V>
+ */
+public class LongKeyValue<V> {
+    private long key;
+    private V value;
+
+    public LongKeyValue(long key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    /**
+     * Sets both the key and the value.
+     * 
+     * @return this
+     */
+    public LongKeyValue<V> set(long key, V value) {
+        this.key = key;
+        this.value = value;
+        return this;
+    }
+
+    public LongKeyValue<V> copy() {
+        return new LongKeyValue<>(key, value);
+    }
+
+    /**
+     * Returns a (boxed) {@link KeyValue} with the same key and value.
+     */
+    public KeyValue<Long, V> toKeyValue() {
+        return new KeyValue<>(key, value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key) ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof LongKeyValue)) {
+            return false;
+        }
+        LongKeyValue<?> k = (LongKeyValue<?>) obj;
+        return key == k.key && isEqualOrNull(value, k.value);
+    }
+
+    @Override
+    public String toString() {
+        return key + ": " + value;
+    }
+}
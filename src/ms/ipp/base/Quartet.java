@@ -51,6 +51,26 @@ public class Quartet<T1, T2, T3, T4> {
 		this.t4 = t4;
 	}
 
+	/**
+	 * Sets all members at once, so that one instance may be reused as a cursor.
+	 * 
+	 * @return this
+	 */
+	public Quartet<T1, T2, T3, T4> set(T1 t1, T2 t2, T3 t3, T4 t4) {
+		this.t1 = t1;
+		this.t2 = t2;
+		this.t3 = t3;
+		this.t4 = t4;
+		return this;
+	}
+
+	/**
+	 * Returns a new Quartet with the same members.
+	 */
+	public Quartet<T1, T2, T3, T4> copy() {
+		return new Quartet<>(t1, t2, t3, t4);
+	}
+
 	@Override
 	public int hashCode() {
 		return (t1 == null ? 0 : t1.hashCode()) ^ (t2 == null ? 0 : t2.hashCode())
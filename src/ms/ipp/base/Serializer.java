@@ -0,0 +1,166 @@
+package ms.ipp.base;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+
+/**
+ * Writes values of a given type to a binary stream and reads them back, e.g., to spill elements to
+ * temporary files. Implementations must read exactly the bytes they have written.
+ * <br>
+ * The Serializers for strings and boxed primitives do not accept null values and throw a
+ * {@link NullPointerException} for them. Wrap them with {@link #nullable(Serializer)} if the values
+ * may be null.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public interface Serializer<T> {
+
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    static Serializer<String> strings() {
+        return new Serializer<>() {
+            @Override
+            public void write(String value, DataOutput out) throws IOException {
+                // writeUTF is limited to 64K bytes
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    static Serializer<Integer> ints() {
+        return new Serializer<>() {
+            @Override
+            public void write(Integer value, DataOutput out) throws IOException {
+                out.writeInt(value);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    static Serializer<Long> longs() {
+        return new Serializer<>() {
+            @Override
+            public void write(Long value, DataOutput out) throws IOException {
+                out.writeLong(value);
+            }
+
+            @Override
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    static Serializer<Double> doubles() {
+        return new Serializer<>() {
+            @Override
+            public void write(Double value, DataOutput out) throws IOException {
+                out.writeDouble(value);
+            }
+
+            @Override
+            public Double read(DataInput in) throws IOException {
+                return in.readDouble();
+            }
+        };
+    }
+
+    /**
+     * Returns a Serializer which accepts null values in addition to those of a given Serializer. A
+     * flag is written before every value.
+     *
+     * @param serializer the Serializer of the non-null values, not null
+     * @return
+     */
+    static <T> Serializer<T> nullable(Serializer<T> serializer) {
+        return new Serializer<>() {
+            @Override
+            public void write(T value, DataOutput out) throws IOException {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    serializer.write(value, out);
+                }
+            }
+
+            @Override
+            public T read(DataInput in) throws IOException {
+                return in.readBoolean() ? serializer.read(in) : null;
+            }
+        };
+    }
+
+    /**
+     * Returns a Serializer for pairs, which writes the key and then the value.
+     */
+    static <K, V> Serializer<Entry<K, V>> entries(Serializer<K> keys, Serializer<V> values) {
+        return new Serializer<>() {
+            @Override
+            public void write(Entry<K, V> value, DataOutput out) throws IOException {
+                keys.write(value.getKey(), out);
+                values.write(value.getValue(), out);
+            }
+
+            @Override
+            public Entry<K, V> read(DataInput in) throws IOException {
+                K key = keys.read(in);
+                return new KeyValue<>(key, values.read(in));
+            }
+        };
+    }
+
+    /**
+     * Returns a Serializer which uses Java serialization for every value. It works for all
+     * {@link Serializable} types and null, but is slow and verbose compared to dedicated
+     * Serializers.
+     */
+    static <T extends Serializable> Serializer<T> java() {
+        return new Serializer<>() {
+            @Override
+            public void write(T value, DataOutput out) throws IOException {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                    oos.writeObject(value);
+                }
+                out.writeInt(bytes.size());
+                out.write(bytes.toByteArray());
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T read(DataInput in) throws IOException {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (T) ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+    }
+}
@@ -70,6 +70,25 @@ public class Triplet<T1, T2, T3> {
         this.t3 = t3;
     }
 
+    /**
+     * Sets all members at once, so that one instance may be reused as a cursor.
+     * 
+     * @return this
+     */
+    public Triplet<T1, T2, T3> set(T1 t1, T2 t2, T3 t3) {
+        this.t1 = t1;
+        this.t2 = t2;
+        this.t3 = t3;
+        return this;
+    }
+
+    /**
+     * Returns a new Triplet with the same members.
+     */
+    public Triplet<T1, T2, T3> copy() {
+        return new Triplet<>(t1, t2, t3);
+    }
+
     @Override
     public int hashCode() {
         return (t1 == null ? 0 : t1.hashCode()) ^ (t2 == null ? 0 : t2.hashCode())
@@ -1,9 +1,11 @@
 package ms.ipp.iterable;
 
 import java.util.Map;
+import java.util.Spliterator;
 
 import ms.ipp.Iterables;
 import ms.ipp.iterable.tree.Tree;
+import ms.ipp.iterator.BatchSpliterator;
 
 /**
  * A "convenience" interface for {@code Iterable<Map.Entry<T, U>>}. Introduced
@@ -21,4 +23,12 @@ import ms.ipp.iterable.tree.Tree;
  */
 public interface BiIterable<T, U> extends Iterable<Map.Entry<T, U>> {
 
+	/**
+	 * Returns a {@link BatchSpliterator} over the iterator, so that parallel
+	 * streams over trees split into reasonably sized batches.
+	 */
+	@Override
+	default Spliterator<Map.Entry<T, U>> spliterator() {
+		return new BatchSpliterator<>(iterator(), 0);
+	}
 }
@@ -0,0 +1,283 @@
+package ms.ipp.iterable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import ms.ipp.base.Serializer;
+
+/**
+ * An {@code Iterable<T>} which iterates its source at most once and replays
+ * the elements to all its iterators. The source is iterated lazily, i.e., only
+ * as far as the most advanced iterator has come, and the elements are appended
+ * to a buffer of fixed-size chunks which is never copied. Iterators may be used
+ * by different threads concurrently: the source is advanced by one of them at a
+ * time, while all others read the buffer without locking.
+ * <br>
+ * By default, all elements are held in memory. If a spill is set, only the
+ * first {@code maxInMemory} elements are, while all further ones are written
+ * to a temporary file by a {@link Serializer} and read back by every iterator
+ * on its own. In this case, the source is advanced in batches of
+ * {@value #CHUNK_SIZE} elements, and the file is deleted by {@link #close()}.
+ * Once closed, the source is not advanced any more.
+ * <br>
+ * Iterators do not support removal, since the elements are shared.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public class CachedIterable<T> implements Iterable<T>, AutoCloseable {
+	public static final int CHUNK_SIZE = 256;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Iterable<T> source;
+	private long maxInMemory = Long.MAX_VALUE;
+	private Serializer<T> serializer;
+	private Path directory;
+
+	// guarded by this
+	private Iterator<T> sourceIt;
+	private Path file;
+	private DataOutputStream out;
+
+	// published by writing size
+	private volatile Object[][] chunks = new Object[4][];
+	private volatile long size;
+	private volatile boolean exhausted;
+	private volatile boolean closed;
+
+	/**
+	 * Creates an instance of {@code CachedIterable<T>}.
+	 *
+	 * @param source the original Iterable, not null. Iterated at most once
+	 */
+	public CachedIterable(Iterable<T> source) {
+		this.source = Objects.requireNonNull(source);
+	}
+
+	/**
+	 * Sets the spill, i.e., the number of elements held in memory and the
+	 * serializer of all further elements. Can only be called before the first
+	 * iteration.
+	 *
+	 * @param maxInMemory non-negative
+	 * @param serializer  writes and reads the spilled elements, not null
+	 * @return
+	 */
+	public synchronized CachedIterable<T> setSpill(long maxInMemory, Serializer<T> serializer) {
+		if (maxInMemory < 0) {
+			throw new IllegalArgumentException("Maximal number of elements in memory must be non-negative but is "
+					+ maxInMemory);
+		}
+		checkNotStarted();
+		this.maxInMemory = maxInMemory;
+		this.serializer = Objects.requireNonNull(serializer);
+		return this;
+	}
+
+	/**
+	 * Sets the directory of the spill file. Defaults to the system's temporary
+	 * directory.
+	 *
+	 * @param directory an existing directory, or null for the default
+	 * @return
+	 */
+	public synchronized CachedIterable<T> setDirectory(Path directory) {
+		checkNotStarted();
+		this.directory = directory;
+		return this;
+	}
+
+	/**
+	 * Returns the number of elements cached so far.
+	 */
+	public long cachedSize() {
+		return size;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		checkNotClosed();
+		return new CachedIterator();
+	}
+
+	/**
+	 * Deletes the spill file, if any, and stops caching. Afterwards, no new
+	 * iterators can be created, and existing iterators fail with an
+	 * {@link IllegalStateException} when they need an element which has not been
+	 * cached yet or which has been spilled but not opened by them yet. The
+	 * elements held in memory stay available to existing iterators.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// the file is deleted anyway
+			}
+			out = null;
+		}
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void checkNotClosed() {
+		if (closed) {
+			throw new IllegalStateException("The CachedIterable has been closed");
+		}
+	}
+
+	private void checkNotStarted() {
+		if (sourceIt != null) {
+			throw new IllegalStateException("The iteration has already started");
+		}
+	}
+
+	/**
+	 * Returns true if the element with a given index is cached, advancing the
+	 * source if necessary.
+	 */
+	private boolean ensure(long index) {
+		if (index < size) {
+			return true;
+		}
+		if (exhausted) {
+			return false;
+		}
+		synchronized (this) {
+			long n = size;
+			if (index < n) {
+				return true;
+			}
+			checkNotClosed();
+			if (sourceIt == null) {
+				sourceIt = source.iterator();
+			}
+			// spilled elements are advanced in batches to flush less often
+			long target = index < maxInMemory ? index + 1 : Math.max(index + 1, n + CHUNK_SIZE);
+			try {
+				while (n < target && sourceIt.hasNext()) {
+					append(n++, sourceIt.next());
+				}
+				if (out != null) {
+					out.flush();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				if (n > size) {
+					size = n;
+				}
+			}
+			if (n < target) {
+				exhausted = true;
+				if (out != null) {
+					try {
+						out.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					out = null;
+				}
+			}
+			return index < n;
+		}
+	}
+
+	private void append(long index, T t) throws IOException {
+		if (index >= maxInMemory) {
+			if (out == null) {
+				file = directory == null ? Files.createTempFile("ipp-cache", ".spill")
+						: Files.createTempFile(directory, "ipp-cache", ".spill");
+				out = new DataOutputStream(new BufferedOutputStream(
+						Channels.newOutputStream(FileChannel.open(file, StandardOpenOption.WRITE)), BUFFER_SIZE));
+			}
+			serializer.write(t, out);
+			return;
+		}
+		int chunk = (int) (index / CHUNK_SIZE);
+		Object[][] cs = chunks;
+		if (chunk == cs.length) {
+			Object[][] grown = new Object[cs.length * 2][];
+			System.arraycopy(cs, 0, grown, 0, cs.length);
+			cs = grown;
+			chunks = cs;
+		}
+		if (cs[chunk] == null) {
+			cs[chunk] = new Object[CHUNK_SIZE];
+		}
+		cs[chunk][(int) (index % CHUNK_SIZE)] = t;
+	}
+
+	private class CachedIterator implements Iterator<T>, AutoCloseable {
+		private long index;
+		private DataInputStream in;
+
+		@Override
+		public boolean hasNext() {
+			boolean result = ensure(index);
+			if (!result) {
+				close();
+			}
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			long i = index++;
+			if (i < maxInMemory) {
+				return (T) chunks[(int) (i / CHUNK_SIZE)][(int) (i % CHUNK_SIZE)];
+			}
+			try {
+				if (in == null) {
+					checkNotClosed();
+					in = new DataInputStream(new BufferedInputStream(
+							Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)), BUFFER_SIZE));
+				}
+				return serializer.read(in);
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Closes the spill file of this iterator, if it is open.
+		 */
+		@Override
+		public void close() {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// nothing to do
+				}
+				in = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package ms.ipp.iterable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An {@code Iterable<Double>} whose iterators provide unboxed values. All
+ * operations and terminals of this interface work on primitive values only, so
+ * pipelines built from them do not allocate per element (unless the boxed
+ * {@link Iterator#next()} is called).
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@FunctionalInterface
+public interface DoubleIterable extends Iterable<Double> {
+
+	@Override
+	PrimitiveIterator.OfDouble iterator();
+
+	/**
+	 * Returns a DoubleIterable over a given array (which is not copied). Its
+	 * spliterator knows the exact size, so that streams over it split evenly.
+	 */
+	static DoubleIterable of(double... values) {
+		return new DoubleIterable() {
+			@Override
+			public PrimitiveIterator.OfDouble iterator() {
+				return Spliterators.iterator(spliterator());
+			}
+
+			@Override
+			public Spliterator.OfDouble spliterator() {
+				return Arrays.spliterator(values);
+			}
+
+			@Override
+			public long count() {
+				return values.length;
+			}
+		};
+	}
+
+	/**
+	 * Returns a DoubleIterable over the values of a stream created anew for every
+	 * iterator.
+	 */
+	static DoubleIterable of(Supplier<DoubleStream> streams) {
+		return () -> streams.get().iterator();
+	}
+
+	/**
+	 * Returns a DoubleIterable which converts every element of a given Iterable.
+	 * Removing values removes the corresponding element from the source.
+	 */
+	static <T> DoubleIterable of(Iterable<T> source, ToDoubleFunction<? super T> mapper) {
+		return () -> new PrimitiveIterator.OfDouble() {
+			private final Iterator<T> it = source.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public double nextDouble() {
+				return mapper.applyAsDouble(it.next());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	/**
+	 * Returns a DoubleIterable which concatenates the values of the
+	 * DoubleIterables created for every element of a given Iterable (in the manner
+	 * of {@link ms.ipp.iterator.NestedIterator NestedIterator}).
+	 */
+	static <T> DoubleIterable flatten(Iterable<T> source,
+			Function<? super T, ? extends DoubleIterable> children) {
+		return () -> new PrimitiveIterator.OfDouble() {
+			private final Iterator<T> outer = source.iterator();
+			private PrimitiveIterator.OfDouble inner = Spliterators
+					.iterator(Spliterators.emptyDoubleSpliterator());
+
+			@Override
+			public boolean hasNext() {
+				while (!inner.hasNext()) {
+					if (!outer.hasNext()) {
+						return false;
+					}
+					inner = children.apply(outer.next()).iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public double nextDouble() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return inner.nextDouble();
+			}
+		};
+	}
+
+	/**
+	 * Performs a given action for every value. Is not called {@code forEach} to
+	 * avoid ambiguities with {@link Iterable#forEach(java.util.function.Consumer)}
+	 * for lambdas.
+	 */
+	default void forEachDouble(DoubleConsumer action) {
+		iterator().forEachRemaining(action);
+	}
+
+	default DoubleIterable mapped(DoubleUnaryOperator mapper) {
+		return () -> new PrimitiveIterator.OfDouble() {
+			private final PrimitiveIterator.OfDouble it = DoubleIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public double nextDouble() {
+				return mapper.applyAsDouble(it.nextDouble());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default <R> Iterable<R> mappedToObj(DoubleFunction<R> mapper) {
+		return () -> new Iterator<R>() {
+			private final PrimitiveIterator.OfDouble it = DoubleIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public R next() {
+				return mapper.apply(it.nextDouble());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default DoubleIterable filtered(DoublePredicate filter) {
+		return () -> new PrimitiveIterator.OfDouble() {
+			private final PrimitiveIterator.OfDouble it = DoubleIterable.this.iterator();
+			private double next;
+			private boolean hasNext;
+
+			@Override
+			public boolean hasNext() {
+				while (!hasNext && it.hasNext()) {
+					next = it.nextDouble();
+					hasNext = filter.test(next);
+				}
+				return hasNext;
+			}
+
+			@Override
+			public double nextDouble() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				hasNext = false;
+				return next;
+			}
+		};
+	}
+
+	/**
+	 * Returns the sum of all values using compensated (Kahan) summation, like
+	 * {@link DoubleStream#sum()}. Infinite values yield an infinite sum (or NaN if both infinities
+	 * occur).
+	 */
+	default double sum() {
+		double sum = 0;
+		double compensation = 0;
+		double simpleSum = 0;
+		for (var it = iterator(); it.hasNext();) {
+			double value = it.nextDouble();
+			double y = value - compensation;
+			double t = sum + y;
+			compensation = (t - sum) - y;
+			sum = t;
+			simpleSum += value;
+		}
+		return finalSum(sum, simpleSum);
+	}
+
+	default OptionalDouble min() {
+		var it = iterator();
+		if (!it.hasNext()) {
+			return OptionalDouble.empty();
+		}
+		double result = it.nextDouble();
+		while (it.hasNext()) {
+			result = Math.min(result, it.nextDouble());
+		}
+		return OptionalDouble.of(result);
+	}
+
+	default OptionalDouble max() {
+		var it = iterator();
+		if (!it.hasNext()) {
+			return OptionalDouble.empty();
+		}
+		double result = it.nextDouble();
+		while (it.hasNext()) {
+			result = Math.max(result, it.nextDouble());
+		}
+		return OptionalDouble.of(result);
+	}
+
+	default OptionalDouble ave() {
+		long count = 0;
+		double sum = 0;
+		double compensation = 0;
+		double simpleSum = 0;
+		for (var it = iterator(); it.hasNext(); ++count) {
+			double value = it.nextDouble();
+			double y = value - compensation;
+			double t = sum + y;
+			compensation = (t - sum) - y;
+			sum = t;
+			simpleSum += value;
+		}
+		return count == 0 ? OptionalDouble.empty()
+				: OptionalDouble.of(finalSum(sum, simpleSum) / count);
+	}
+
+	default long count() {
+		long count = 0;
+		for (var it = iterator(); it.hasNext(); it.nextDouble()) {
+			count++;
+		}
+		return count;
+	}
+
+	default double[] toArray() {
+		return stream().toArray();
+	}
+
+	@Override
+	default Spliterator.OfDouble spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+	}
+
+	default DoubleStream stream() {
+		return StreamSupport.doubleStream(spliterator(), false);
+	}
+
+	/**
+	 * The compensation turns infinite sums into NaN, in which case the simple sum is correct.
+	 */
+	private static double finalSum(double sum, double simpleSum) {
+		return Double.isNaN(sum) && Double.isInfinite(simpleSum) ? simpleSum : sum;
+	}
+}
@@ -29,6 +29,7 @@ public class FilteredIterable<T> implements Iterable<T> {
 
 	private Supplier<Predicate<? super T>> filter;
 	private Supplier<Consumer<? super T>> onDelete;
+	private boolean splittable = true;
 
 	public FilteredIterable(Iterable<T> source) {
 		this.source = source;
@@ -50,6 +51,18 @@ public class FilteredIterable<T> implements Iterable<T> {
 		return this;
 	}
 
+	/**
+	 * Sets whether the {@link Spliterator} may be split. Must be false if the
+	 * filter is not thread-safe, since all splits share one filter.
+	 * 
+	 * @param splittable true by default
+	 * @return
+	 */
+	public FilteredIterable<T> setSplittable(boolean splittable) {
+		this.splittable = splittable;
+		return this;
+	}
+
 	/**
 	 * Sets the onDelete-hook supplier.
 	 * 
@@ -71,6 +84,22 @@ public class FilteredIterable<T> implements Iterable<T> {
 		return setOnDelete(() -> onDelete);
 	}
 
+	Iterable<T> getSource() {
+		return source;
+	}
+
+	Supplier<Predicate<? super T>> getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Returns true if this Iterable only filters, i.e., it has a filter but no
+	 * onDelete-hook.
+	 */
+	boolean isPureFilter() {
+		return source != null && filter != null && onDelete == null;
+	}
+
 	/**
 	 * If the filter is not null, returns a {@link FilteredIterator} with the
 	 * filter. Additionally, decorates the resulting iterator with the the
@@ -103,7 +132,7 @@ public class FilteredIterable<T> implements Iterable<T> {
 		}
 		Spliterator<T> sp = source.spliterator();
 		if (filter != null) {
-			sp = new FilteredSpliterator<>(sp, filter.get());
+			sp = new FilteredSpliterator<>(sp, filter.get()).setSplittable(splittable);
 		}
 		return sp;
 	}
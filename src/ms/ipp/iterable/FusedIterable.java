@@ -0,0 +1,407 @@
+package ms.ipp.iterable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import ms.ipp.iterator.BatchIterator;
+
+/**
+ * A chain of mapping and filtering stages over an {@code Iterable} which is
+ * executed by a single iterator. Consecutive mappers are composed into one
+ * function and consecutive filters into one predicate, so a chain of
+ * {@code mapped}/{@code filtered}/{@code distinct} calls costs one loop with
+ * one call per alternation of mapping and filtering instead of one decorating
+ * iterator (and one {@code hasNext}/{@code next} hop) per stage.
+ * <br>
+ * Like {@link FilteredIterable}, filters are given as suppliers, so that every
+ * iterator gets its own copy of stateful filters. {@code remove()} is supported
+ * under the same conditions as in {@link ms.ipp.iterator.FilteredIterator
+ * FilteredIterator}.
+ * <br>
+ * A filter is considered stateless if its supplier returns the same instance
+ * twice, e.g., {@code () -> pred}. The {@code Spliterator} only splits if all
+ * filters are stateless, since the splits of a parallel stream would otherwise
+ * update the state of one filter concurrently (or, with one filter per split,
+ * miss the elements seen by other splits).
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T> the type of the elements after all stages
+ */
+public class FusedIterable<T> implements Iterable<T> {
+	// marks elements rejected by a filter
+	private static final Object REJECTED = new Object();
+
+	private final Iterable<?> source;
+	// every stage is either a Function<Object, Object> or a
+	// Supplier<Predicate<Object>>. Consecutive stages are never of the same kind.
+	private final List<Object> stages;
+	private final List<Boolean> isFilter;
+
+	private FusedIterable(Iterable<?> source, List<Object> stages, List<Boolean> isFilter) {
+		this.source = source;
+		this.stages = stages;
+		this.isFilter = isFilter;
+	}
+
+	/**
+	 * Returns true if a given {@code Iterable} is a {@link MappedIterable}, a
+	 * {@link FilteredIterable} without an onDelete-hook or a
+	 * {@code FusedIterable}, i.e., if it can be fused with further stages.
+	 */
+	public static boolean isFusable(Iterable<?> it) {
+		return it instanceof FusedIterable || it instanceof MappedIterable
+				|| it instanceof FilteredIterable && ((FilteredIterable<?>) it).isPureFilter();
+	}
+
+	/**
+	 * Returns a {@code FusedIterable} equivalent to a given {@code Iterable}. If
+	 * the latter is fusable (see {@link #isFusable(Iterable)}), its stages are
+	 * taken over, otherwise it becomes the source of a chain without stages.
+	 *
+	 * @param it the Iterable, not null
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> FusedIterable<T> of(Iterable<T> it) {
+		if (it instanceof FusedIterable) {
+			return (FusedIterable<T>) it;
+		} else if (it instanceof MappedIterable) {
+			MappedIterable<?, T> mapped = (MappedIterable<?, T>) it;
+			return of(mapped.getSource()).mapped((Function<Object, T>) mapped.getMapper());
+		} else if (it instanceof FilteredIterable && ((FilteredIterable<T>) it).isPureFilter()) {
+			FilteredIterable<T> filtered = (FilteredIterable<T>) it;
+			return of(filtered.getSource()).filtered(filtered.getFilter());
+		}
+		return new FusedIterable<>(it, new ArrayList<>(), new ArrayList<>());
+	}
+
+	/**
+	 * Returns a new {@code FusedIterable} with an additional mapping stage.
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> FusedIterable<R> mapped(Function<? super T, R> mapper) {
+		var next = (Function<Object, Object>) mapper;
+		return add(false, next, f -> ((Function<Object, Object>) f).andThen(next));
+	}
+
+	/**
+	 * Returns a new {@code FusedIterable} with an additional filtering stage.
+	 *
+	 * @param filter supplies a filter for every new iterator
+	 */
+	@SuppressWarnings("unchecked")
+	public FusedIterable<T> filtered(Supplier<? extends Predicate<? super T>> filter) {
+		var next = (Supplier<Predicate<Object>>) filter;
+		return add(true, next, f -> new MergedFilter((Supplier<Predicate<Object>>) f, next));
+	}
+
+	/**
+	 * Returns the number of fused stages.
+	 */
+	public int stageCount() {
+		return stages.size();
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new FusedIterator();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Spliterator<T> spliterator() {
+		boolean splittable = true;
+		for (int i = 0; i < stages.size() && splittable; ++i) {
+			splittable = !isFilter.get(i) || isStateless((Supplier<Predicate<Object>>) stages.get(i));
+		}
+		return new FusedSpliterator(source.spliterator(), new Pipeline(), splittable);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void forEach(Consumer<? super T> action) {
+		Pipeline pipeline = new Pipeline();
+		for (Object element : source) {
+			Object value = pipeline.apply(element);
+			if (value != REJECTED) {
+				action.accept((T) value);
+			}
+		}
+	}
+
+	private <R> FusedIterable<R> add(boolean filter,
+			Object stage,
+			Function<Object, Object> merge) {
+		List<Object> newStages = new ArrayList<>(stages);
+		List<Boolean> newIsFilter = new ArrayList<>(isFilter);
+		int last = newStages.size() - 1;
+		if (last >= 0 && newIsFilter.get(last) == filter) {
+			newStages.set(last, merge.apply(newStages.get(last)));
+		} else {
+			newStages.add(stage);
+			newIsFilter.add(filter);
+		}
+		return new FusedIterable<>(source, newStages, newIsFilter);
+	}
+
+	private static boolean isStateless(Supplier<Predicate<Object>> filter) {
+		if (filter instanceof MergedFilter) {
+			MergedFilter merged = (MergedFilter) filter;
+			return isStateless(merged.first) && isStateless(merged.second);
+		}
+		return filter.get() == filter.get();
+	}
+
+	/**
+	 * Two consecutive filters, which are kept apart to tell whether they are
+	 * stateless.
+	 */
+	private static class MergedFilter implements Supplier<Predicate<Object>> {
+		private final Supplier<Predicate<Object>> first;
+		private final Supplier<Predicate<Object>> second;
+
+		private MergedFilter(Supplier<Predicate<Object>> first, Supplier<Predicate<Object>> second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public Predicate<Object> get() {
+			Predicate<Object> p1 = first.get();
+			Predicate<Object> p2 = second.get();
+			return t -> p1.test(t) && p2.test(t);
+		}
+	}
+
+	/**
+	 * The stages of one iterator (or of one spliterator and all its splits) with
+	 * instantiated filters.
+	 */
+	private class Pipeline {
+		private final Object[] ops;
+		private final boolean[] filters;
+
+		@SuppressWarnings("unchecked")
+		private Pipeline() {
+			ops = new Object[stages.size()];
+			filters = new boolean[ops.length];
+			for (int i = 0; i < ops.length; ++i) {
+				filters[i] = isFilter.get(i);
+				ops[i] = filters[i] ? ((Supplier<Predicate<Object>>) stages.get(i)).get() : stages.get(i);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private Object apply(Object value) {
+			for (int i = 0; i < ops.length; ++i) {
+				if (filters[i]) {
+					if (!((Predicate<Object>) ops[i]).test(value)) {
+						return REJECTED;
+					}
+				} else {
+					value = ((Function<Object, Object>) ops[i]).apply(value);
+				}
+			}
+			return value;
+		}
+
+		private boolean hasFilters() {
+			for (boolean filter : filters) {
+				if (filter) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private class FusedIterator implements BatchIterator<T> {
+		private final Iterator<?> it = source.iterator();
+		private final Pipeline pipeline = new Pipeline();
+		private Object next;
+		private boolean nextSet;
+		private boolean batched;
+
+		@Override
+		public boolean hasNext() {
+			while (!nextSet && it.hasNext()) {
+				next = pipeline.apply(it.next());
+				nextSet = next != REJECTED;
+			}
+			return nextSet;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			nextSet = false;
+			batched = false;
+			return (T) next;
+		}
+
+		/**
+		 * Removes the last element returned by this iterator from the source. Can only
+		 * be called after {@code next()} but not after {@code hasNext()} or
+		 * {@code nextBatch()}.
+		 */
+		@Override
+		public void remove() {
+			if (batched) {
+				throw new IllegalStateException("remove() is not supported after nextBatch()");
+			}
+			if (nextSet) {
+				throw new IllegalStateException("remove() can only be called after next() and before hasNext()");
+			}
+			it.remove();
+		}
+
+		/**
+		 * Fetches batches from the source and runs them through the pipeline in place.
+		 */
+		@Override
+		public int nextBatch(Object[] buffer, int offset, int length) {
+			batched = true;
+			int n = 0;
+			if (nextSet && length > 0) {
+				buffer[offset] = next;
+				nextSet = false;
+				n = 1;
+			}
+			while (n < length) {
+				int end = offset + n;
+				int requested = length - n;
+				int fetched = BatchIterator.nextBatch(it, buffer, end, requested);
+				for (int i = end; i < end + fetched; ++i) {
+					Object value = pipeline.apply(buffer[i]);
+					if (value != REJECTED) {
+						buffer[offset + n++] = value;
+					}
+				}
+				if (fetched < requested) {
+					// the source is exhausted, drop the references to rejected elements
+					for (int i = offset + n; i < end + fetched; ++i) {
+						buffer[i] = null;
+					}
+					break;
+				}
+			}
+			return n;
+		}
+	}
+
+	private class FusedSpliterator implements Spliterator<T>, Consumer<Object> {
+		private final Spliterator<?> sp;
+		// shared with all splits, which is only done if all filters are stateless
+		private final Pipeline pipeline;
+		private final boolean splittable;
+		private Object value;
+
+		// the number of elements tested and accepted so far (by this spliterator and
+		// the ones it has been split from), used to estimate the size.
+		private long tested;
+		private long accepted;
+
+		private FusedSpliterator(Spliterator<?> sp, Pipeline pipeline, boolean splittable) {
+			this.sp = sp;
+			this.pipeline = pipeline;
+			this.splittable = splittable;
+		}
+
+		@Override
+		public void accept(Object t) {
+			value = pipeline.apply(t);
+			tested++;
+			if (value != REJECTED) {
+				accepted++;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			value = REJECTED;
+			while (value == REJECTED && sp.tryAdvance(this)) {
+				// continue
+			}
+			if (value == REJECTED) {
+				return false;
+			}
+			Object result = value;
+			value = null;
+			action.accept((T) result);
+			return true;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			sp.forEachRemaining(t -> {
+				Object result = pipeline.apply(t);
+				tested++;
+				if (result != REJECTED) {
+					accepted++;
+					action.accept((T) result);
+				}
+			});
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (!splittable) {
+				return null;
+			}
+			Spliterator<?> split = sp.trySplit();
+			if (split == null) {
+				return null;
+			}
+			FusedSpliterator result = new FusedSpliterator(split, pipeline, true);
+			result.tested = tested;
+			result.accepted = accepted;
+			return result;
+		}
+
+		/**
+		 * Returns the size of the source scaled by the ratio of elements which have
+		 * passed the filters so far, like {@link ms.ipp.iterator.FilteredSpliterator
+		 * FilteredSpliterator}.
+		 */
+		@Override
+		public long estimateSize() {
+			long size = sp.estimateSize();
+			if (tested == 0 || size == Long.MAX_VALUE) {
+				return size;
+			}
+			return (long) Math.ceil(size * ((double) accepted / tested));
+		}
+
+		@Override
+		public int characteristics() {
+			int result = sp.characteristics();
+			if (pipeline.hasFilters()) {
+				result &= ~(SIZED | SUBSIZED);
+			}
+			if (isFilter.contains(false)) {
+				result &= ~(SORTED | DISTINCT | NONNULL);
+			}
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Comparator<? super T> getComparator() {
+			return (Comparator<? super T>) sp.getComparator();
+		}
+	}
+}
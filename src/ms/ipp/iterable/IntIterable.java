@@ -0,0 +1,291 @@
+package ms.ipp.iterable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An {@code Iterable<Integer>} whose iterators provide unboxed values. All
+ * operations and terminals of this interface work on primitive values only, so
+ * pipelines built from them do not allocate per element (unless the boxed
+ * {@link Iterator#next()} is called).
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@FunctionalInterface
+public interface IntIterable extends Iterable<Integer> {
+
+	@Override
+	PrimitiveIterator.OfInt iterator();
+
+	/**
+	 * Returns an IntIterable over a given array (which is not copied). Its
+	 * spliterator knows the exact size, so that streams over it split evenly.
+	 */
+	static IntIterable of(int... values) {
+		return new IntIterable() {
+			@Override
+			public PrimitiveIterator.OfInt iterator() {
+				return Spliterators.iterator(spliterator());
+			}
+
+			@Override
+			public Spliterator.OfInt spliterator() {
+				return Arrays.spliterator(values);
+			}
+
+			@Override
+			public long count() {
+				return values.length;
+			}
+		};
+	}
+
+	/**
+	 * Returns an IntIterable over the values of a stream created anew for every
+	 * iterator.
+	 */
+	static IntIterable of(Supplier<IntStream> streams) {
+		return () -> streams.get().iterator();
+	}
+
+	/**
+	 * Returns an IntIterable which converts every element of a given Iterable.
+	 * Removing values removes the corresponding element from the source.
+	 */
+	static <T> IntIterable of(Iterable<T> source, ToIntFunction<? super T> mapper) {
+		return () -> new PrimitiveIterator.OfInt() {
+			private final Iterator<T> it = source.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public int nextInt() {
+				return mapper.applyAsInt(it.next());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	/**
+	 * Returns an IntIterable which concatenates the values of the
+	 * IntIterables created for every element of a given Iterable (in the manner
+	 * of {@link ms.ipp.iterator.NestedIterator NestedIterator}).
+	 */
+	static <T> IntIterable flatten(Iterable<T> source,
+			Function<? super T, ? extends IntIterable> children) {
+		return () -> new PrimitiveIterator.OfInt() {
+			private final Iterator<T> outer = source.iterator();
+			private PrimitiveIterator.OfInt inner = Spliterators
+					.iterator(Spliterators.emptyIntSpliterator());
+
+			@Override
+			public boolean hasNext() {
+				while (!inner.hasNext()) {
+					if (!outer.hasNext()) {
+						return false;
+					}
+					inner = children.apply(outer.next()).iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return inner.nextInt();
+			}
+		};
+	}
+
+	/**
+	 * Performs a given action for every value. Is not called {@code forEach} to
+	 * avoid ambiguities with {@link Iterable#forEach(java.util.function.Consumer)}
+	 * for lambdas.
+	 */
+	default void forEachInt(IntConsumer action) {
+		iterator().forEachRemaining(action);
+	}
+
+	default IntIterable mapped(IntUnaryOperator mapper) {
+		return () -> new PrimitiveIterator.OfInt() {
+			private final PrimitiveIterator.OfInt it = IntIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public int nextInt() {
+				return mapper.applyAsInt(it.nextInt());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default <R> Iterable<R> mappedToObj(IntFunction<R> mapper) {
+		return () -> new Iterator<R>() {
+			private final PrimitiveIterator.OfInt it = IntIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public R next() {
+				return mapper.apply(it.nextInt());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default IntIterable filtered(IntPredicate filter) {
+		return () -> new PrimitiveIterator.OfInt() {
+			private final PrimitiveIterator.OfInt it = IntIterable.this.iterator();
+			private int next;
+			private boolean hasNext;
+
+			@Override
+			public boolean hasNext() {
+				while (!hasNext && it.hasNext()) {
+					next = it.nextInt();
+					hasNext = filter.test(next);
+				}
+				return hasNext;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				hasNext = false;
+				return next;
+			}
+		};
+	}
+
+	/**
+	 * Returns the sum of all values. Unlike {@link IntStream#sum()}, the sum is
+	 * computed as a long, so it does not overflow for ints.
+	 */
+	default long sum() {
+		long sum = 0;
+		for (var it = iterator(); it.hasNext();) {
+			sum += it.nextInt();
+		}
+		return sum;
+	}
+
+	default OptionalInt min() {
+		var it = iterator();
+		if (!it.hasNext()) {
+			return OptionalInt.empty();
+		}
+		int result = it.nextInt();
+		while (it.hasNext()) {
+			result = Math.min(result, it.nextInt());
+		}
+		return OptionalInt.of(result);
+	}
+
+	default OptionalInt max() {
+		var it = iterator();
+		if (!it.hasNext()) {
+			return OptionalInt.empty();
+		}
+		int result = it.nextInt();
+		while (it.hasNext()) {
+			result = Math.max(result, it.nextInt());
+		}
+		return OptionalInt.of(result);
+	}
+
+	default OptionalDouble ave() {
+		long count = 0;
+		long sum = 0;
+		for (var it = iterator(); it.hasNext(); ++count) {
+			sum += it.nextInt();
+		}
+		return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum / count);
+	}
+
+	/**
+	 * Returns a DoubleIterable with all values converted to double.
+	 */
+	default DoubleIterable asDoubles() {
+		return () -> new PrimitiveIterator.OfDouble() {
+			private final PrimitiveIterator.OfInt it = IntIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public double nextDouble() {
+				return it.nextInt();
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default long count() {
+		long count = 0;
+		for (var it = iterator(); it.hasNext(); it.nextInt()) {
+			count++;
+		}
+		return count;
+	}
+
+	default int[] toArray() {
+		return stream().toArray();
+	}
+
+	@Override
+	default Spliterator.OfInt spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+	}
+
+	default IntStream stream() {
+		return StreamSupport.intStream(spliterator(), false);
+	}
+}
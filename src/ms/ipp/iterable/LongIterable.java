@@ -0,0 +1,287 @@
+package ms.ipp.iterable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An {@code Iterable<Long>} whose iterators provide unboxed values. All
+ * operations and terminals of this interface work on primitive values only, so
+ * pipelines built from them do not allocate per element (unless the boxed
+ * {@link Iterator#next()} is called).
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@FunctionalInterface
+public interface LongIterable extends Iterable<Long> {
+
+	@Override
+	PrimitiveIterator.OfLong iterator();
+
+	/**
+	 * Returns a LongIterable over a given array (which is not copied). Its
+	 * spliterator knows the exact size, so that streams over it split evenly.
+	 */
+	static LongIterable of(long... values) {
+		return new LongIterable() {
+			@Override
+			public PrimitiveIterator.OfLong iterator() {
+				return Spliterators.iterator(spliterator());
+			}
+
+			@Override
+			public Spliterator.OfLong spliterator() {
+				return Arrays.spliterator(values);
+			}
+
+			@Override
+			public long count() {
+				return values.length;
+			}
+		};
+	}
+
+	/**
+	 * Returns a LongIterable over the values of a stream created anew for every
+	 * iterator.
+	 */
+	static LongIterable of(Supplier<LongStream> streams) {
+		return () -> streams.get().iterator();
+	}
+
+	/**
+	 * Returns a LongIterable which converts every element of a given Iterable.
+	 * Removing values removes the corresponding element from the source.
+	 */
+	static <T> LongIterable of(Iterable<T> source, ToLongFunction<? super T> mapper) {
+		return () -> new PrimitiveIterator.OfLong() {
+			private final Iterator<T> it = source.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public long nextLong() {
+				return mapper.applyAsLong(it.next());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	/**
+	 * Returns a LongIterable which concatenates the values of the
+	 * LongIterables created for every element of a given Iterable (in the manner
+	 * of {@link ms.ipp.iterator.NestedIterator NestedIterator}).
+	 */
+	static <T> LongIterable flatten(Iterable<T> source,
+			Function<? super T, ? extends LongIterable> children) {
+		return () -> new PrimitiveIterator.OfLong() {
+			private final Iterator<T> outer = source.iterator();
+			private PrimitiveIterator.OfLong inner = Spliterators
+					.iterator(Spliterators.emptyLongSpliterator());
+
+			@Override
+			public boolean hasNext() {
+				while (!inner.hasNext()) {
+					if (!outer.hasNext()) {
+						return false;
+					}
+					inner = children.apply(outer.next()).iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return inner.nextLong();
+			}
+		};
+	}
+
+	/**
+	 * Performs a given action for every value. Is not called {@code forEach} to
+	 * avoid ambiguities with {@link Iterable#forEach(java.util.function.Consumer)}
+	 * for lambdas.
+	 */
+	default void forEachLong(LongConsumer action) {
+		iterator().forEachRemaining(action);
+	}
+
+	default LongIterable mapped(LongUnaryOperator mapper) {
+		return () -> new PrimitiveIterator.OfLong() {
+			private final PrimitiveIterator.OfLong it = LongIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public long nextLong() {
+				return mapper.applyAsLong(it.nextLong());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default <R> Iterable<R> mappedToObj(LongFunction<R> mapper) {
+		return () -> new Iterator<R>() {
+			private final PrimitiveIterator.OfLong it = LongIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public R next() {
+				return mapper.apply(it.nextLong());
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default LongIterable filtered(LongPredicate filter) {
+		return () -> new PrimitiveIterator.OfLong() {
+			private final PrimitiveIterator.OfLong it = LongIterable.this.iterator();
+			private long next;
+			private boolean hasNext;
+
+			@Override
+			public boolean hasNext() {
+				while (!hasNext && it.hasNext()) {
+					next = it.nextLong();
+					hasNext = filter.test(next);
+				}
+				return hasNext;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				hasNext = false;
+				return next;
+			}
+		};
+	}
+
+	default long sum() {
+		long sum = 0;
+		for (var it = iterator(); it.hasNext();) {
+			sum += it.nextLong();
+		}
+		return sum;
+	}
+
+	default OptionalLong min() {
+		var it = iterator();
+		if (!it.hasNext()) {
+			return OptionalLong.empty();
+		}
+		long result = it.nextLong();
+		while (it.hasNext()) {
+			result = Math.min(result, it.nextLong());
+		}
+		return OptionalLong.of(result);
+	}
+
+	default OptionalLong max() {
+		var it = iterator();
+		if (!it.hasNext()) {
+			return OptionalLong.empty();
+		}
+		long result = it.nextLong();
+		while (it.hasNext()) {
+			result = Math.max(result, it.nextLong());
+		}
+		return OptionalLong.of(result);
+	}
+
+	default OptionalDouble ave() {
+		long count = 0;
+		double sum = 0;
+		for (var it = iterator(); it.hasNext(); ++count) {
+			sum += it.nextLong();
+		}
+		return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(sum / count);
+	}
+
+	/**
+	 * Returns a DoubleIterable with all values converted to double.
+	 */
+	default DoubleIterable asDoubles() {
+		return () -> new PrimitiveIterator.OfDouble() {
+			private final PrimitiveIterator.OfLong it = LongIterable.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public double nextDouble() {
+				return it.nextLong();
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+			}
+		};
+	}
+
+	default long count() {
+		long count = 0;
+		for (var it = iterator(); it.hasNext(); it.nextLong()) {
+			count++;
+		}
+		return count;
+	}
+
+	default long[] toArray() {
+		return stream().toArray();
+	}
+
+	@Override
+	default Spliterator.OfLong spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+	}
+
+	default LongStream stream() {
+		return StreamSupport.longStream(spliterator(), false);
+	}
+}
@@ -36,6 +36,14 @@ public class MappedIterable<T, R> implements Iterable<R> {
 		this.mapper = mapper;
 	}
 
+	Iterable<T> getSource() {
+		return source;
+	}
+
+	Function<? super T, R> getMapper() {
+		return mapper;
+	}
+
 	/**
 	 * Returns a {@link MappedIterator} with the mapper given in the constructor.
 	 */
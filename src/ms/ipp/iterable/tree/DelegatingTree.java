@@ -12,12 +12,13 @@ import java.util.function.BiConsumer;
 
 import ms.ipp.Iterables;
 import ms.ipp.base.KeyValue;
+import ms.ipp.iterator.Distinct;
 import ms.ipp.iterator.FilteredIterator;
 import ms.ipp.iterator.NestedIterator;
 
 public class DelegatingTree<F> extends AbstractTree<F> {
 	private final List<KeyValue<Class<?>, Tree<F>>> delegates;
-	private boolean distinct;
+	private Distinct distinct;
 
 	public DelegatingTree(Class<F> clazz) {
 		super(clazz);
@@ -44,6 +45,18 @@ public class DelegatingTree<F> extends AbstractTree<F> {
 	 * @return
 	 */
 	public DelegatingTree<F> setDistinct(boolean distinct) {
+		return setDistinct(distinct ? Distinct.exact() : null);
+	}
+
+	/**
+	 * Sets the strategy which detects elements with the same path while traversing
+	 * over all elements, e.g., {@link Distinct#window(int)} to bound the memory if
+	 * the delegates are large.
+	 * 
+	 * @param distinct the strategy. If null, all elements are returned
+	 * @return
+	 */
+	public DelegatingTree<F> setDistinct(Distinct distinct) {
 		this.distinct = distinct;
 		return this;
 	}
@@ -184,8 +197,8 @@ public class DelegatingTree<F> extends AbstractTree<F> {
 	@Override
 	public Iterator<Entry<String, F>> iterator() {
 		Iterator<Entry<String, F>> it = new NestedIterator<>(delegates.iterator(), e -> e.getValue().iterator());
-		if (distinct) {
-			it = FilteredIterator.distinct(it, Entry::getKey);
+		if (distinct != null) {
+			it = FilteredIterator.distinct(it, Entry::getKey, distinct);
 		}
 		return it;
 	}
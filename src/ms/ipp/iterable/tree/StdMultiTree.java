@@ -10,6 +10,7 @@ import java.util.function.BiPredicate;
 
 import ms.ipp.Iterables;
 import ms.ipp.base.KeyValue;
+import ms.ipp.iterable.BiIterable;
 import ms.ipp.iterator.MappedIterator;
 import ms.ipp.iterator.NestedIterator;
 
@@ -70,6 +71,19 @@ public class StdMultiTree<F> extends AbstractTree<F> {
 				e -> new MappedIterator<>(e.getValue().iterator(), f -> new KeyValue<>(e.getKey(), f)));
 	}
 
+	/**
+	 * Returns a cursor which reuses one {@link KeyValue} per iterator instead of
+	 * allocating one per element.
+	 */
+	@Override
+	public BiIterable<String, F> cursor() {
+		return () -> {
+			KeyValue<String, F> entry = new KeyValue<>();
+			return new NestedIterator<>(members.entrySet().iterator(),
+					e -> new MappedIterator<>(e.getValue().iterator(), f -> entry.set(e.getKey(), f)));
+		};
+	}
+
 	@Override
 	public F doPeek(String name) {
 		return doPeek(name, getBaseClass());
@@ -3,7 +3,6 @@ package ms.ipp.iterable.tree;
 import static ms.ipp.Iterables.toBiIt;
 import static ms.ipp.iterable.tree.TreeHelper.castIterator;
 import static ms.ipp.iterable.tree.TreeHelper.recursiveHead;
-import static ms.ipp.iterator.NestedIterator.merge;
 
 import java.util.Iterator;
 import java.util.Map.Entry;
@@ -16,8 +15,8 @@ import ms.ipp.iterable.BiIterable;
 import ms.ipp.iterable.tree.AbstractTree.Recursion;
 import ms.ipp.iterable.tree.path.PathManipulator;
 import ms.ipp.iterator.FilteredIterator;
-import ms.ipp.iterator.NestedIterator;
-import ms.ipp.iterator.OneIterator;
+import ms.ipp.iterator.MappedIterator;
+import ms.ipp.iterator.StackIterator;
 
 /**
  * The API for all Tree-like structures. Its main features are:
@@ -169,6 +168,21 @@ public interface Tree<F> extends BiIterable<String, F> {
 		return toBiIt(() -> iterator(clazz));
 	}
 
+	/**
+	 * Returns a (non-recursive) {@link BiIterable} over all immediate children for
+	 * read-only iteration, whose iterators may return one and the same (mutable)
+	 * entry for every child. Every entry is only valid until the next call of
+	 * {@code next()}, so the cursor must neither be collected nor streamed; use
+	 * {@link ms.ipp.base.KeyValue#copy() KeyValue::copy} or
+	 * {@code new KeyValue<>(entry)} to retain an entry. By default, this is the
+	 * tree itself.
+	 * 
+	 * @return
+	 */
+	default BiIterable<String, F> cursor() {
+		return this;
+	}
+
 	///////////////////////////////////////////////////////
 	/// ************ Associative Structure ************ ///
 	///////////////////////////////////////////////////////
@@ -420,28 +434,36 @@ class TreeHelper {
 		// we have to traverse all members of source (even if they are not of
 		// type T) since they might be Entities possessing children of type T
 		// Ideally, we would like to have source.iterator(clazz || Entity);
-		return new NestedIterator<>(source.iterator(),
-				e -> recursive(source, e.getKey(), e.getValue(), deleter(source, e), clazz));
+		return new StackIterator<Member, Entry<String, T>>(members(source, null), Member::children,
+				m -> clazz.isInstance(m.entry.getValue())
+						? new KeyValue<>(m.fullName, clazz.cast(m.entry.getValue()))
+						: null).setRemover(m -> m.parent.delete(m.entry.getKey(), m.entry.getValue()));
 	}
 
-	private static <T> Iterator<Entry<String, T>> recursive(Tree<?> parent, String fullName, Object member,
-			Runnable deleter, Class<T> clazz) {
-		Iterator<Entry<String, T>> it = null;
-		if (clazz.isInstance(member)) {
-			Entry<String, T> keyValue = new KeyValue<>(fullName, clazz.cast(member));
-			// the deleter deletes
-			it = new OneIterator<>(keyValue).setDeleter(deleter);
-		}
-		if (member instanceof Tree) {
-			Tree<?> ent = ((Tree<?>) member);
-			it = merge(it, new NestedIterator<>(ent.iterator(), e -> recursive(ent,
-					ent.getPathManipulator().combine(fullName, e.getKey()), e.getValue(), deleter(ent, e), clazz)));
-		}
-		return it;
+	private static Iterator<Member> members(Tree<?> parent, String prefix) {
+		PathManipulator manipulator = parent.getPathManipulator();
+		return new MappedIterator<>(parent.iterator(), e -> new Member(parent,
+				prefix == null ? e.getKey() : manipulator.combine(prefix, e.getKey()), e));
 	}
 
-	private static <T> Runnable deleter(Tree<?> parent, Entry<String, T> member) {
-		return () -> parent.delete(member.getKey(), member.getValue());
+	/**
+	 * A member of a Tree together with its full name relative to the root of the
+	 * recursion.
+	 */
+	private static class Member {
+		private final Tree<?> parent;
+		private final String fullName;
+		private final Entry<String, ?> entry;
+
+		private Member(Tree<?> parent, String fullName, Entry<String, ?> entry) {
+			this.parent = parent;
+			this.fullName = fullName;
+			this.entry = entry;
+		}
+
+		private Iterator<Member> children() {
+			return entry.getValue() instanceof Tree ? members((Tree<?>) entry.getValue(), fullName) : null;
+		}
 	}
 
 }
\ No newline at end of file
@@ -1,7 +1,7 @@
 package ms.ipp.iterable.tree.path;
 
 import static java.util.Arrays.asList;
-import static ms.ipp.Iterables.appendList;
+import static ms.ipp.Iterables.join;
 
 import java.util.List;
 
@@ -40,7 +40,7 @@ public class StdPathManipulator extends AbstractPathManipulator {
 	}
 
 	public static String toPath(List<String> ids) {
-		return appendList(ids, "", "", ".", (t, sb) -> sb.append(t));
+		return join(ids, "", "", ".", (t, sb) -> sb.append(t));
 	}
 
 	public StdPathManipulator() {
@@ -0,0 +1,50 @@
+package ms.ipp.iterator;
+
+import java.util.Iterator;
+
+/**
+ * An {@code Iterator<T>} which can move many elements at once into an array.
+ * Decorating iterators implement {@link #nextBatch(Object[], int, int)} by
+ * fetching a batch from their source and transforming it in place, so that bulk
+ * consumers pay one virtual call per batch instead of two
+ * ({@code hasNext}/{@code next}) per element and per decorator.
+ * <br>
+ * After {@code nextBatch}, {@link #remove()} is not supported until the next
+ * call of {@code next()}.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public interface BatchIterator<T> extends Iterator<T> {
+
+	/**
+	 * Moves the next elements of this iterator into {@code buffer[offset]},
+	 * {@code buffer[offset + 1]}, etc. Fewer than {@code length} elements are moved
+	 * only if the iterator is exhausted.
+	 *
+	 * @param buffer the target array, not null
+	 * @param offset the index of the first element in the array
+	 * @param length the maximal number of elements to move
+	 * @return the number of elements moved, 0 iff the iterator has no more
+	 *         elements (or length is 0)
+	 */
+	int nextBatch(Object[] buffer, int offset, int length);
+
+	/**
+	 * Moves the next elements of an arbitrary iterator into an array, natively if
+	 * the iterator is a {@code BatchIterator} and element by element otherwise.
+	 *
+	 * @see #nextBatch(Object[], int, int)
+	 */
+	static int nextBatch(Iterator<?> it, Object[] buffer, int offset, int length) {
+		if (it instanceof BatchIterator) {
+			return ((BatchIterator<?>) it).nextBatch(buffer, offset, length);
+		}
+		int n = 0;
+		while (n < length && it.hasNext()) {
+			buffer[offset + n++] = it.next();
+		}
+		return n;
+	}
+}
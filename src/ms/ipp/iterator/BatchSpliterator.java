@@ -0,0 +1,109 @@
+package ms.ipp.iterator;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Spliterator<T>} for sources which only provide an {@code Iterator<T>}.
+ * Every split copies the next batch of elements into an array and returns a
+ * (fully splittable and sized) array spliterator over it. Batches start small,
+ * so that even short sources with expensive elements are split among several
+ * threads, and double with every split up to a maximum, so that long sources
+ * are not split into too many batches.
+ * 
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public class BatchSpliterator<T> implements Spliterator<T> {
+	public static final int INITIAL_BATCH = 16;
+	public static final int MAX_BATCH = 1 << 20;
+
+	private final Iterator<? extends T> it;
+	private final int characteristics;
+	private long size;
+	private int batch;
+
+	/**
+	 * Creates an instance of {@code BatchSpliterator<T>} with unknown size.
+	 * 
+	 * @param it              the source iterator, not null
+	 * @param characteristics the characteristics of the source (SIZED and SUBSIZED
+	 *                        are ignored)
+	 */
+	public BatchSpliterator(Iterator<? extends T> it, int characteristics) {
+		this(it, Long.MAX_VALUE, characteristics & ~(SIZED | SUBSIZED));
+	}
+
+	/**
+	 * Creates an instance of {@code BatchSpliterator<T>} with known size.
+	 * 
+	 * @param it              the source iterator, not null
+	 * @param size            the exact number of elements of the iterator
+	 * @param characteristics the characteristics of the source. SIZED and
+	 *                        SUBSIZED are added.
+	 */
+	public BatchSpliterator(Iterator<? extends T> it, long size, int characteristics) {
+		this.it = it;
+		this.size = size;
+		this.characteristics = size == Long.MAX_VALUE ? characteristics
+				: characteristics | SIZED | SUBSIZED;
+		batch = INITIAL_BATCH;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (!it.hasNext()) {
+			return false;
+		}
+		action.accept(it.next());
+		decreaseSize(1);
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		it.forEachRemaining(action);
+		size = 0;
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		if (!it.hasNext() || size <= 1) {
+			return null;
+		}
+		int n = (int) Math.min(batch, size);
+		Object[] array = new Object[n];
+		int i = BatchIterator.nextBatch(it, array, 0, n);
+		batch = Math.min(2 * batch, MAX_BATCH);
+		decreaseSize(i);
+		return Spliterators.spliterator(array, 0, i, characteristics | SIZED | SUBSIZED);
+	}
+
+	@Override
+	public long estimateSize() {
+		return size;
+	}
+
+	@Override
+	public int characteristics() {
+		return characteristics;
+	}
+
+	@Override
+	public Comparator<? super T> getComparator() {
+		if (hasCharacteristics(SORTED)) {
+			return null;
+		}
+		throw new IllegalStateException();
+	}
+
+	private void decreaseSize(long n) {
+		if (size != Long.MAX_VALUE) {
+			size -= n;
+		}
+	}
+}
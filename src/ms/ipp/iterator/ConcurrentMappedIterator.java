@@ -0,0 +1,171 @@
+package ms.ipp.iterator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A <i>Decorator</i> for an {@code Iterator<T>} which maps elements
+ * concurrently, e.g., by blocking lookups. The source iterator is only used by
+ * the thread calling {@code hasNext()}/{@code next()}, while the mapper runs on
+ * an executor for at most {@code maxInFlight} elements at a time. Results are
+ * returned either in the order of the source or in the order of completion.
+ * <br>
+ * An exception thrown by the mapper is rethrown by the {@code next()} call
+ * which would have returned the result (checked exceptions wrapped in a
+ * {@link CompletionException}). Closing the iterator cancels all pending
+ * mappings which have not started yet.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ * @param <R>
+ */
+public class ConcurrentMappedIterator<T, R> implements Iterator<R>, AutoCloseable {
+	private final Iterator<T> source;
+	private final Function<? super T, R> mapper;
+	private final int maxInFlight;
+	private final boolean ordered;
+	private final Executor executor;
+
+	// pending results in the source order
+	private final Deque<CompletableFuture<R>> window;
+	// completed results in the completion order (if not ordered)
+	private final BlockingQueue<CompletableFuture<R>> completed;
+	private int inFlight;
+	private boolean closed;
+
+	/**
+	 * Returns the executor used if none is given: a virtual thread per task if the
+	 * runtime supports virtual threads, and otherwise a cached pool of daemon
+	 * threads. Both suit blocking mappers, since the number of threads per
+	 * iterator is bounded by {@code maxInFlight}.
+	 */
+	public static Executor defaultExecutor() {
+		return DefaultExecutor.INSTANCE;
+	}
+
+	/**
+	 * Creates an instance of {@code ConcurrentMappedIterator<T, R>}.
+	 *
+	 * @param source      the original Iterator, not null
+	 * @param mapper      the mapper, not null. Called concurrently
+	 * @param maxInFlight the maximal number of elements being mapped at a time,
+	 *                    positive
+	 * @param ordered     if true, results are returned in the source order, and
+	 *                    in the completion order otherwise
+	 * @param executor    runs the mapper, not null
+	 */
+	public ConcurrentMappedIterator(Iterator<T> source, Function<? super T, R> mapper, int maxInFlight,
+			boolean ordered, Executor executor) {
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("maxInFlight must be positive but is " + maxInFlight);
+		}
+		this.source = source;
+		this.mapper = mapper;
+		this.maxInFlight = maxInFlight;
+		this.ordered = ordered;
+		this.executor = executor;
+		window = new ArrayDeque<>();
+		completed = new LinkedBlockingQueue<>();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !closed && (inFlight > 0 || source.hasNext());
+	}
+
+	@Override
+	public R next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		fill();
+		if (inFlight == 0) {
+			throw new NoSuchElementException();
+		}
+		CompletableFuture<R> result;
+		if (ordered) {
+			result = window.poll();
+		} else {
+			try {
+				result = completed.take();
+				window.remove(result);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new CompletionException(e);
+			}
+		}
+		inFlight--;
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new CompletionException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new CompletionException(cause);
+		}
+	}
+
+	/**
+	 * Cancels all pending mappings and ends the iteration.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		window.forEach(f -> f.cancel(false));
+		window.clear();
+		completed.clear();
+		inFlight = 0;
+	}
+
+	private void fill() {
+		while (inFlight < maxInFlight && source.hasNext()) {
+			T t = source.next();
+			CompletableFuture<R> future = CompletableFuture.supplyAsync(() -> mapper.apply(t), executor);
+			window.add(future);
+			if (!ordered) {
+				future.whenComplete((r, e) -> completed.add(future));
+			}
+			inFlight++;
+		}
+	}
+
+	private static class DefaultExecutor {
+		private static final Executor INSTANCE = create();
+
+		private static Executor create() {
+			try {
+				// available as of Java 21
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+						.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				AtomicInteger count = new AtomicInteger();
+				return Executors.newCachedThreadPool(r -> {
+					Thread thread = new Thread(r, "ipp-mapper-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
+	}
+}
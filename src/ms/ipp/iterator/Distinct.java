@@ -0,0 +1,175 @@
+package ms.ipp.iterator;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A strategy which decides whether a key has been seen before, used by
+ * {@link FilteredIterator#distinctByKey(java.util.function.Function, Distinct)}
+ * and its callers. Strategies trade exactness against memory:
+ * <li>{@link #exact()} remembers every key in a {@link HashSet},
+ * <li>{@link #concurrent()} does the same in a concurrent set, which is needed
+ * if the filter is shared by a parallel {@code Spliterator},
+ * <li>{@link #sorted()} only compares with the previous key, i.e., needs O(1)
+ * memory but requires equal keys to be adjacent,
+ * <li>{@link #window(int)} remembers only the most recently seen keys, i.e.,
+ * removes duplicates which are close to each other,
+ * <li>{@link #bloom(int, double)} remembers keys in a Bloom filter of fixed
+ * size, i.e., never returns a duplicate but drops a small fraction of distinct
+ * keys.
+ *
+ * Except for {@link #concurrent()}, the filters are not thread-safe (see
+ * {@link #isConcurrent()}).
+ *
+ * @author mykhailo.saienko
+ *
+ */
+@FunctionalInterface
+public interface Distinct {
+
+	/**
+	 * Creates a new stateful filter, which returns true for a key if it is seen
+	 * for the first time.
+	 *
+	 * @return
+	 */
+	Predicate<Object> newFilter();
+
+	/**
+	 * Returns true if the filters of this strategy may be shared by several
+	 * threads, e.g., by all splits of a parallel {@code Spliterator}.
+	 */
+	default boolean isConcurrent() {
+		return false;
+	}
+
+	static Distinct exact() {
+		return () -> new HashSet<>()::add;
+	}
+
+	static Distinct concurrent() {
+		return new Distinct() {
+			@Override
+			public Predicate<Object> newFilter() {
+				Set<Object> seen = ConcurrentHashMap.newKeySet();
+				return seen::add;
+			}
+
+			@Override
+			public boolean isConcurrent() {
+				return true;
+			}
+		};
+	}
+
+	static Distinct sorted() {
+		return () -> new Predicate<>() {
+			private Object previous;
+			private boolean first = true;
+
+			@Override
+			public boolean test(Object key) {
+				if (!first && Objects.equals(previous, key)) {
+					return false;
+				}
+				first = false;
+				previous = key;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns a strategy which remembers the {@code size} most recently seen keys,
+	 * where seeing a duplicate counts as seeing it again.
+	 *
+	 * @param size positive
+	 * @return
+	 */
+	static Distinct window(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Window size must be positive but is " + size);
+		}
+		return () -> {
+			Map<Object, Boolean> seen = new LinkedHashMap<>(16, .75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Object, Boolean> eldest) {
+					return size() > size;
+				}
+			};
+			return key -> seen.put(key, Boolean.TRUE) == null;
+		};
+	}
+
+	/**
+	 * Returns a strategy which remembers keys in a Bloom filter, sized such that
+	 * the probability of dropping a distinct key is at most
+	 * {@code falsePositiveRate} as long as there are at most
+	 * {@code expectedKeys} distinct keys. Needs about
+	 * {@code -expectedKeys * ln(falsePositiveRate) / ln(2)^2} bits.
+	 *
+	 * @param expectedKeys      positive
+	 * @param falsePositiveRate between 0 and 1 (exclusive)
+	 * @return
+	 */
+	static Distinct bloom(int expectedKeys, double falsePositiveRate) {
+		if (expectedKeys <= 0) {
+			throw new IllegalArgumentException("Expected keys must be positive but are " + expectedKeys);
+		}
+		if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("False positive rate must be in (0, 1) but is " + falsePositiveRate);
+		}
+		double ln2 = Math.log(2);
+		long bits = Math.max(64, (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2)));
+		int hashes = Math.max(1, (int) Math.round((double) bits / expectedKeys * ln2));
+		return () -> new BloomFilter(bits, hashes);
+	}
+
+	/**
+	 * A Bloom filter with double hashing, i.e., the i-th bit of a key is
+	 * {@code h1 + i * h2}.
+	 */
+	class BloomFilter implements Predicate<Object> {
+		private final long[] words;
+		private final long bits;
+		private final int hashes;
+
+		private BloomFilter(long bits, int hashes) {
+			words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6)];
+			this.bits = (long) words.length << 6;
+			this.hashes = hashes;
+		}
+
+		@Override
+		public boolean test(Object key) {
+			long hash = mix(Objects.hashCode(key));
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			boolean added = false;
+			for (int i = 1; i <= hashes; ++i) {
+				long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+				int word = (int) (bit >>> 6);
+				long mask = 1L << bit;
+				if ((words[word] & mask) == 0) {
+					words[word] |= mask;
+					added = true;
+				}
+			}
+			return added;
+		}
+
+		// the finalizer of MurmurHash3, spreads poor hash codes over all bits
+		private static long mix(long z) {
+			z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+			z = (z ^ (z >>> 33)) * 0xc4ceb93fe1a85349L;
+			return z ^ (z >>> 33);
+		}
+	}
+}
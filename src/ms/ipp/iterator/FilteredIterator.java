@@ -2,8 +2,6 @@ package ms.ipp.iterator;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -16,19 +14,45 @@ import java.util.function.Predicate;
  *
  * @param <T>
  */
-public class FilteredIterator<T> implements Iterator<T> {
+public class FilteredIterator<T> implements BatchIterator<T> {
 	private final Predicate<? super T> filter;
 	private final Iterator<T> source;
 	private T nextValid;
 	private boolean nextSet;
+	private boolean batched;
 
+	/**
+	 * Equivalent to {@code distinctByKey(keyExtractor, Distinct.concurrent())},
+	 * i.e., the filter may be shared by a parallel {@code Spliterator}.
+	 */
 	public static <T> Predicate<T> distinctByKey(Function<? super T, ?> keyExtractor) {
-		Set<Object> seen = ConcurrentHashMap.newKeySet();
-		return t -> t != null && seen.add(keyExtractor.apply(t));
+		return distinctByKey(keyExtractor, Distinct.concurrent());
 	}
 
+	/**
+	 * Returns a stateful filter which accepts non-null elements whose keys have not
+	 * been seen before, as decided by a given strategy.
+	 *
+	 * @param keyExtractor the key of an element, not null
+	 * @param strategy     the strategy, not null
+	 * @return
+	 */
+	public static <T> Predicate<T> distinctByKey(Function<? super T, ?> keyExtractor, Distinct strategy) {
+		Predicate<Object> seen = strategy.newFilter();
+		return t -> t != null && seen.test(keyExtractor.apply(t));
+	}
+
+	/**
+	 * Equivalent to {@code distinct(source, keyExtractor, Distinct.exact())}, since
+	 * an iterator is not shared between threads.
+	 */
 	public static <T> FilteredIterator<T> distinct(Iterator<T> source, Function<? super T, ?> keyExtractor) {
-		return new FilteredIterator<>(source, distinctByKey(keyExtractor));
+		return distinct(source, keyExtractor, Distinct.exact());
+	}
+
+	public static <T> FilteredIterator<T> distinct(Iterator<T> source, Function<? super T, ?> keyExtractor,
+			Distinct strategy) {
+		return new FilteredIterator<>(source, distinctByKey(keyExtractor, strategy));
 	}
 
 	public FilteredIterator(Iterator<T> source, Predicate<? super T> filter) {
@@ -50,6 +74,7 @@ public class FilteredIterator<T> implements Iterator<T> {
 			throw new NoSuchElementException();
 		}
 		nextSet = false;
+		batched = false;
 		return nextValid;
 	}
 
@@ -59,17 +84,57 @@ public class FilteredIterator<T> implements Iterator<T> {
 	 * <code>next()</code> was called, but not after <code>hasNext()</code>, because
 	 * the <code>hasNext()</code> call changes the base iterator.
 	 *
-	 * @throws IllegalStateException if <code>hasNext()</code> has already been
+	 * @throws IllegalStateException if <code>hasNext()</code> or
+	 *                               <code>nextBatch()</code> has already been
 	 *                               called.
 	 */
 	@Override
 	public void remove() {
+		if (batched) {
+			throw new IllegalStateException("remove() is not supported after nextBatch()");
+		}
 		if (nextSet) {
 			throw new IllegalStateException("remove() can only be called after next() and before hasNext()");
 		}
 		source.remove();
 	}
 
+	/**
+	 * Fetches batches from the source and compacts the accepted elements in place
+	 * until the requested number of elements is reached or the source is
+	 * exhausted.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public int nextBatch(Object[] buffer, int offset, int length) {
+		batched = true;
+		int n = 0;
+		if (nextSet && length > 0) {
+			buffer[offset] = nextValid;
+			nextSet = false;
+			n = 1;
+		}
+		while (n < length) {
+			int end = offset + n;
+			int requested = length - n;
+			int fetched = BatchIterator.nextBatch(source, buffer, end, requested);
+			for (int i = end; i < end + fetched; ++i) {
+				T t = (T) buffer[i];
+				if (filter.test(t)) {
+					buffer[offset + n++] = t;
+				}
+			}
+			if (fetched < requested) {
+				// the source is exhausted, drop the references to rejected elements
+				for (int i = offset + n; i < end + fetched; ++i) {
+					buffer[i] = null;
+				}
+				break;
+			}
+		}
+		return n;
+	}
+
 	private boolean findNextValid() {
 		while (source.hasNext()) {
 			T nextTempValid = source.next();
@@ -1,7 +1,5 @@
 package ms.ipp.iterator;
 
-import static ms.ipp.Algorithms.callIf;
-
 import java.util.Comparator;
 import java.util.Spliterator;
 import java.util.function.Consumer;
@@ -20,6 +18,15 @@ public class FilteredSpliterator<T> implements Spliterator<T> {
 	private final Spliterator<T> source;
 	private final Predicate<? super T> filter;
 
+	// the number of elements tested and accepted so far (by this spliterator and
+	// the ones it has been split from), used to estimate the size.
+	private long tested;
+	private long accepted;
+	private boolean splittable = true;
+
+	// a reusable consumer for tryAdvance and forEachRemaining
+	private final Sink sink = new Sink();
+
 	/**
 	 * Creates an instance of {@code FilteredSpliterator<T>} based on another
 	 * {@code Spliterator<T>} and a given filter.
@@ -32,24 +39,73 @@ public class FilteredSpliterator<T> implements Spliterator<T> {
 		this.filter = filter;
 	}
 
+	/**
+	 * Sets whether this spliterator may be split. Must be false if the filter is
+	 * not thread-safe and the spliterator may be used by a parallel stream.
+	 * 
+	 * @param splittable true by default
+	 * @return
+	 */
+	public FilteredSpliterator<T> setSplittable(boolean splittable) {
+		this.splittable = splittable;
+		return this;
+	}
+
+	/**
+	 * Advances the source until an element passes the filter (or the source is
+	 * exhausted).
+	 */
 	@Override
 	public boolean tryAdvance(Consumer<? super T> action) {
-		return source.tryAdvance(callIf(filter, action));
+		sink.action = action;
+		sink.found = false;
+		try {
+			while (!sink.found && source.tryAdvance(sink)) {
+				// continue
+			}
+		} finally {
+			sink.action = null;
+		}
+		return sink.found;
 	}
 
 	@Override
 	public Spliterator<T> trySplit() {
-		return new FilteredSpliterator<>(source.trySplit(), filter);
+		if (!splittable) {
+			return null;
+		}
+		Spliterator<T> split = source.trySplit();
+		if (split == null) {
+			return null;
+		}
+		FilteredSpliterator<T> result = new FilteredSpliterator<>(split, filter);
+		result.tested = tested;
+		result.accepted = accepted;
+		return result;
 	}
 
+	/**
+	 * Returns the size of the source scaled by the ratio of elements which have
+	 * passed the filter so far. Before the first element has been tested, returns
+	 * the size of the source.
+	 */
 	@Override
 	public long estimateSize() {
-		return source.estimateSize();
+		long size = source.estimateSize();
+		if (tested == 0 || size == Long.MAX_VALUE) {
+			return size;
+		}
+		return (long) Math.ceil(size * ((double) accepted / tested));
 	}
 
 	@Override
 	public void forEachRemaining(Consumer<? super T> action) {
-		source.forEachRemaining(callIf(filter, action));
+		sink.action = action;
+		try {
+			source.forEachRemaining(sink);
+		} finally {
+			sink.action = null;
+		}
 	}
 
 	@Override
@@ -63,13 +119,23 @@ public class FilteredSpliterator<T> implements Spliterator<T> {
 		return source.characteristics() & ~Spliterator.SIZED & ~Spliterator.SUBSIZED;
 	}
 
-	@Override
-	public boolean hasCharacteristics(int characteristics) {
-		return source.hasCharacteristics(characteristics);
-	}
-
 	@Override
 	public Comparator<? super T> getComparator() {
 		return source.getComparator();
 	}
+
+	private class Sink implements Consumer<T> {
+		private Consumer<? super T> action;
+		private boolean found;
+
+		@Override
+		public void accept(T t) {
+			tested++;
+			if (filter.test(t)) {
+				accepted++;
+				found = true;
+				action.accept(t);
+			}
+		}
+	}
 }
@@ -0,0 +1,112 @@
+package ms.ipp.iterator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import ms.ipp.base.KeyValue;
+
+/**
+ * An Iterator which joins two iterables by equal keys (inner hash join). The
+ * elements of the build side are put into a hash table, which is then probed
+ * with every element of the probe side, i.e., the join costs O(n + m) plus the
+ * size of the result. Elements with null keys are skipped.
+ * <br>
+ * At most {@code maxBuildSize} build elements are held in memory. If the build
+ * side is larger, it is processed in blocks of this size and the probe side is
+ * iterated once per block (block nested-loop hash join). The pairs are
+ * returned in the order of the probe side within each block.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <L> the type of the probe elements
+ * @param <R> the type of the build elements
+ * @param <K> the type of the keys
+ */
+public class HashJoinIterator<L, R, K> implements Iterator<Entry<L, R>> {
+	private final Iterable<L> probe;
+	private final Iterator<R> build;
+	private final Function<? super L, ? extends K> probeKey;
+	private final Function<? super R, ? extends K> buildKey;
+	private final int maxBuildSize;
+
+	private final Map<K, List<R>> table;
+	private Iterator<L> probeIt;
+	private L current;
+	private List<R> matches;
+	private int matchIndex;
+
+	/**
+	 * Creates an instance of {@code HashJoinIterator<L, R, K>}.
+	 *
+	 * @param probe        the probe side, not null. Iterated once per block of
+	 *                     the build side
+	 * @param build        the build side, not null
+	 * @param probeKey     the key of a probe element, not null
+	 * @param buildKey     the key of a build element, not null
+	 * @param maxBuildSize the maximal number of build elements in memory,
+	 *                     positive
+	 */
+	public HashJoinIterator(Iterable<L> probe, Iterator<R> build, Function<? super L, ? extends K> probeKey,
+			Function<? super R, ? extends K> buildKey, int maxBuildSize) {
+		if (maxBuildSize <= 0) {
+			throw new IllegalArgumentException("Maximal build size must be positive but is " + maxBuildSize);
+		}
+		this.probe = probe;
+		this.build = build;
+		this.probeKey = probeKey;
+		this.buildKey = buildKey;
+		this.maxBuildSize = maxBuildSize;
+		table = new HashMap<>();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (true) {
+			if (matches != null && matchIndex < matches.size()) {
+				return true;
+			}
+			matches = null;
+			if (probeIt != null && probeIt.hasNext()) {
+				current = probeIt.next();
+				K key = probeKey.apply(current);
+				matches = key == null ? null : table.get(key);
+				matchIndex = 0;
+			} else if (!nextBlock()) {
+				return false;
+			}
+		}
+	}
+
+	@Override
+	public Entry<L, R> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return new KeyValue<>(current, matches.get(matchIndex++));
+	}
+
+	private boolean nextBlock() {
+		table.clear();
+		int size = 0;
+		while (size < maxBuildSize && build.hasNext()) {
+			R r = build.next();
+			K key = buildKey.apply(r);
+			if (key != null) {
+				table.computeIfAbsent(key, k -> new ArrayList<>(1)).add(r);
+				size++;
+			}
+		}
+		if (size == 0) {
+			probeIt = null;
+			return false;
+		}
+		probeIt = probe.iterator();
+		return true;
+	}
+}
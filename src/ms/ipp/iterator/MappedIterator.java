@@ -16,7 +16,7 @@ import java.util.function.Supplier;
  * @param <T>
  * @param <R>
  */
-public class MappedIterator<T, R> implements Iterator<R> {
+public class MappedIterator<T, R> implements BatchIterator<R> {
 
 	private final Iterator<T> source;
 	private final Function<? super T, R> mapper;
@@ -57,6 +57,19 @@ public class MappedIterator<T, R> implements Iterator<R> {
 		}
 	}
 
+	/**
+	 * Fetches a batch from the source and maps it in place.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public int nextBatch(Object[] buffer, int offset, int length) {
+		int n = BatchIterator.nextBatch(source, buffer, offset, length);
+		for (int i = offset; i < offset + n; ++i) {
+			buffer[i] = mapper.apply((T) buffer[i]);
+		}
+		return n;
+	}
+
 	@Override
 	public void forEachRemaining(Consumer<? super R> action) {
 		source.forEachRemaining(concatC(mapper, action));
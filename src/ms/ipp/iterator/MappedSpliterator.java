@@ -1,7 +1,5 @@
 package ms.ipp.iterator;
 
-import static ms.ipp.Algorithms.concatC;
-
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -20,6 +18,9 @@ public class MappedSpliterator<T, R> implements Spliterator<R> {
 	private final Spliterator<T> it;
 	private final Function<? super T, R> mapper;
 
+	// a reusable consumer for tryAdvance and forEachRemaining
+	private final Sink sink = new Sink();
+
 	/**
 	 * Creates an instance of {@code MappedSpliterator<T,R>} based on another
 	 * {@code Spliterator<T>} and a given mapper from {@code T} to {@code R}.
@@ -34,12 +35,18 @@ public class MappedSpliterator<T, R> implements Spliterator<R> {
 
 	@Override
 	public boolean tryAdvance(Consumer<? super R> action) {
-		return it.tryAdvance(concatC(mapper, action));
+		sink.action = action;
+		try {
+			return it.tryAdvance(sink);
+		} finally {
+			sink.action = null;
+		}
 	}
 
 	@Override
 	public Spliterator<R> trySplit() {
-		return new MappedSpliterator<>(it.trySplit(), mapper);
+		Spliterator<T> split = it.trySplit();
+		return split == null ? null : new MappedSpliterator<>(split, mapper);
 	}
 
 	@Override
@@ -52,20 +59,35 @@ public class MappedSpliterator<T, R> implements Spliterator<R> {
 		return it.getExactSizeIfKnown();
 	}
 
+	/**
+	 * Returns the characteristics of the source except for those which the mapper
+	 * might violate (SORTED, DISTINCT and NONNULL). In particular, SIZED and
+	 * SUBSIZED are preserved, as mapping does not change the number of elements.
+	 */
 	@Override
 	public int characteristics() {
-		return it.characteristics();
+		return it.characteristics() & ~(SORTED | DISTINCT | NONNULL);
 	}
 
 	@Override
 	public void forEachRemaining(Consumer<? super R> action) {
-		it.forEachRemaining(concatC(mapper, action));
+		sink.action = action;
+		try {
+			it.forEachRemaining(sink);
+		} finally {
+			sink.action = null;
+		}
 	}
 
-	@Override
-	public boolean hasCharacteristics(int characteristics) {
-		return it.hasCharacteristics(characteristics);
+	private class Sink implements Consumer<T> {
+		private Consumer<? super R> action;
+
+		@Override
+		public void accept(T t) {
+			action.accept(mapper.apply(t));
+		}
 	}
+
 	// TODO: Cannot add comparator as it requires a back-transformation from R
 	// to T (rather than from T to R as is provided by convert)
 }
\ No newline at end of file
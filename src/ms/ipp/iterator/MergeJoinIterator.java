@@ -0,0 +1,134 @@
+package ms.ipp.iterator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import ms.ipp.base.KeyValue;
+
+/**
+ * An Iterator which joins two iterators sorted by their keys (inner sort-merge
+ * join). Both iterators are traversed once, i.e., the join costs O(n + m) plus
+ * the size of the result. Only the elements of the right iterator sharing the
+ * current key are buffered, so that duplicate keys on both sides produce their
+ * cross product. Elements with null keys are skipped.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <L> the type of the left elements
+ * @param <R> the type of the right elements
+ * @param <K> the type of the keys
+ */
+public class MergeJoinIterator<L, R, K> implements Iterator<Entry<L, R>> {
+	private final Iterator<L> left;
+	private final Iterator<R> right;
+	private final Function<? super L, ? extends K> leftKey;
+	private final Function<? super R, ? extends K> rightKey;
+	private final Comparator<? super K> comparator;
+
+	// the right elements with the key groupKey
+	private final List<R> group;
+	private K groupKey;
+	private boolean groupSet;
+	private int groupIndex;
+	private L current;
+
+	// the first right element after the group
+	private R pending;
+	private K pendingKey;
+	private boolean pendingSet;
+
+	private Entry<L, R> nextValid;
+
+	/**
+	 * Creates an instance of {@code MergeJoinIterator<L, R, K>}.
+	 *
+	 * @param left       the left Iterator, sorted by leftKey, not null
+	 * @param right      the right Iterator, sorted by rightKey, not null
+	 * @param leftKey    the key of a left element, not null
+	 * @param rightKey   the key of a right element, not null
+	 * @param comparator the order of the keys, not null
+	 */
+	public MergeJoinIterator(Iterator<L> left, Iterator<R> right, Function<? super L, ? extends K> leftKey,
+			Function<? super R, ? extends K> rightKey, Comparator<? super K> comparator) {
+		this.left = left;
+		this.right = right;
+		this.leftKey = leftKey;
+		this.rightKey = rightKey;
+		this.comparator = comparator;
+		group = new ArrayList<>();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextValid != null || findNextValid();
+	}
+
+	@Override
+	public Entry<L, R> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Entry<L, R> result = nextValid;
+		nextValid = null;
+		return result;
+	}
+
+	private boolean findNextValid() {
+		while (true) {
+			if (groupIndex < group.size()) {
+				nextValid = new KeyValue<>(current, group.get(groupIndex++));
+				return true;
+			}
+			if (!left.hasNext()) {
+				return false;
+			}
+			current = left.next();
+			groupIndex = 0;
+			K key = leftKey.apply(current);
+			if (key == null) {
+				groupIndex = group.size();
+				continue;
+			}
+			if (!groupSet || comparator.compare(groupKey, key) != 0) {
+				fillGroup(key);
+			}
+		}
+	}
+
+	private void fillGroup(K key) {
+		group.clear();
+		groupKey = key;
+		groupSet = true;
+		while (pendingSet || right.hasNext()) {
+			R r;
+			K rKey;
+			if (pendingSet) {
+				r = pending;
+				rKey = pendingKey;
+				pending = null;
+				pendingKey = null;
+				pendingSet = false;
+			} else {
+				r = right.next();
+				rKey = rightKey.apply(r);
+				if (rKey == null) {
+					continue;
+				}
+			}
+			int c = comparator.compare(rKey, key);
+			if (c == 0) {
+				group.add(r);
+			} else if (c > 0) {
+				pending = r;
+				pendingKey = rKey;
+				pendingSet = true;
+				return;
+			}
+		}
+	}
+}
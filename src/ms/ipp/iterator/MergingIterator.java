@@ -0,0 +1,72 @@
+package ms.ipp.iterator;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * An Iterator which merges several sorted iterators into one sorted iterator
+ * (k-way merge). Every {@code next()} costs O(log k) for k iterators. The merge
+ * is stable: equal elements are returned in the order of the iterators, i.e.,
+ * first those of the first iterator, then those of the second one, etc.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public class MergingIterator<T> implements Iterator<T> {
+	private final PriorityQueue<Head<T>> heads;
+
+	/**
+	 * Creates an instance of {@code MergingIterator<T>}.
+	 *
+	 * @param its        the iterators, each of them sorted with respect to the
+	 *                   comparator, not null
+	 * @param comparator the comparator, not null
+	 */
+	public MergingIterator(List<? extends Iterator<? extends T>> its, Comparator<? super T> comparator) {
+		heads = new PriorityQueue<>(Math.max(1, its.size()), (h1, h2) -> {
+			int result = comparator.compare(h1.value, h2.value);
+			return result != 0 ? result : Integer.compare(h1.index, h2.index);
+		});
+		for (int i = 0; i < its.size(); ++i) {
+			Iterator<? extends T> it = its.get(i);
+			if (it.hasNext()) {
+				heads.add(new Head<>(it, i));
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !heads.isEmpty();
+	}
+
+	@Override
+	public T next() {
+		Head<T> head = heads.poll();
+		if (head == null) {
+			throw new NoSuchElementException();
+		}
+		T result = head.value;
+		if (head.it.hasNext()) {
+			head.value = head.it.next();
+			heads.add(head);
+		}
+		return result;
+	}
+
+	private static class Head<T> {
+		private final Iterator<? extends T> it;
+		private final int index;
+		private T value;
+
+		private Head(Iterator<? extends T> it, int index) {
+			this.it = it;
+			this.index = index;
+			this.value = it.next();
+		}
+	}
+}
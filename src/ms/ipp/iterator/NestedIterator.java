@@ -56,14 +56,16 @@ import ms.ipp.iterable.tree.Tree;
  * in {@code it3}.
  * 
  * The {@link NestedIterator} can be generalised to an arbitrary number of
- * hierarchy levels. This is done in {@link Tree} and its implementations.
+ * hierarchy levels. This is done in {@link Tree} and its implementations by
+ * means of a {@link StackIterator}, which does not need one decorator per
+ * level.
  * 
  * @author mykhailo.saienko
  *
  * @param <T> The type of elements returned by the original Iterator
  * @param <U> The type of elements returned by the created Iterator
  */
-public class NestedIterator<T, U> implements Iterator<U> {
+public class NestedIterator<T, U> implements BatchIterator<U> {
 
 	private final Iterator<T> root;
 	private final Function<T, Iterator<U>> gen;
@@ -71,6 +73,7 @@ public class NestedIterator<T, U> implements Iterator<U> {
 
 	private U nextValid;
 	private boolean nextSet;
+	private boolean batched;
 
 	/**
 	 * Glues several instances of {@code Iterator<T>} together and creates an
@@ -148,11 +151,15 @@ public class NestedIterator<T, U> implements Iterator<U> {
 			throw new NoSuchElementException();
 		}
 		nextSet = false;
+		batched = false;
 		return nextValid;
 	}
 
 	@Override
 	public void remove() {
+		if (batched) {
+			throw new IllegalStateException("remove() is not supported after nextBatch()");
+		}
 		if (nextSet || leaf == null) {
 			throw new IllegalStateException(
 					"remove() can only be called after next() and before hasNext()");
@@ -160,14 +167,43 @@ public class NestedIterator<T, U> implements Iterator<U> {
 		leaf.remove();
 	}
 
+	/**
+	 * Fetches batches from the leaves (natively if they are
+	 * {@link BatchIterator}s) until the requested number of elements is reached or
+	 * all leaves are exhausted.
+	 */
+	@Override
+	public int nextBatch(Object[] buffer, int offset, int length) {
+		batched = true;
+		int n = 0;
+		if (nextSet && length > 0) {
+			buffer[offset] = nextValid;
+			nextSet = false;
+			n = 1;
+		}
+		while (n < length) {
+			if (leaf == null || !leaf.hasNext()) {
+				if (!root.hasNext()) {
+					break;
+				}
+				leaf = gen.apply(root.next());
+				continue;
+			}
+			n += BatchIterator.nextBatch(leaf, buffer, offset + n, length - n);
+		}
+		return n;
+	}
+
 	private boolean findNextValid() {
-		while ((leaf == null || !leaf.hasNext()) && root.hasNext()) {
+		// leaf.hasNext() is called only once per leaf and round: on exhausted nested
+		// leaves, every call walks down all their levels again
+		while (leaf == null || !leaf.hasNext()) {
+			if (!root.hasNext()) {
+				// we have encountered the last one
+				return false;
+			}
 			leaf = gen.apply(root.next());
 		}
-		// we have encountered the last one
-		if (leaf == null || !leaf.hasNext()) {
-			return false;
-		}
 		nextSet = true;
 		nextValid = leaf.next();
 		return true;
@@ -0,0 +1,189 @@
+package ms.ipp.iterator;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * An Iterator which returns, for every element of the source, an aggregate
+ * over the sliding window ending at the element. The window consists of all
+ * elements whose time is greater than the time of the current element minus
+ * the width of the window, where times must not decrease. For count-based
+ * windows, the time of an element is its index.
+ * <br>
+ * Aggregates are maintained incrementally, i.e., every element is added and
+ * evicted once: sums and counts keep all elements of the window, while minima
+ * and maxima keep a monotonic deque of the elements which may still become the
+ * extremum. Sums only accumulate finite values and count infinite and NaN values
+ * separately, so that these do not poison the sum after they have left the
+ * window. Hence, {@code next()} costs O(1) amortized regardless of the width
+ * of the window and does not allocate.
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <T>
+ */
+public class SlidingAggregateIterator<T> implements PrimitiveIterator.OfDouble {
+	public enum Aggregate {
+		SUM, MIN, MAX, COUNT
+	}
+
+	private final Iterator<T> source;
+	private final ToDoubleFunction<? super T> value;
+	private final ToLongFunction<? super T> time;
+	private final long width;
+	private final Aggregate aggregate;
+
+	// a ring buffer of (time, value) pairs
+	private long[] times;
+	private double[] values;
+	private int head;
+	private int size;
+
+	private long index;
+	private long lastTime = Long.MIN_VALUE;
+	private double sum;
+	// the number of non-finite values in the window, which are not part of sum
+	private int nans;
+	private int positiveInfinities;
+	private int negativeInfinities;
+
+	/**
+	 * Creates an instance of {@code SlidingAggregateIterator<T>}.
+	 *
+	 * @param source    the original Iterator, not null
+	 * @param value     the value of an element, not null unless the aggregate is
+	 *                  {@link Aggregate#COUNT}
+	 * @param time      the time of an element, or null to use the index of the
+	 *                  element
+	 * @param width     the width of the window, positive
+	 * @param aggregate the aggregate, not null
+	 */
+	public SlidingAggregateIterator(Iterator<T> source, ToDoubleFunction<? super T> value,
+			ToLongFunction<? super T> time, long width, Aggregate aggregate) {
+		if (width <= 0) {
+			throw new IllegalArgumentException("Window width must be positive but is " + width);
+		}
+		this.source = source;
+		this.value = value;
+		this.time = time;
+		this.width = width;
+		this.aggregate = aggregate;
+		int capacity = (int) Math.min(16, Math.max(2, width));
+		times = new long[capacity];
+		values = new double[capacity];
+	}
+
+	@Override
+	public boolean hasNext() {
+		return source.hasNext();
+	}
+
+	@Override
+	public double nextDouble() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T t = source.next();
+		long now = time == null ? index++ : time.applyAsLong(t);
+		if (now < lastTime) {
+			throw new IllegalArgumentException("Times must not decrease but " + now + " follows " + lastTime);
+		}
+		lastTime = now;
+		double v = aggregate == Aggregate.COUNT ? 0 : value.applyAsDouble(t);
+
+		// evict elements which have left the window
+		long start = now - width;
+		while (size > 0 && times[head] <= start) {
+			if (aggregate == Aggregate.SUM) {
+				addToSum(values[head], -1);
+			}
+			pollFirst();
+		}
+
+		switch (aggregate) {
+		case SUM:
+			if (size == 0) {
+				// drop the rounding errors of all evicted values
+				sum = 0;
+			}
+			addToSum(v, 1);
+			addLast(now, v);
+			return currentSum();
+		case COUNT:
+			addLast(now, v);
+			return size;
+		case MIN:
+			while (size > 0 && values[last()] >= v) {
+				size--;
+			}
+			addLast(now, v);
+			return values[head];
+		case MAX:
+			while (size > 0 && values[last()] <= v) {
+				size--;
+			}
+			addLast(now, v);
+			return values[head];
+		default:
+			throw new IllegalStateException("Unknown aggregate " + aggregate);
+		}
+	}
+
+	private void addToSum(double v, int sign) {
+		if (Double.isNaN(v)) {
+			nans += sign;
+		} else if (v == Double.POSITIVE_INFINITY) {
+			positiveInfinities += sign;
+		} else if (v == Double.NEGATIVE_INFINITY) {
+			negativeInfinities += sign;
+		} else {
+			sum += sign * v;
+		}
+	}
+
+	private double currentSum() {
+		if (nans > 0 || positiveInfinities > 0 && negativeInfinities > 0) {
+			return Double.NaN;
+		} else if (positiveInfinities > 0) {
+			return Double.POSITIVE_INFINITY;
+		} else if (negativeInfinities > 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return sum;
+	}
+
+	private int last() {
+		return (head + size - 1) % times.length;
+	}
+
+	private void pollFirst() {
+		head = (head + 1) % times.length;
+		size--;
+	}
+
+	private void addLast(long t, double v) {
+		if (size == times.length) {
+			grow();
+		}
+		int tail = (head + size) % times.length;
+		times[tail] = t;
+		values[tail] = v;
+		size++;
+	}
+
+	private void grow() {
+		long[] newTimes = new long[times.length * 2];
+		double[] newValues = new double[values.length * 2];
+		for (int i = 0; i < size; ++i) {
+			int j = (head + i) % times.length;
+			newTimes[i] = times[j];
+			newValues[i] = values[j];
+		}
+		times = newTimes;
+		values = newValues;
+		head = 0;
+	}
+}
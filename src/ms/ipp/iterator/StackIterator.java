@@ -0,0 +1,154 @@
+package ms.ipp.iterator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * An Iterator which traverses a hierarchy of nodes depth-first in pre-order,
+ * i.e., every node is visited before its children. Unlike a chain of
+ * {@link NestedIterator}s, which has one decorator per level, it keeps the
+ * iterators over the children of all visited ancestors on an explicit stack.
+ * Therefore, {@code next()} costs O(1) amortized regardless of the depth of the
+ * hierarchy, and arbitrarily deep hierarchies do not overflow the call stack.
+ * <br>
+ * Every node is mapped to an element of the iterator, or skipped if the mapper
+ * returns null. The children of a node are only requested after the node was
+ * returned by {@code next()} (or skipped).
+ *
+ * <pre>
+ * // all files below a directory
+ * Iterator<File> it = new StackIterator<>(List.of(dir).iterator(),
+ * 		f -> f.isDirectory() ? Arrays.asList(f.listFiles()).iterator() : null,
+ * 		f -> f.isFile() ? f : null);
+ * </pre>
+ *
+ * @author mykhailo.saienko
+ *
+ * @param <N> the type of the nodes
+ * @param <T> the type of the elements returned by the Iterator
+ */
+public class StackIterator<N, T> implements Iterator<T> {
+	private final Function<? super N, ? extends Iterator<? extends N>> children;
+	private final Function<? super N, ? extends T> mapper;
+	private Consumer<? super N> remover;
+
+	// the top is the iterator over the siblings of the current node
+	private final Deque<Iterator<? extends N>> stack;
+	// the node whose children have not been pushed yet
+	private N expand;
+	private boolean expandSet;
+
+	private T nextValid;
+	private boolean nextSet;
+	private N nextNode;
+	private Iterator<? extends N> nextSource;
+	// the node returned by next(), unaffected by looking ahead
+	private N last;
+	private Iterator<? extends N> lastSource;
+
+	/**
+	 * Creates an instance of {@code StackIterator<N, T>}.
+	 *
+	 * @param roots    the iterator over the top-level nodes, not null
+	 * @param children returns an iterator over the children of a node, not null.
+	 *                 May return null for leaves.
+	 * @param mapper   maps a node to the element to return, not null. May return
+	 *                 null to skip a node (but not its children).
+	 */
+	public StackIterator(Iterator<? extends N> roots,
+			Function<? super N, ? extends Iterator<? extends N>> children,
+			Function<? super N, ? extends T> mapper) {
+		this.children = children;
+		this.mapper = mapper;
+		stack = new ArrayDeque<>();
+		stack.push(roots);
+	}
+
+	/**
+	 * Sets the action which removes a node when {@link #remove()} is called. By
+	 * default, the node is removed from the iterator which returned it.
+	 *
+	 * @param remover the action, may be null
+	 * @return
+	 */
+	public StackIterator<N, T> setRemover(Consumer<? super N> remover) {
+		this.remover = remover;
+		return this;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextSet || findNextValid();
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		nextSet = false;
+		last = nextNode;
+		lastSource = nextSource;
+		nextNode = null;
+		nextSource = null;
+		return nextValid;
+	}
+
+	/**
+	 * Removes the node of the last element returned by this iterator. Without a
+	 * remover, this can only be called after {@code next()} but not after
+	 * {@code hasNext()}, since the latter may advance the iterator which returned
+	 * the node. The children of a removed node are still traversed.
+	 */
+	@Override
+	public void remove() {
+		if (lastSource == null) {
+			throw new IllegalStateException("remove() can only be called once after next()");
+		}
+		if (remover != null) {
+			remover.accept(last);
+		} else if (nextSet) {
+			throw new IllegalStateException("remove() can only be called after next() and before hasNext()");
+		} else {
+			lastSource.remove();
+		}
+		last = null;
+		lastSource = null;
+	}
+
+	private boolean findNextValid() {
+		while (true) {
+			if (expandSet) {
+				Iterator<? extends N> it = children.apply(expand);
+				if (it != null) {
+					stack.push(it);
+				}
+				expand = null;
+				expandSet = false;
+			}
+			Iterator<? extends N> top = stack.peek();
+			if (top == null) {
+				return false;
+			}
+			if (!top.hasNext()) {
+				stack.pop();
+				continue;
+			}
+			N node = top.next();
+			expand = node;
+			expandSet = true;
+			T value = mapper.apply(node);
+			if (value != null) {
+				nextValid = value;
+				nextSet = true;
+				nextNode = node;
+				nextSource = top;
+				return true;
+			}
+		}
+	}
+}
@@ -9,6 +9,10 @@ import static ms.db.Query.larger;
 import static ms.db.Query.largerEqual;
 import static ms.db.Query.less;
 import static ms.db.Query.lessEqual;
+import static ms.db.Query.matches;
+import static ms.db.Query.phrase;
+import static ms.db.Query.prefix;
+import static ms.db.Query.within;
 import static ms.db.Table.InsertBehaviour.ERROR;
 import static ms.db.Table.InsertBehaviour.OVERWRITE;
 import static ms.db.Table.InsertBehaviour.RETURN;
@@ -21,9 +25,13 @@ import static org.junit.Assume.assumeTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DynamicTest;
@@ -91,6 +99,23 @@ public class TestTable {
                                                        () -> t.queryUnique(k))));
     }
 
+    @Test
+    public void testForEachBatch() {
+        // batches keep the order of query() and are reused
+        List<List<String>> batches = new ArrayList<>();
+        t.forEachBatch(larger(AGE, 20), 2, b -> batches.add(map(b, p -> p.name)));
+        assertEquals(asList(asList("Jane", "Arny"), asList("Joe")), batches);
+        List<String> flat = new ArrayList<>();
+        batches.forEach(flat::addAll);
+        assertEquals(map(t.query(larger(AGE, 20)), p -> p.name), flat);
+
+        batches.clear();
+        t.forEachBatch(less(AGE, 20), 2, b -> batches.add(map(b, p -> p.name)));
+        assertEquals(asList(), batches);
+        assertThrows(IllegalArgumentException.class, () -> t.forEachBatch(less(AGE, 20), 0, b -> {
+        }));
+    }
+
     @Test
     public void testWrongValues() {
         // only integers are accepted for integer based indexes
@@ -188,6 +213,233 @@ public class TestTable {
         assertThrows(IllegalArgumentException.class, () -> t.query(equal(WEIGHT, 20)));
     }
 
+    @Test
+    public void testTextIndex() {
+        Table<String> docs = new Table<>(true);
+        String TEXT = "text";
+        docs.addTextIndex(TEXT, s -> s);
+        docs.insert(Map.of("1",
+                           "The quick brown fox",
+                           "2",
+                           "A quick, quick dog; the brown one",
+                           "3",
+                           "Foxes jump"),
+                    ERROR);
+
+        // term queries require all tokens, ignore case and punctuation
+        assertEquals(Set.of("1", "2"), docs.queryIds(matches(TEXT, "QUICK")));
+        assertEquals(Set.of("2"), docs.queryIds(matches(TEXT, "dog quick")));
+        assertEquals(Set.of("1"), docs.queryIds(equal(TEXT, "fox")));
+        assertEquals(1, docs.estimate(equal(TEXT, "dog quick")));
+        assertEquals(0, docs.estimate(equal(TEXT, "quick cat")));
+
+        // phrase queries require consecutive tokens
+        assertEquals(Set.of("1"), docs.queryIds(phrase(TEXT, "quick brown")));
+        assertEquals(Set.of("2"), docs.queryIds(phrase(TEXT, "the brown")));
+        assertEquals(Set.of(), docs.queryIds(phrase(TEXT, "brown quick")));
+
+        // prefix queries
+        assertEquals(Set.of("1", "3"), docs.queryIds(prefix(TEXT, "Fox")));
+
+        // combination with other queries and ranking
+        assertEquals(Set.of("1"), docs.queryIds(prefix(TEXT, "fox").and(matches(TEXT, "quick"))));
+        assertEquals(asList("A quick, quick dog; the brown one", "The quick brown fox"),
+                     docs.queryRanked(matches(TEXT, "quick")));
+
+        // removal cleans up the index
+        docs.remove("2", true);
+        assertEquals(Set.of("1"), docs.queryIds(matches(TEXT, "quick")));
+        assertThrows(IllegalArgumentException.class, () -> docs.query(prefix("Unknown", "a")));
+    }
+
+    @Test
+    public void testSpatialIndex() {
+        // events with (x, y, time)
+        Table<double[]> events = new Table<>(false);
+        String POS = "pos";
+        events.addSpatialIndex(POS, p -> p, 3);
+
+        // ascending times force the k-d tree to rebalance repeatedly
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; ++i) {
+            double[] p = { random.nextInt(100), random.nextInt(100), i };
+            events.insert(String.valueOf(i), p, ERROR);
+        }
+        for (int i = 0; i < 2000; i += 3) {
+            events.remove(String.valueOf(i), true);
+        }
+
+        double[] min = { 10, 20, 500 };
+        double[] max = { 40, 60, 1500 };
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 2000; ++i) {
+            double[] p = events.queryById(String.valueOf(i));
+            if (p != null && p[0] >= 10 && p[0] <= 40 && p[1] >= 20 && p[1] <= 60 && p[2] >= 500
+                && p[2] <= 1500) {
+                expected.add(String.valueOf(i));
+            }
+        }
+        assertEquals(expected, events.queryIds(within(POS, min, max)));
+
+        // exact lookups and wrong dimensions
+        assertEquals(Set.of("1"), events.queryIds(equal(POS, events.queryById("1").clone())));
+        assertEquals(1, events.estimate(equal(POS, events.queryById("1").clone())));
+        assertEquals(0, events.estimate(equal(POS, new double[] { -1, -1, -1 })));
+        assertThrows(IllegalArgumentException.class,
+                     () -> events.query(within(POS, new double[2], new double[2])));
+        assertThrows(IllegalArgumentException.class,
+                     () -> events.insert("x", new double[] { 1, 2 }, ERROR));
+        assertEquals(null, events.queryById("x"));
+    }
+
+    @Test
+    public void testBloomIndex() {
+        Table<Integer> numbers = new Table<>(false);
+        String MOD = "mod", BLOOM = "bloom";
+        numbers.addIndex(MOD, i -> i % 10, Integer.class);
+        numbers.addBloomIndex(BLOOM, i -> i, Integer.class, 1000, 0.01);
+        for (int i = 0; i < 1000; ++i) {
+            numbers.insert(String.valueOf(i), 2 * i, ERROR);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            numbers.remove(String.valueOf(i), true);
+        }
+
+        // no false negatives, few false positives
+        int falsePositives = 0;
+        for (int i = 0; i < 2000; ++i) {
+            boolean present = i % 4 == 2;
+            if (present) {
+                assertEquals(true, numbers.mightContain(equal(BLOOM, i)));
+                assertEquals(Set.of(String.valueOf(i / 2)), numbers.queryIds(equal(BLOOM, i)));
+                assertEquals(true, numbers.estimate(equal(BLOOM, i)) >= 1);
+            } else if (numbers.mightContain(equal(BLOOM, i))) {
+                falsePositives++;
+                assertEquals(Set.of(), numbers.queryIds(equal(BLOOM, i)));
+            }
+        }
+        assertEquals(true, falsePositives < 50);
+
+        // estimates and AND ordering
+        assertEquals(100, numbers.estimate(equal(MOD, 2)));
+        assertEquals(0, numbers.estimate(equal(MOD, 3)));
+        assertEquals(0, numbers.estimate(equal(MOD, 2).and(equal(MOD, 3))));
+        assertEquals(200, numbers.estimate(equal(MOD, 2).or(equal(MOD, 6))));
+        assertEquals(Set.of("1"), numbers.queryIds(equal(MOD, 2).and(equal(BLOOM, 2))));
+        assertEquals(Set.of(), numbers.queryIds(equal(MOD, 2).and(equal(BLOOM, 4))));
+    }
+
+    @Test
+    public void testExpiry() {
+        long[] now = { 1000 };
+        List<String> evicted = new ArrayList<>();
+        t.setClock(() -> now[0]).setDefaultTtl(100);
+        t.addEvictionListener((id, p, cause) -> evicted.add(p.name + ":" + cause));
+
+        t.insert("5", new Person("Ann", 40, 60.), ERROR);
+        t.insert("6", new Person("Bob", 40, 80.), ERROR, 50);
+        t.insert("7", new Person("Eve", 41, 65.), ERROR, 0); // never expires
+        assertEquals(Long.valueOf(1100), t.getExpiry("5"));
+        assertEquals(null, t.getExpiry("7"));
+
+        now[0] = 1050;
+        assertEquals(1, t.evictExpired());
+        assertEquals(asList("Bob:EXPIRED"), evicted);
+        assertEquals(asList("Ann"), map(t.query(equal(AGE, 40)), p -> p.name));
+
+        // overwriting and explicit removal reset the expiry
+        t.insert("5", new Person("Ann", 40, 61.), OVERWRITE, 500);
+        t.setTtl("4", 10);
+        now[0] = 1200;
+        assertEquals(1, t.evictExpired());
+        assertEquals(asList("Bob:EXPIRED", "Joe:EXPIRED"), evicted);
+        t.remove("5", true);
+        now[0] = 2000;
+        assertEquals(0, t.evictExpired());
+        assertEquals(asList("John", "Jane", "Arny", "Eve"), map(t.query(lessEqual(AGE, 50)),
+                                                                   p -> p.name));
+
+        // batch removal
+        assertEquals(2, t.remove(asList("1", "2", "unknown")));
+        assertEquals(asList("Arny", "Eve"), map(t.query(lessEqual(AGE, 50)), p -> p.name));
+        assertEquals(asList("Eve"), map(t.query(lessEqual(WEIGHT, 70.)), p -> p.name));
+    }
+
+    @Test
+    public void testCapacity() {
+        List<String> evicted = new ArrayList<>();
+        t.addEvictionListener((id, p, cause) -> evicted.add(p.name + ":" + cause));
+
+        // LRU: John and Jane are evicted, but Arny has been accessed after Joe
+        t.setCapacity(2, EvictionPolicy.lru());
+        assertEquals(asList("John:CAPACITY", "Jane:CAPACITY"), evicted);
+        t.query(equal(AGE, 28));
+        t.insert("5", new Person("Ann", 40, 60.), ERROR);
+        assertEquals(asList("John:CAPACITY", "Jane:CAPACITY", "Joe:CAPACITY"), evicted);
+        assertEquals(asList("Arny", "Ann"), map(t.query(lessEqual(AGE, 50)), p -> p.name));
+
+        // weights: Arny alone is too heavy to share the table with Ann
+        evicted.clear();
+        t.setCapacity(150, EvictionPolicy.weighted(p -> Math.round(p.weight)));
+        assertEquals(asList("Arny:CAPACITY"), evicted);
+        assertEquals(60, t.getWeight());
+        t.remove("5", true);
+        assertEquals(0, t.getWeight());
+
+        // LFU: frequently read rows survive
+        Table<Integer> numbers = new Table<>(false);
+        numbers.setCapacity(10, EvictionPolicy.lfu());
+        for (int i = 0; i < 10; ++i) {
+            numbers.insert(String.valueOf(i), i, ERROR);
+            for (int j = 0; j < i; ++j) {
+                numbers.queryById(String.valueOf(i));
+            }
+        }
+        for (int i = 10; i < 15; ++i) {
+            numbers.insert(String.valueOf(i), i, ERROR);
+        }
+        assertEquals(10, numbers.size());
+        for (int i = 5; i < 10; ++i) {
+            assertEquals(Integer.valueOf(i), numbers.queryById(String.valueOf(i)));
+        }
+
+        // LFU: a fresh row is not evicted by its own insertion
+        Table<Integer> popular = new Table<>(false);
+        popular.setCapacity(4, EvictionPolicy.lfu());
+        for (int i = 0; i < 4; ++i) {
+            popular.insert(String.valueOf(i), i, ERROR);
+            for (int j = 0; j < 3; ++j) {
+                popular.queryById(String.valueOf(i));
+            }
+        }
+        popular.insert("new", 4, ERROR);
+        assertEquals(4, popular.size());
+        assertEquals(Integer.valueOf(4), popular.queryById("new"));
+
+        // a policy returning unknown ids must not make the eviction loop forever
+        Table<Integer> broken = new Table<>(false);
+        broken.insert("1", 1, ERROR);
+        EvictionPolicy<Integer> unknown = new EvictionPolicy<>() {
+            @Override
+            public void onInsert(String id, Integer value) {
+            }
+
+            @Override
+            public void onAccess(String id) {
+            }
+
+            @Override
+            public void onRemove(String id, Integer value) {
+            }
+
+            @Override
+            public String victim() {
+                return "unknown";
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> broken.setCapacity(0, unknown));
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////
     // ==================================== PRIVATE STUFF ====================================== //
     ///////////////////////////////////////////////////////////////////////////////////////////////
@@ -1,14 +1,69 @@
 package ms.ipp;
 
+import static ms.ipp.Iterables.all;
 import static ms.ipp.Iterables.appendList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ms.ipp.base.IntKeyValue;
+import ms.ipp.base.KeyValue;
+import ms.ipp.base.Serializer;
+import ms.ipp.iterable.BiIterable;
+import ms.ipp.iterable.DoubleIterable;
+import ms.ipp.iterable.FilteredIterable;
+import ms.ipp.iterable.IntIterable;
+import ms.ipp.iterable.LongIterable;
+import ms.ipp.iterable.MappedIterable;
+import ms.ipp.iterator.BatchIterator;
+import ms.ipp.iterator.Distinct;
+import ms.ipp.iterator.FilteredIterator;
+import ms.ipp.iterator.NestedIterator;
 
 public class TestIterables {
 
@@ -20,6 +75,716 @@ public class TestIterables {
         assertEquals("de.ma", appendList(list.subList(0, 2), "", "", ".", (s, sb) -> sb.append(s)));
         assertEquals("de.ma.goo",
                      appendList(list.subList(0, 3), "", "", ".", (s, sb) -> sb.append(s)));
+        assertEquals("[de, ma, goo]", Iterables.toString(list.toArray()));
+
+        assertEquals("()", Iterables.join(new ArrayList<String>(), "(", ")", ".", (s, sb) -> sb
+                .append(s)));
+        // nested calls get their own builders
+        List<List<String>> nested = Arrays.asList(list, list.subList(0, 1));
+        assertEquals("{[de.ma.goo]; [de]}",
+                     Iterables.join(nested,
+                                    "{",
+                                    "}",
+                                    "; ",
+                                    (l, sb) -> sb.append(Iterables.join(l,
+                                                                        "[",
+                                                                        "]",
+                                                                        ".",
+                                                                        (s, b) -> b.append(s)))));
+
+        // large Iterables are flushed in chunks
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            items.add(i);
+        }
+        String expected = appendList(items, "<", ">", ",", (i, sb) -> sb.append(i));
+        StringWriter writer = new StringWriter();
+        assertTrue(writer == Iterables.appendTo(writer, items, "<", ">", ",", (i, sb) -> sb.append(i)));
+        assertEquals(expected, writer.toString());
+        CharBuffer chars = CharBuffer.allocate(expected.length());
+        Iterables.appendTo(chars, items, "<", ">", ",", (i, sb) -> sb.append(i));
+        assertEquals(expected, chars.flip().toString());
+        StringBuilder builder = new StringBuilder("x");
+        Iterables.appendTo(builder, list, "", "", ".", (s, sb) -> sb.append(s));
+        assertEquals("xde.ma.goo", builder.toString());
+    }
+
+    @Test
+    public void testBatches() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            items.add(i);
+        }
+        // plain, mapped, filtered, fused and nested sources
+        Iterable<Integer> nested = () -> NestedIterator.merge(items.subList(0, 3).iterator(),
+                                                              items.subList(3, 3).iterator(),
+                                                              items.subList(3, 10).iterator());
+        List<Iterable<Integer>> sources = Arrays
+                .asList(items,
+                        new MappedIterable<>(items, i -> i),
+                        new FilteredIterable<>(items).setFilter(() -> i -> true),
+                        Iterables.filtered(Iterables.mapped(items, i -> i), i -> true),
+                        nested);
+        for (Iterable<Integer> source : sources) {
+            List<List<Integer>> batches = new ArrayList<>();
+            Iterables.forEachBatch(source, 4, b -> batches.add(new ArrayList<>(b)));
+            assertEquals(Arrays.asList(items.subList(0, 4), items.subList(4, 8), items.subList(8, 10)),
+                         batches);
+            assertEquals(batches, Iterables.list(Iterables.chunked(source, 4)));
+        }
+
+        // filters compact batches in place
+        List<List<Integer>> batches = new ArrayList<>();
+        Iterables.forEachBatch(Iterables.filtered(items, i -> i % 3 == 0),
+                               3,
+                               b -> batches.add(new ArrayList<>(b)));
+        assertEquals(Arrays.asList(Arrays.asList(0, 3, 6), Arrays.asList(9)), batches);
+
+        // a pending element found by hasNext() is not lost
+        var it = new FilteredIterator<>(items.iterator(), i -> i > 6);
+        assertTrue(it.hasNext());
+        Object[] buffer = new Object[5];
+        assertEquals(3, it.nextBatch(buffer, 1, 4));
+        assertEquals(Arrays.asList(null, 7, 8, 9, null), Arrays.asList(buffer));
+        assertEquals(0, it.nextBatch(buffer, 0, 5));
+
+        // batches cannot be removed
+        for (Iterable<Integer> source : sources.subList(2, sources.size())) {
+            var batched = (BatchIterator<Integer>) source.iterator();
+            assertEquals(2, batched.nextBatch(buffer, 0, 2));
+            assertThrows(IllegalStateException.class, batched::remove);
+        }
+
+        assertTrue(Iterables.list(Iterables.chunked(new ArrayList<>(), 2)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Iterables.chunked(items, 0));
+    }
+
+    @Test
+    public void testIndexed() {
+        List<String> words = Arrays.asList("a", "bb", "ccc");
+        List<IntKeyValue<String>> entries = new ArrayList<>();
+        IntKeyValue<String> previous = null;
+        for (IntKeyValue<String> e : Iterables.indexed(words)) {
+            // one cursor for all elements
+            assertTrue(previous == null || previous == e);
+            previous = e;
+            entries.add(e.copy());
+        }
+        assertEquals(Arrays.asList(new IntKeyValue<>(0, "a"),
+                                   new IntKeyValue<>(1, "bb"),
+                                   new IntKeyValue<>(2, "ccc")),
+                     entries);
+        assertEquals(KeyValue.KVP(2, "ccc"), entries.get(2).toKeyValue());
+    }
+
+    @Test
+    public void testSetAlgebra() {
+        Set<Integer> evens = new HashSet<>(Arrays.asList(0, 2, 4, 6, 8));
+        List<Integer> small = Arrays.asList(1, 2, 3, 4);
+        Set<Integer> large = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            large.add(i);
+        }
+        assertEquals(Set.of(2, 4), Iterables.intersection(evens, small, large));
+        assertEquals(Set.of(), Iterables.intersection(evens, small, Set.of()));
+        assertEquals(Set.of(0, 1, 2, 3, 4, 6, 8), Iterables.union(evens, small));
+        Iterable<Integer> iterable = small::iterator;
+        assertEquals(Set.of(1, 2, 3, 4), Iterables.union(small, iterable));
+        assertThrows(IllegalArgumentException.class,
+                     () -> Iterables.intersection(new ArrayList<Collection<Integer>>()));
+
+        // sorted sets are merged (or searched in if much larger) and give sorted results
+        TreeSet<Integer> sortedEvens = new TreeSet<>(evens);
+        TreeSet<Integer> sortedLarge = new TreeSet<>(large);
+        TreeSet<Integer> sortedSmall = new TreeSet<>(small);
+        Set<Integer> sortedResult = Iterables.intersection(sortedEvens, sortedLarge, sortedSmall);
+        assertTrue(sortedResult instanceof TreeSet);
+        assertEquals(Arrays.asList(2, 4), new ArrayList<>(sortedResult));
+        sortedResult = Iterables.union(sortedEvens, sortedSmall);
+        assertTrue(sortedResult instanceof TreeSet);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 6, 8), new ArrayList<>(sortedResult));
+        // different orderings are not merged
+        TreeSet<Integer> reversed = new TreeSet<>(Comparator.reverseOrder());
+        reversed.addAll(small);
+        assertEquals(Set.of(2, 4), Iterables.intersection(sortedEvens, reversed));
+
+        // huge inputs are processed in parallel, also with nulls
+        List<Integer> huge = new ArrayList<>();
+        for (int i = 0; i < SetAlgebra.PARALLEL_THRESHOLD; ++i) {
+            huge.add(i);
+        }
+        Set<Integer> hugeSet = new HashSet<>(huge);
+        assertEquals(hugeSet, Iterables.intersection(huge, hugeSet));
+        assertEquals(hugeSet, Iterables.union(huge, small));
+        huge.add(null);
+        assertTrue(Iterables.union(huge, small).contains(null));
+        Set<Integer> union = Iterables.union(huge, small);
+        assertTrue(union instanceof HashSet);
+        union.add(null);
+        assertEquals(hugeSet.size() + 1, union.size());
+    }
+
+    @Test
+    public void testFlows() throws Exception {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            items.add(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // round trip with lazy mapping and filtering and a small prefetch
+            Flow.Publisher<Integer> publisher = Flows.publisher(items, executor);
+            Flow.Publisher<Integer> transformed = Flows.filtered(Flows.mapped(publisher, i -> 2 * i),
+                                                                 i -> i % 3 == 0);
+            assertEquals(Iterables.filterMap(items, i -> (2 * i) % 3 == 0, i -> 2 * i),
+                         Iterables.list(Flows.iterable(transformed, 4)));
+            // every iterator subscribes anew
+            assertEquals(items, Iterables.list(Flows.iterable(publisher)));
+
+            // the source is only iterated as far as requested
+            AtomicInteger pulled = new AtomicInteger();
+            Iterable<Integer> counting = Iterables.mapped(items, i -> {
+                pulled.incrementAndGet();
+                return i;
+            });
+            List<Integer> received = new CopyOnWriteArrayList<>();
+            CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<>();
+            CompletableFuture<Void> completed = new CompletableFuture<>();
+            Flows.publisher(counting, executor).subscribe(new Flow.Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    subscription.complete(s);
+                    s.request(3);
+                }
+
+                @Override
+                public void onNext(Integer item) {
+                    received.add(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    completed.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.complete(null);
+                }
+            });
+            while (received.size() < 3) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            assertEquals(Arrays.asList(0, 1, 2), received);
+            assertTrue(pulled.get() <= 4); // one element may be looked ahead for completion
+            subscription.get().request(Long.MAX_VALUE);
+            completed.get(10, TimeUnit.SECONDS);
+            assertEquals(items, received);
+
+            // errors propagate to the consumer
+            Iterable<Integer> failing = Iterables.mapped(items, i -> {
+                if (i == 500) {
+                    throw new IllegalStateException("failed at " + i);
+                }
+                return i;
+            });
+            var it = Flows.iterable(Flows.publisher(failing, executor)).iterator();
+            assertThrows(IllegalStateException.class, () -> {
+                while (it.hasNext()) {
+                    it.next();
+                }
+            });
+
+            // publishers from elsewhere are consumed as iterables
+            try (SubmissionPublisher<String> submission = new SubmissionPublisher<>(executor, 16)) {
+                var words = Flows.iterable(submission, 2).iterator();
+                submission.submit("a");
+                submission.submit("b");
+                submission.close();
+                assertEquals(Arrays.asList("a", "b"), Iterables.list(() -> words));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMappedConcurrent() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            items.add(i);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Function<Integer, Integer> blocking = i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(i % 3); // completes out of order
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return -i;
+        };
+        // results keep the source order and concurrency is bounded
+        assertEquals(Iterables.map(items, i -> -i),
+                     Iterables.list(Iterables.mappedConcurrent(items, blocking, 8)));
+        assertTrue(maxRunning.get() <= 8);
+
+        // in the completion order, all results arrive
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Integer> unordered = Iterables.list(Iterables
+                    .mappedConcurrent(items, blocking, 8, false, executor));
+            assertEquals(Iterables.set(Iterables.map(items, i -> -i), null),
+                         Iterables.set(unordered, null));
+            assertEquals(items.size(), unordered.size());
+
+            // exceptions reach the consumer
+            Iterable<Integer> failing = Iterables.mappedConcurrent(items, i -> {
+                if (i == 100) {
+                    throw new IllegalStateException();
+                }
+                return i;
+            }, 4, true, executor);
+            assertThrows(IllegalStateException.class, () -> Iterables.list(failing));
+        } finally {
+            executor.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> Iterables.mappedConcurrent(items, blocking, 0));
+    }
+
+    @Test
+    public void testExternalSort(@TempDir Path dir) throws IOException {
+        Random random = new Random(42);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            items.add(random.nextInt(1000));
+        }
+        List<Integer> expected = new ArrayList<>(items);
+        expected.sort(null);
+
+        // 100 runs, merged in intermediate passes of 4
+        ExternalSort<Integer> sort = new ExternalSort<Integer>(Comparator.naturalOrder(),
+                                                               Serializer.ints()).setBudget(100)
+                                                                                 .setFanIn(4)
+                                                                                 .setDirectory(dir);
+        assertEquals(expected, Iterables.list(sort.sorted(items)));
+        assertEquals(0, Files.list(dir).count());
+
+        // abandoned iterators delete their runs when closed
+        try (ExternalSort.SortedIterator<Integer> it = sort.sort(items.iterator())) {
+            assertTrue(Files.list(dir).count() > 0);
+            assertEquals(expected.get(0), it.next());
+        }
+        assertEquals(0, Files.list(dir).count());
+
+        // in memory
+        assertEquals(expected,
+                     Iterables.list(Iterables.sorted(items,
+                                                     Comparator.naturalOrder(),
+                                                     20000,
+                                                     Serializer.ints())));
+
+        // nulls need a nullable serializer
+        List<Integer> withNulls = Arrays.asList(3, null, 1, null, 2);
+        Comparator<Integer> order = Comparator.nullsFirst(Comparator.naturalOrder());
+        ExternalSort<Integer> nullsFirst = new ExternalSort<Integer>(order,
+                                                                     Serializer.nullable(Serializer.ints()))
+                .setBudget(2)
+                .setDirectory(dir);
+        assertEquals(Arrays.asList(null, null, 1, 2, 3),
+                     Iterables.list(nullsFirst.sorted(withNulls)));
+        DataOutputStream out = new DataOutputStream(new ByteArrayOutputStream());
+        assertThrows(NullPointerException.class, () -> Serializer.ints().write(null, out));
+
+        List<String> words = Arrays.asList("ccc", "a", "bb", null, "dd", "e", "fff", "g");
+        Map<Integer, List<String>> groups = Iterables.group(words,
+                                                            w -> w == null ? null : w.length(),
+                                                            TreeMap::new);
+        ExternalSort<String> byLength = new ExternalSort<String>(Comparator.comparing(String::length),
+                                                                 Serializer.strings()).setBudget(2)
+                                                                                      .setDirectory(dir);
+        List<Entry<Integer, List<String>>> external = Iterables.list(byLength
+                .grouped(Iterables.filtered(words, w -> w != null), String::length));
+        assertEquals(Iterables.list(groups.entrySet()), external);
+        assertEquals(0, Files.list(dir).count());
+    }
+
+    @Test
+    public void testDistinct() {
+        List<Integer> items = Arrays.asList(1, 1, 2, 3, 1, 3, 3, 4, 2);
+        assertEquals(Arrays.asList(1, 2, 3, 4), Iterables.list(Iterables.distinct(items, i -> i)));
+        assertEquals(Arrays.asList(1, 2, 3, 4),
+                     Iterables.list(Iterables.distinct(items, i -> i, Distinct.exact())));
+        // only adjacent duplicates
+        assertEquals(Arrays.asList(1, 2, 3, 1, 3, 4, 2),
+                     Iterables.list(Iterables.distinct(items, i -> i, Distinct.sorted())));
+        // remembers the last two keys
+        assertEquals(Arrays.asList(1, 2, 3, 1, 4, 2),
+                     Iterables.list(Iterables.distinct(items, i -> i, Distinct.window(2))));
+        Iterable<Integer> window = Iterables.distinct(items, i -> i, Distinct.window(2));
+        assertEquals(Iterables.list(window), Iterables.list(window)); // state per iterator
+
+        // a Bloom filter never returns duplicates and drops few distinct keys
+        List<Integer> many = new ArrayList<>();
+        for (int i = 0; i < 20000; ++i) {
+            many.add(i % 10000);
+        }
+        List<Integer> approx = Iterables.list(Iterables.distinct(many,
+                                                                 i -> i,
+                                                                 Distinct.bloom(10000, .01)));
+        assertEquals(approx.size(), new HashSet<>(approx).size());
+        assertTrue(approx.size() > 9800);
+
+        assertThrows(IllegalArgumentException.class, () -> Distinct.window(0));
+        assertThrows(IllegalArgumentException.class, () -> Distinct.bloom(10, 1.));
+
+        // filters which are not thread-safe are not shared by parallel splits
+        List<Integer> ints = new ArrayList<>();
+        for (int i = 0; i < 200000; ++i) {
+            ints.add(i);
+        }
+        List<Distinct> strategies = Arrays.asList(Distinct.exact(),
+                                                  Distinct.concurrent(),
+                                                  Distinct.sorted());
+        for (Distinct strategy : strategies) {
+            Iterable<Integer> keys = Iterables.distinct(ints, x -> x / 20, strategy);
+            assertEquals(strategy.isConcurrent(), keys.spliterator().trySplit() != null);
+            for (int run = 0; run < 5; ++run) {
+                assertEquals(10000, Iterables.parallel().count(keys));
+                assertEquals(10000, StreamSupport.stream(keys.spliterator(), true).count());
+            }
+        }
+    }
+
+    @Test
+    public void testWindows() {
+        List<Integer> items = Arrays.asList(4, 1, 3, 5, 2, 6, 0);
+        assertEquals(Arrays.asList(Arrays.asList(4, 1, 3), Arrays.asList(5, 2, 6), Arrays.asList(0)),
+                     Iterables.list(Iterables.tumbling(items, 3)));
+        assertEquals(Arrays.asList(Arrays.asList(4, 1, 3), Arrays.asList(3, 5, 2),
+                                   Arrays.asList(2, 6, 0)),
+                     Iterables.map(Iterables.sliding(items, 3, 2), ArrayList::new));
+        assertEquals(Arrays.asList(Arrays.asList(4, 1), Arrays.asList(5, 2)),
+                     Iterables.map(Iterables.sliding(items, 2, 3), ArrayList::new));
+        assertEquals(Arrays.asList(), Iterables.list(Iterables.sliding(items, 8, 1)));
+        assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(7, 8), Arrays.asList(20)),
+                     Iterables.list(Iterables.sessions(Arrays.asList(1, 2, 3, 7, 8, 20),
+                                                       i -> i,
+                                                       2)));
+
+        // incremental aggregates equal the naive ones
+        List<Integer> many = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; ++i) {
+            many.add(random.nextInt(100));
+        }
+        double[] sums = Iterables.slidingSum(many, i -> i, 10).toArray();
+        double[] mins = Iterables.slidingMin(many, i -> i, 10).toArray();
+        double[] maxs = Iterables.slidingMax(many, i -> i, 10).toArray();
+        for (int i = 0; i < many.size(); ++i) {
+            List<Integer> window = many.subList(Math.max(0, i - 9), i + 1);
+            assertEquals(window.stream().mapToInt(j -> j).sum(), sums[i], 1e-9);
+            assertEquals(Collections.min(window).doubleValue(), mins[i]);
+            assertEquals(Collections.max(window).doubleValue(), maxs[i]);
+        }
+
+        // time-based windows of width 3, i.e., (t - 3, t]
+        List<Integer> times = Arrays.asList(1, 2, 2, 4, 8, 9);
+        assertTrue(Arrays.equals(new long[] { 1, 2, 3, 3, 1, 2 },
+                                 Iterables.slidingCount(times, i -> i, 3).toArray()));
+        assertTrue(Arrays.equals(new double[] { 1, 3, 5, 8, 8, 17 },
+                                 Iterables.slidingSum(times, i -> i, i -> i, 3).toArray()));
+
+        // non-finite values only affect the sums of their windows
+        double inf = Double.POSITIVE_INFINITY;
+        List<Double> special = Arrays.asList(inf, 1., 2., Double.NaN, 3., -inf, 4.);
+        assertTrue(Arrays.equals(new double[] { inf, 1, 2, Double.NaN, 3, -inf, 4 },
+                                 Iterables.slidingSum(special, d -> d, 1).toArray()));
+        assertTrue(Arrays.equals(new double[] { inf, inf, 3, Double.NaN, Double.NaN, -inf, -inf },
+                                 Iterables.slidingSum(special, d -> d, 2).toArray()));
+        assertTrue(Double.isNaN(Iterables.slidingSum(Arrays.asList(inf, -inf), d -> d, 2)
+                .toArray()[1]));
+        assertTrue(Arrays.equals(new double[] { 4, 8, 9 },
+                                 Iterables.slidingMax(times, i -> i, i -> i, 3)
+                                         .filtered(d -> d > 3)
+                                         .toArray()));
+        assertThrows(IllegalArgumentException.class,
+                     () -> Iterables.slidingCount(Arrays.asList(2, 1), i -> i, 3).toArray());
+    }
+
+    @Test
+    public void testJoins() {
+        List<String> names = Arrays.asList("a", "b", "c");
+        List<Integer> numbers = Arrays.asList(1, 2, 3, 4);
+        assertEquals(Arrays.asList(new KeyValue<>("a", 1), new KeyValue<>("b", 2),
+                                   new KeyValue<>("c", 3)),
+                     Iterables.list(Iterables.zip(names, numbers)));
+        assertEquals(Iterables.bimap(names, numbers, (s, i) -> s + i),
+                     Iterables.list(Iterables.zip(names, numbers, (s, i) -> s + i)));
+
+        // sorted by length, with duplicate keys on both sides and null keys
+        List<String> left = Arrays.asList(null, "a", "b", "cc", "ddd", "eeee", "ffff");
+        List<Integer> right = Arrays.asList(null, 0, 1, 1, 3, 4, 5);
+        List<String> expected = Arrays.asList("a1", "a1", "b1", "b1", "ddd3", "eeee4", "ffff4");
+        Function<String, Integer> length = s -> s == null ? null : s.length();
+        BiIterable<String, Integer> merged = Iterables.mergeJoin(left,
+                                                                 right,
+                                                                 length,
+                                                                 i -> i,
+                                                                 Comparator.naturalOrder());
+        assertEquals(expected, Iterables.map(merged, e -> e.getKey() + e.getValue()));
+        BiIterable<String, Integer> hashed = Iterables.hashJoin(left, right, length, i -> i);
+        assertEquals(expected, Iterables.map(hashed, e -> e.getKey() + e.getValue()));
+
+        // a bounded build side yields the same pairs, block by block
+        BiIterable<String, Integer> blocks = Iterables.hashJoin(left, right, length, i -> i, 2);
+        List<String> joined = Iterables.map(blocks, e -> e.getKey() + e.getValue());
+        joined.sort(null);
+        assertEquals(expected, joined);
+        assertThrows(IllegalArgumentException.class,
+                     () -> Iterables.hashJoin(left, right, length, i -> i, 0));
+    }
+
+    @Test
+    public void testAggregate() {
+        List<String> words = Arrays.asList("a", "bb", "ccc", "dddd");
+        MultiAggregate<String> agg = Iterables.aggregate(words, String::length, w -> -w.length());
+        assertEquals(4, agg.count());
+        assertEquals(10., agg.sum(0));
+        assertEquals(1., agg.min(0));
+        assertEquals(4., agg.max(0));
+        assertEquals(2.5, agg.ave(0));
+        assertEquals(-4., agg.min(1));
+        assertEquals(Double.POSITIVE_INFINITY, Iterables.aggregate(Arrays.<String>asList(),
+                                                                   String::length)
+                .min(0));
+
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100000; ++i) {
+            items.add(i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MultiAggregate<Integer> parallel = Iterables.parallel()
+                    .setPool(pool)
+                    .aggregate(items, i -> i, i -> i % 7);
+            assertEquals(100000, parallel.count());
+            assertEquals(4999950000., parallel.sum(0));
+            assertEquals(99999., parallel.max(0));
+            assertEquals(6., parallel.max(1));
+            assertEquals(0., parallel.min(1));
+        } finally {
+            pool.shutdown();
+        }
+
+        // count iterates without collecting
+        assertEquals(100000, Iterables.count(Iterables.toIterable(items::iterator)));
+        assertEquals(3, Iterables.count(Iterables.filtered(words, w -> w.length() > 1)));
+    }
+
+    @Test
+    public void testCombinators() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            items.add(i);
+        }
+        List<Predicate<Integer>> preds = Arrays.asList(i -> i % 2 == 0,
+                                                       i -> i % 3 == 0,
+                                                       i -> i % 5 == 0,
+                                                       i -> i % 7 == 0,
+                                                       i -> i > 50);
+        for (int n = 0; n <= preds.size(); ++n) {
+            List<Predicate<Integer>> ps = new ArrayList<>(preds.subList(0, n));
+            ps.add(null); // nulls are ignored
+            @SuppressWarnings("unchecked")
+            Predicate<Integer>[] array = ps.toArray(new Predicate[0]);
+            Predicate<Integer> and = Algorithms.and(array);
+            Predicate<Integer> or = Algorithms.or(array);
+            if (n == 0) {
+                assertEquals(null, and);
+                assertEquals(null, or);
+                continue;
+            }
+            List<Predicate<Integer>> nonNull = preds.subList(0, n);
+            for (Integer i : items) {
+                assertEquals(all(nonNull, p -> p.test(i)), and.test(i));
+                assertEquals(Iterables.any(nonNull, p -> p.test(i)), or.test(i));
+            }
+            List<Integer> calls = new ArrayList<>();
+            @SuppressWarnings("unchecked")
+            Consumer<Integer>[] procs = new Consumer[n];
+            for (int j = 0; j < n; ++j) {
+                int k = j;
+                procs[j] = i -> calls.add(k);
+            }
+            Algorithms.seq(procs).accept(0);
+            assertEquals(Iterables.list(IntStream.range(0, n)::iterator), calls);
+        }
+
+        // the spliterators reuse one sink for all elements
+        Iterable<Integer> pipeline = Iterables.mapped(Iterables.filtered(items, i -> i % 2 == 0),
+                                                      i -> i / 2);
+        assertEquals(Iterables.list(IntStream.range(0, 50)::iterator),
+                     Streams.stream(pipeline).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSortedIterables() {
+        TreeSet<Integer> evens = new TreeSet<>(Arrays.asList(0, 2, 4, 6, 8, 10));
+        TreeSet<Integer> triples = new TreeSet<>(Arrays.asList(0, 3, 6, 9));
+        TreeSet<Integer> reversed = new TreeSet<>(Comparator.reverseOrder());
+        reversed.addAll(evens);
+        List<Integer> unsorted = Arrays.asList(3, 1, 2);
+
+        assertEquals(Comparator.naturalOrder(), SortedIterables.comparatorOf(evens));
+        assertEquals(Comparator.reverseOrder(), SortedIterables.comparatorOf(reversed));
+        assertEquals(null, SortedIterables.comparatorOf(unsorted));
+
+        // merge
+        List<Integer> merged = Iterables.list(SortedIterables.merge(Arrays.asList(evens, triples)));
+        assertEquals(Arrays.asList(0, 0, 2, 3, 4, 6, 6, 8, 9, 10), merged);
+        assertEquals(Arrays.asList(1, 1, 2, 3, 5),
+                     Iterables.list(SortedIterables.merge(Arrays.asList(Arrays.asList(1, 3),
+                                                                        Arrays.asList(),
+                                                                        Arrays.asList(1, 2, 5)),
+                                                          Comparator.<Integer> naturalOrder())));
+        assertThrows(IllegalArgumentException.class,
+                     () -> SortedIterables.merge(Arrays.asList(evens, reversed)));
+        assertThrows(IllegalArgumentException.class,
+                     () -> SortedIterables.merge(Arrays.asList(evens, unsorted)));
+
+        // dedupe
+        assertEquals(Arrays.asList(0, 2, 3, 4, 6, 8, 9, 10),
+                     Iterables.list(SortedIterables.dedupe(merged, Comparator.naturalOrder())));
+        assertEquals(Arrays.asList(), Iterables.list(SortedIterables.dedupe(new TreeSet<Integer>())));
+        assertThrows(IllegalArgumentException.class, () -> SortedIterables.dedupe(unsorted));
+
+        // intersection and difference
+        assertEquals(Arrays.asList(0, 6), Iterables.list(SortedIterables.intersection(evens, triples)));
+        assertEquals(Arrays.asList(2, 4, 8, 10),
+                     Iterables.list(SortedIterables.difference(evens, triples)));
+        assertEquals(Arrays.asList(0, 0, 6, 6),
+                     Iterables.list(SortedIterables.intersection(merged,
+                                                                 Arrays.asList(0, 1, 6, 7),
+                                                                 Comparator.naturalOrder())));
+        assertEquals(Arrays.asList(2, 3, 4, 8, 9, 10),
+                     Iterables.list(SortedIterables.difference(merged,
+                                                               Arrays.asList(0, 1, 6, 7),
+                                                               Comparator.naturalOrder())));
+        assertEquals(Arrays.asList(), Iterables.list(SortedIterables.intersection(evens, new TreeSet<>())));
+        assertEquals(Iterables.list(evens),
+                     Iterables.list(SortedIterables.difference(evens, new TreeSet<>())));
+
+        // range
+        assertEquals(Arrays.asList(4, 6, 8),
+                     Iterables.list(SortedIterables.range(evens, 3, true, 8, true)));
+        assertEquals(Arrays.asList(6), Iterables.list(SortedIterables.range(evens, 4, false, 8, false)));
+        assertEquals(Arrays.asList(0, 2), Iterables.list(SortedIterables.range(evens, null, true, 4, false)));
+        assertEquals(Arrays.asList(8, 6),
+                     Iterables.list(SortedIterables.range(reversed, 9, true, 5, true)));
+        assertEquals(Arrays.asList(3, 3, 4, 6, 6),
+                     Iterables.list(SortedIterables.range(Arrays.asList(0, 3, 3, 4, 6, 6, 8),
+                                                          3,
+                                                          true,
+                                                          7,
+                                                          false,
+                                                          Comparator.naturalOrder())));
+        assertEquals(Arrays.asList(8, 9, 10),
+                     Iterables.list(SortedIterables.range(merged, 7, true, null, true,
+                                                          Comparator.naturalOrder())));
+        assertThrows(IllegalArgumentException.class,
+                     () -> SortedIterables.range(evens, 8, true, 4, true));
+
+        // the range stops at its upper bound
+        AtomicInteger visited = new AtomicInteger();
+        Iterable<Integer> counted = Iterables.mapped(merged, i -> {
+            visited.incrementAndGet();
+            return i;
+        });
+        Iterables.list(SortedIterables.range(counted, 2, true, 3, true, Comparator.naturalOrder()));
+        assertEquals(5, visited.get());
+    }
+
+    @Test
+    public void testParallel() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100000; ++i) {
+            items.add(i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            var parallel = Iterables.parallel().setPool(pool).setDeterministic(true);
+            assertTrue(parallel.any(items, i -> i == 99999));
+            assertTrue(parallel.all(items, i -> i >= 0));
+            assertTrue(parallel.none(items, i -> i < 0));
+            assertEquals(Integer.valueOf(50001), parallel.first(items, i -> i > 50000));
+            assertEquals(Integer.valueOf(7), parallel.unique(items, i -> i == 7));
+            assertThrows(IllegalArgumentException.class, () -> parallel.unique(items, i -> i > 7));
+            assertEquals(100000, parallel.count(Iterables.toIterable(items::iterator)));
+            assertEquals(4999950000., parallel.sum(items, i -> i));
+            assertEquals(Iterables.map(items, i -> 2 * i), parallel.map(items, i -> 2 * i));
+            assertEquals(Iterables.filterMap(items, i -> i % 3 == 0, i -> -i),
+                         parallel.filterMap(items, i -> i % 3 == 0, i -> -i));
+            Map<Integer, List<Integer>> groups = Iterables.group(items, i -> i % 10, HashMap::new);
+            assertEquals(groups, parallel.group(items, i -> i % 10, HashMap::new));
+
+            // the actions run in the pool
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            parallel.setDeterministic(false);
+            parallel.forEach(items, i -> threads.add(Thread.currentThread()));
+            assertTrue(all(threads, t -> t instanceof ForkJoinWorkerThread
+                                         && ((ForkJoinWorkerThread) t).getPool() == pool));
+
+            // small inputs run sequentially in the calling thread
+            threads.clear();
+            parallel.forEach(items.subList(0, 100), i -> threads.add(Thread.currentThread()));
+            assertEquals(Set.of(Thread.currentThread()), threads);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrimitives() {
+        List<String> words = Arrays.asList("a", "bb", "ccc", "dddd");
+        IntIterable lengths = Iterables.ints(words, String::length);
+        assertEquals(10, lengths.sum());
+        assertEquals(OptionalInt.of(4), lengths.max());
+        assertEquals(OptionalDouble.of(2.5), lengths.ave());
+        assertEquals(6, lengths.filtered(i -> i % 2 == 0).sum());
+        assertEquals(Arrays.asList(2, 3, 4, 5), Iterables.list(lengths.mapped(i -> i + 1)));
+        assertEquals(30, lengths.stream().map(i -> i * i).sum());
+
+        DoubleIterable halves = lengths.asDoubles().mapped(d -> d / 2);
+        assertEquals(5., halves.sum());
+        assertEquals(OptionalDouble.of(.5), halves.min());
+        assertEquals(OptionalDouble.empty(), Iterables.doubles().max());
+        assertEquals(4, halves.count());
+
+        // infinities are not turned into NaN by the compensation
+        double inf = Double.POSITIVE_INFINITY;
+        assertEquals(inf, DoubleIterable.of(inf, 1.).sum());
+        assertEquals(-inf, DoubleIterable.of(1., -inf).sum());
+        assertEquals(OptionalDouble.of(inf), DoubleIterable.of(inf, 1.).ave());
+        assertTrue(Double.isNaN(DoubleIterable.of(inf, -inf).sum()));
+
+        // flattening
+        LongIterable nested = LongIterable.flatten(words, w -> LongIterable.of(() -> LongStream
+                .range(0, w.length())));
+        assertEquals(10, nested.count());
+        assertEquals(10, nested.sum());
+        assertTrue(Arrays.equals(new long[] { 0, 0, 1, 0, 1, 2, 0, 1, 2, 3 }, nested.toArray()));
+
+        // arrays know their size
+        IntIterable array = IntIterable.of(3, 1, 2);
+        assertEquals(3, array.spliterator().getExactSizeIfKnown());
+        assertEquals(3, array.count());
+        assertEquals(Arrays.asList(3, 1, 2), Iterables.list(array));
+        assertEquals(6., DoubleIterable.of(1, 2, 3).stream().parallel().sum());
     }
 
     @Test
@@ -7,19 +7,31 @@ import static ms.ipp.Iterables.toBiIt;
 import static ms.ipp.base.KeyValue.KVP;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Spliterator;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import ms.ipp.Iterables;
 import ms.ipp.base.KeyValue;
+import ms.ipp.base.Serializer;
 import ms.ipp.iterator.FilteredIterator;
 import ms.ipp.iterator.MappedIterator;
 import ms.ipp.iterator.NestedIterator;
@@ -134,6 +146,182 @@ public class TestIterable {
         return toBiIt(distinct(map, Entry::getKey));
     }
 
+    @Test
+    public void testSpliterators() {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            source.add(i);
+        }
+        // mapping preserves the size
+        Spliterator<Integer> mapped = Iterables.mapped(source, i -> 2 * i).spliterator();
+        Assert.assertEquals(10000, mapped.getExactSizeIfKnown());
+        Assert.assertEquals(5000, mapped.trySplit().getExactSizeIfKnown());
+
+        // filtering scales the estimate by the ratio of elements passed so far
+        Spliterator<Integer> filtered = Iterables.filtered(source, i -> i % 4 == 0).spliterator();
+        Assert.assertEquals(10000, filtered.estimateSize());
+        for (int i = 0; i < 25; ++i) {
+            Assert.assertTrue(filtered.tryAdvance(x -> Assert.assertEquals(0, x % 4)));
+        }
+        long estimate = filtered.estimateSize(); // about a quarter of the remaining elements
+        Assert.assertTrue(estimate > 2400 && estimate < 2600);
+
+        // iterator-only sources split into growing batches and yield all elements in parallel
+        Iterable<Integer> iterated = Iterables.toIterable(source::iterator);
+        Spliterator<Integer> batched = iterated.spliterator();
+        Assert.assertEquals(16, batched.trySplit().getExactSizeIfKnown());
+        Assert.assertEquals(32, batched.trySplit().getExactSizeIfKnown());
+        var evens = Iterables.filtered(iterated, i -> i % 2 == 0);
+        Assert.assertEquals(24995000L,
+                            StreamSupport.stream(evens.spliterator(), true)
+                                    .mapToLong(i -> i)
+                                    .sum());
+        Assert.assertEquals(source.size(),
+                            StreamSupport.stream(iterated.spliterator(), true).count());
+    }
+
+    @Test
+    public void testFusion() {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            source.add(i);
+        }
+        Iterable<Integer> mapped = Iterables.mapped(source, i -> i + 1);
+        Iterable<Integer> filtered = Iterables.filtered(mapped, i -> i % 2 == 0);
+        Iterable<Integer> twice = Iterables.filtered(Iterables.mapped(filtered, i -> i / 2),
+                                                     i -> i > 10);
+        Iterable<Integer> pipeline = Iterables.distinct(twice, i -> i % 20);
+
+        // map, filter, map, filter + distinct
+        Assert.assertTrue(pipeline instanceof FusedIterable);
+        Assert.assertEquals(4, ((FusedIterable<Integer>) pipeline).stageCount());
+        List<Integer> expected = Arrays.asList(11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21, 22, 23,
+                                               24, 25, 26, 27, 28, 29, 30);
+        Assert.assertEquals(expected, Iterables.list(pipeline));
+        Assert.assertEquals(expected, Iterables.list(pipeline)); // distinct state per iterator
+        Assert.assertEquals(expected,
+                            StreamSupport.stream(pipeline.spliterator(), false)
+                                    .collect(Collectors.toList()));
+        List<Integer> viaForEach = new ArrayList<>();
+        pipeline.forEach(viaForEach::add);
+        Assert.assertEquals(expected, viaForEach);
+
+        // stateful filters are not shared by splits, stateless ones are
+        Assert.assertEquals(null, pipeline.spliterator().trySplit());
+        Assert.assertEquals(expected,
+                            StreamSupport.stream(pipeline.spliterator(), true)
+                                    .collect(Collectors.toList()));
+        Spliterator<Integer> stateless = twice.spliterator();
+        Assert.assertTrue(stateless.trySplit() != null);
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertTrue(stateless.tryAdvance(x -> Assert.assertTrue(x > 10)));
+        }
+        Assert.assertTrue(stateless.estimateSize() < 50); // scaled by the filters
+
+        // removal is passed on to the source
+        Iterator<Integer> it = pipeline.iterator();
+        Assert.assertEquals(Integer.valueOf(11), it.next());
+        it.remove();
+        Assert.assertEquals(99, source.size());
+        Assert.assertTrue(!source.contains(21));
+    }
+
+    @Test
+    public void testCached(@TempDir Path dir) throws Exception {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            source.add(i);
+        }
+        AtomicInteger calls = new AtomicInteger();
+        Iterable<Integer> expensive = Iterables.mapped(source, i -> {
+            calls.incrementAndGet();
+            return i * 2;
+        });
+        List<Integer> expected = Iterables.list(expensive);
+        calls.set(0);
+
+        CachedIterable<Integer> cached = Iterables.cached(expensive);
+        Iterator<Integer> first = cached.iterator();
+        first.next();
+        first.next();
+        Assert.assertEquals(2, calls.get()); // lazy
+        Assert.assertEquals(expected, Iterables.list(cached));
+        Assert.assertEquals(expected, Iterables.list(cached));
+        Assert.assertEquals(Integer.valueOf(4), first.next());
+        Assert.assertEquals(1000, calls.get()); // exactly once
+
+        // concurrent iterators share one pass
+        calls.set(0);
+        CachedIterable<Integer> shared = Iterables.cached(expensive);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; ++i) {
+                results.add(executor.submit(() -> Iterables.list(shared)));
+            }
+            for (Future<List<Integer>> result : results) {
+                Assert.assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1000, calls.get());
+
+        // spilled
+        calls.set(0);
+        try (CachedIterable<Integer> spilled = Iterables.cached(expensive, 100, Serializer.ints())
+                .setDirectory(dir)) {
+            Iterator<Integer> it = spilled.iterator();
+            for (int i = 0; i < 500; ++i) {
+                it.next();
+            }
+            Assert.assertEquals(expected, Iterables.list(spilled));
+            Assert.assertEquals(Integer.valueOf(1000), it.next());
+            Assert.assertEquals(1000, calls.get());
+            assertThrows(IllegalStateException.class, () -> spilled.setDirectory(null));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testCachedClose(@TempDir Path dir) throws Exception {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            source.add(i);
+        }
+        CachedIterable<Integer> cached = Iterables.cached(source, 0, Serializer.ints())
+                .setDirectory(dir);
+        Iterator<Integer> it = cached.iterator();
+        Assert.assertEquals(Integer.valueOf(0), it.next());
+        cached.close();
+
+        // the source is not advanced and the spill file is not recreated
+        assertThrows(IllegalStateException.class, cached::iterator);
+        assertThrows(IllegalStateException.class, () -> {
+            while (it.hasNext()) {
+                it.next();
+            }
+        });
+        try (Stream<Path> files = Files.list(dir)) {
+            Assert.assertEquals(0, files.count());
+        }
+
+        // elements in memory stay available to existing iterators
+        CachedIterable<Integer> inMemory = Iterables.cached(source);
+        Iterator<Integer> first = inMemory.iterator();
+        Iterator<Integer> second = inMemory.iterator();
+        for (int i = 0; i < 10; ++i) {
+            first.next();
+        }
+        inMemory.close();
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals(Integer.valueOf(i), second.next());
+        }
+        assertThrows(IllegalStateException.class, second::hasNext);
+    }
+
     @SafeVarargs
     public static <T> void assertIterator(Iterator<T> it, T... entries) {
         for (T t : entries) {
@@ -5,9 +5,15 @@ import static ms.ipp.Iterables.mapped;
 import static ms.ipp.base.KeyValue.KVP;
 import static ms.ipp.iterable.TestIterable.assertIterator;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
 import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import ms.ipp.Iterables;
 import ms.ipp.base.KeyValue;
 import ms.ipp.iterable.BiIterable;
 
@@ -47,6 +53,81 @@ public class TestTree {
 				KVP("c", 5.0));
 	}
 
+	@Test
+	public void testCursor() {
+		StdMultiTree<Integer> tree = new StdMultiTree<>(Integer.class);
+		tree.set("a", 1);
+		tree.set("a", 2);
+		tree.set("b", 3);
+
+		// the cursor returns the same entry for all members
+		Entry<String, Integer> previous = null;
+		List<KeyValue<String, Integer>> copies = new ArrayList<>();
+		for (Entry<String, Integer> e : tree.cursor()) {
+			Assert.assertTrue(previous == null || previous == e);
+			previous = e;
+			copies.add(((KeyValue<String, Integer>) e).copy());
+		}
+		Assert.assertEquals(Iterables.list(tree), copies);
+		Assert.assertEquals(3, copies.size());
+
+		// trees without a specific cursor return themselves
+		StdTree<Integer> std = new StdTree<>(Integer.class);
+		Assert.assertSame(std, std.cursor());
+	}
+
+	@Test
+	public void testDeepRecursion() {
+		// a chain of 10000 trees with one leaf each
+		StdTree<Object> root = new StdTree<>(Object.class);
+		StdTree<Object> current = root;
+		for (int i = 0; i < 10000; ++i) {
+			current.set("leaf", i);
+			StdTree<Object> child = new StdTree<>(Object.class);
+			current.set("t", child);
+			current = child;
+		}
+		Assert.assertEquals(10000, count(root.recursive(Integer.class)));
+		Assert.assertEquals(20000, count(root.recursive()));
+		Assert.assertEquals(KVP("t.t.leaf", 2), Iterables.first(root.recursive(Integer.class),
+				e -> e.getValue() == 2));
+
+		// removal deletes the member from its parent
+		var it = root.recursive(Integer.class).iterator();
+		Assertions.assertThrows(IllegalStateException.class, it::remove);
+		while (it.hasNext()) {
+			if (it.next().getValue() % 2 == 0) {
+				it.remove();
+			}
+		}
+		Assert.assertEquals(5000, count(root.recursive(Integer.class)));
+		Assert.assertEquals(null, root.peek("leaf"));
+		Assert.assertEquals(1, root.get("t.leaf"));
+	}
+
+	@Test
+	public void testRemoveAfterHasNext() {
+		StdTree<Integer> root = new StdTree<>(Integer.class);
+		root.set("a", 1);
+		root.set("b", 2);
+		root.set("c", 3);
+
+		// looking ahead must not change the member which is removed
+		var it = root.recursive(Integer.class).iterator();
+		Entry<String, Integer> first = it.next();
+		Assert.assertTrue(it.hasNext());
+		it.remove();
+		Assert.assertEquals(null, root.peek(first.getKey()));
+		Assert.assertEquals(2, count(root.recursive(Integer.class)));
+		Assertions.assertThrows(IllegalStateException.class, it::remove);
+
+		// the looked-ahead member is returned and removed next
+		Entry<String, Integer> second = it.next();
+		it.remove();
+		Assert.assertEquals(null, root.peek(second.getKey()));
+		Assert.assertEquals(1, count(root.recursive(Integer.class)));
+	}
+
 	@Test
 	public void testIllegalSet() {
 		DelegatingTree<Number> entity = createSimpleDelegatingTree();